@@ -0,0 +1,44 @@
+#!/bin/sh
+# ----------------------------------------------------------------------------
+# Builds the simulator for fast start-up: extracts the jar into
+# target/fast-start, records a class data sharing archive of the classes
+# used by SimulatorLauncher while it runs the example program, and reports
+# the time to first instruction with and without Spring.
+#
+# Usage: ./build-fast-start.sh [--skip-build]
+#
+# @author Rodrigo Bautista Hernández, 2026
+# ----------------------------------------------------------------------------
+set -e
+cd "$(dirname "$0")"
+
+OUT=target/fast-start
+LAUNCHER=com.legv8.simulator.cli.SimulatorLauncher
+EXAMPLE=../examples/example.s
+EXPECTED=../examples/expected_results.txt
+
+if [ "$1" != "--skip-build" ]; then
+    sh ./mvnw -B -q package -DskipTests
+fi
+
+rm -rf "$OUT"
+java -Djarmode=tools -jar target/simulador-legv8.jar extract --destination "$OUT"
+
+# Training run: the classes it loads are dumped into the archive when the JVM exits
+java -XX:ArchiveClassesAtExit="$OUT/simulator.jsa" -Xlog:cds=off -Xlog:cds+dynamic=off \
+    -cp "$OUT/simulador-legv8.jar" "$LAUNCHER" \
+    "$EXAMPLE" false true "$EXPECTED" false "$OUT/training-results.txt" > /dev/null
+
+echo "Time to first instruction:"
+printf "  %-20s" "Spring application:"
+java -jar target/simulador-legv8.jar --spring.main.banner-mode=off --logging.level.root=WARN \
+    "$EXAMPLE" false false "" true "$OUT/spring-results.txt" --startup-time | grep "Time to first instruction" | cut -d" " -f5
+printf "  %-20s" "Launcher:"
+java -cp "$OUT/simulador-legv8.jar" "$LAUNCHER" \
+    "$EXAMPLE" false false "" true "$OUT/launcher-results.txt" --startup-time | grep "Time to first instruction" | cut -d" " -f5
+printf "  %-20s" "Launcher with CDS:"
+java -XX:SharedArchiveFile="$OUT/simulator.jsa" -cp "$OUT/simulador-legv8.jar" "$LAUNCHER" \
+    "$EXAMPLE" false false "" true "$OUT/cds-results.txt" --startup-time | grep "Time to first instruction" | cut -d" " -f5
+
+echo "Run programs with:"
+echo "  java -XX:SharedArchiveFile=$OUT/simulator.jsa -cp $OUT/simulador-legv8.jar $LAUNCHER <arguments>"
@@ -0,0 +1,168 @@
+package com.legv8.simulator.cache;
+
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.MemoryAccessListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * <code>CacheHierarchy</code> simulates a chain of <code>CacheLevel</code>s placed between the
+ * <code>CPU</code> data transfer instructions and <code>Memory</code>.
+ * <p>
+ * Every load and store is split into the lines it touches. Each line is looked up level by level
+ * until it hits, adding the latency of every level probed, plus the memory latency if all levels
+ * miss. Caches are write-allocate; write-backs are not modelled.
+ * <p>
+ * A hierarchy can be configured from a properties file with the keys <code>l1.size</code>,
+ * <code>l1.associativity</code>, <code>l1.lineSize</code>, <code>l1.policy</code>,
+ * <code>l1.latency</code>, then <code>l2.*</code> and so on, and <code>memory.latency</code>.
+ * Sizes accept a <code>K</code> or <code>M</code> suffix.
+ *
+ * @see Memory#addAccessListener(MemoryAccessListener)
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class CacheHierarchy implements MemoryAccessListener {
+
+    public static final int DEFAULT_MEMORY_LATENCY = 100;
+
+    /**
+     * @param levels		the cache levels, L1 first
+     * @param memoryLatency	the number of cycles taken by an access that misses every level
+     */
+    public CacheHierarchy(List<CacheLevel> levels, int memoryLatency) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("A cache hierarchy needs at least one level");
+        }
+        this.levels = levels.toArray(new CacheLevel[0]);
+        this.memoryLatency = memoryLatency;
+        lineSize = this.levels[0].getLineSize();
+    }
+
+    /**
+     * @return	a hierarchy with a 32 KiB 8-way L1 and a 256 KiB 8-way L2, both with 64 byte lines and LRU replacement
+     */
+    public static CacheHierarchy defaultHierarchy() {
+        return new CacheHierarchy(List.of(
+                new CacheLevel("L1", 32 * 1024, 8, 64, ReplacementPolicy.LRU, 4),
+                new CacheLevel("L2", 256 * 1024, 8, 64, ReplacementPolicy.LRU, 12)),
+                DEFAULT_MEMORY_LATENCY);
+    }
+
+    /**
+     * @param path	a properties file describing the hierarchy
+     * @return		the configured hierarchy
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static CacheHierarchy load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * @param properties	the configuration, see the class description for the keys
+     * @return				the configured hierarchy
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static CacheHierarchy fromProperties(Properties properties) {
+        List<CacheLevel> levels = new ArrayList<>();
+        for (int n=1; properties.containsKey("l" + n + ".size"); n++) {
+            String prefix = "l" + n + ".";
+            levels.add(new CacheLevel("L" + n,
+                    parseSize(properties.getProperty(prefix + "size")),
+                    Integer.parseInt(properties.getProperty(prefix + "associativity", "1").trim()),
+                    parseSize(properties.getProperty(prefix + "lineSize", "64")),
+                    ReplacementPolicy.valueOf(properties.getProperty(prefix + "policy", "LRU").trim().toUpperCase(Locale.ROOT)),
+                    Integer.parseInt(properties.getProperty(prefix + "latency", "1").trim())));
+        }
+        int memoryLatency = Integer.parseInt(
+                properties.getProperty("memory.latency", String.valueOf(DEFAULT_MEMORY_LATENCY)).trim());
+        return new CacheHierarchy(levels, memoryLatency);
+    }
+
+    private static int parseSize(String value) {
+        String size = value.trim().toUpperCase(Locale.ROOT);
+        if (size.endsWith("B")) {
+            size = size.substring(0, size.length() - 1);
+        }
+        if (size.endsWith("K")) {
+            return Integer.parseInt(size.substring(0, size.length() - 1)) * 1024;
+        }
+        if (size.endsWith("M")) {
+            return Integer.parseInt(size.substring(0, size.length() - 1)) * 1024 * 1024;
+        }
+        return Integer.parseInt(size);
+    }
+
+    @Override
+    public void onAccess(long address, int size, boolean store) {
+        if (store) {
+            stores++;
+        } else {
+            loads++;
+        }
+        long last = address + size - 1;
+        for (long line = address & -lineSize; line <= last; line += lineSize) {
+            accessLine(line);
+        }
+    }
+
+    private void accessLine(long address) {
+        lineAccesses++;
+        for (CacheLevel level : levels) {
+            cycles += level.getLatency();
+            if (level.access(address)) {
+                return;
+            }
+        }
+        memoryAccesses++;
+        cycles += memoryLatency;
+    }
+
+    /**
+     * @return	the estimated number of cycles spent on all memory accesses so far
+     */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return	the cache levels, L1 first
+     */
+    public List<CacheLevel> getLevels() {
+        return List.of(levels);
+    }
+
+    @Override
+    public String toString() {
+        String ret = "Cache simulation:";
+        ret += "\nLoads: " + loads + ", stores: " + stores + ", line accesses: " + lineAccesses;
+        for (CacheLevel level : levels) {
+            ret += "\n" + level;
+        }
+        ret += "\nMemory: " + memoryAccesses + " accesses (" + memoryLatency + " cycles each)";
+        double average = (lineAccesses == 0) ? 0.0 : (double) cycles / lineAccesses;
+        ret += "\nEstimated memory access cost: " + cycles + " cycles ("
+                + String.format("%.2f", average) + " cycles per access)";
+        return ret;
+    }
+
+    private final CacheLevel[] levels;
+    private final int memoryLatency;
+    private final int lineSize;
+    private long loads = 0;
+    private long stores = 0;
+    private long lineAccesses = 0;
+    private long memoryAccesses = 0;
+    private long cycles = 0;
+}
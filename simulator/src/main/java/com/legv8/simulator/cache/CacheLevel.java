@@ -0,0 +1,138 @@
+package com.legv8.simulator.cache;
+
+import java.util.Arrays;
+
+/**
+ * A <code>CacheLevel</code> models the tag store of one set-associative cache.
+ * <p>
+ * Only tags are simulated, data always lives in <code>Memory</code>. Tags and replacement
+ * timestamps are kept in flat primitive arrays indexed by <code>set * associativity + way</code>
+ * so a lookup touches no objects.
+ *
+ * @see CacheHierarchy
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class CacheLevel {
+
+    /**
+     * @param name			the name of this level in reports, e.g. <code>"L1"</code>
+     * @param size			the capacity in bytes
+     * @param associativity	the number of ways per set
+     * @param lineSize		the line size in bytes, a power of two
+     * @param policy		the replacement policy
+     * @param latency		the number of cycles taken to look up this level
+     * @throws IllegalArgumentException if the geometry does not give a power of two number of sets
+     */
+    public CacheLevel(String name, int size, int associativity, int lineSize, ReplacementPolicy policy, int latency) {
+        if (lineSize <= 0 || Integer.bitCount(lineSize) != 1) {
+            throw new IllegalArgumentException(name + ": line size must be a power of two, found " + lineSize);
+        }
+        if (associativity <= 0 || size % (associativity * lineSize) != 0) {
+            throw new IllegalArgumentException(name + ": size must be a multiple of associativity * line size");
+        }
+        int sets = size / (associativity * lineSize);
+        if (Integer.bitCount(sets) != 1) {
+            throw new IllegalArgumentException(name + ": number of sets must be a power of two, found " + sets);
+        }
+        this.name = name;
+        this.size = size;
+        this.associativity = associativity;
+        this.lineSize = lineSize;
+        this.policy = policy;
+        this.latency = latency;
+        lineBits = Integer.numberOfTrailingZeros(lineSize);
+        setMask = sets - 1;
+        tags = new long[sets * associativity];
+        stamps = new long[sets * associativity];
+        Arrays.fill(tags, -1L);
+    }
+
+    /**
+     * Looks up the line containing <code>address</code>, filling it on a miss.
+     *
+     * @param address	the address accessed
+     * @return			<code>true</code> on a hit
+     */
+    public boolean access(long address) {
+        long line = address >>> lineBits;
+        int base = (int) (line & setMask) * associativity;
+        clock++;
+        int victim = base;
+        long oldest = Long.MAX_VALUE;
+        for (int i=base; i<base+associativity; i++) {
+            if (tags[i] == line) {
+                hits++;
+                if (policy == ReplacementPolicy.LRU) {
+                    stamps[i] = clock;
+                }
+                return true;
+            }
+            if (stamps[i] < oldest) {
+                oldest = stamps[i];
+                victim = i;
+            }
+        }
+        misses++;
+        tags[victim] = line;
+        stamps[victim] = clock;
+        return false;
+    }
+
+    /**
+     * @return	the name of this level in reports
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return	the line size in bytes
+     */
+    public int getLineSize() {
+        return lineSize;
+    }
+
+    /**
+     * @return	the number of cycles taken to look up this level
+     */
+    public int getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return	the number of lookups that hit
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return	the number of lookups that missed
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+        long accesses = hits + misses;
+        double hitRate = (accesses == 0) ? 0.0 : 100.0 * hits / accesses;
+        return name + " (" + size + " bytes, " + associativity + "-way, " + lineSize + " byte lines, " + policy + "): "
+                + accesses + " accesses, " + hits + " hits (" + String.format("%.1f", hitRate) + "%), "
+                + misses + " misses (" + String.format("%.1f", 100.0 - hitRate) + "%)";
+    }
+
+    private final String name;
+    private final int size;
+    private final int associativity;
+    private final int lineSize;
+    private final ReplacementPolicy policy;
+    private final int latency;
+    private final int lineBits;
+    private final long setMask;
+    private final long[] tags;
+    private final long[] stamps;
+    private long clock = 0;
+    private long hits = 0;
+    private long misses = 0;
+}
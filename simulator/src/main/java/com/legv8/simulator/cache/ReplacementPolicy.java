@@ -0,0 +1,21 @@
+package com.legv8.simulator.cache;
+
+/**
+ * The <code>ReplacementPolicy</code> enumeration defines how a <code>CacheLevel</code> chooses
+ * the line to evict from a full set.
+ *
+ * @see CacheLevel
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public enum ReplacementPolicy {
+
+    /**
+     * Evict the line that was used least recently
+     */
+    LRU,
+
+    /**
+     * Evict the line that was brought into the cache first
+     */
+    FIFO
+}
@@ -0,0 +1,209 @@
+package com.legv8.simulator.cli;
+
+import com.legv8.simulator.execution.Expectations;
+import com.legv8.simulator.execution.MachineCodeImage;
+import com.legv8.simulator.execution.TestCase;
+import com.legv8.simulator.fileio.AssemblyFileReader;
+import com.legv8.simulator.fileio.RegradeManifest;
+import com.legv8.simulator.lexer.LineCache;
+import com.legv8.simulator.response.CoverageSummary;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * <code>BulkCommand</code> runs every program of a folder, reusing the results of the regrade manifest
+ * and of identical programs when the options ask for it.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+class BulkCommand {
+
+    BulkCommand(CommandLineHandler handler, AssemblyFileReader reader, boolean printMemory, String expectedResultFilePath,
+                Expectations expected, String whereToPrint, boolean compactResults, Map<String, String> options,
+                List<TestCase> testCases) {
+        this.handler = handler;
+        this.reader = reader;
+        this.printMemory = printMemory;
+        this.expectedResultFilePath = expectedResultFilePath;
+        this.expected = expected;
+        this.whereToPrint = whereToPrint;
+        this.compactResults = compactResults;
+        this.options = options;
+        this.testCases = testCases;
+    }
+
+    /**
+     * @param folder			the folder of the programs
+     * @param coverageSummary	sums the coverage of every program, <code>null</code> without <code>--coverage</code>
+     * @param watched			gets the results of every program, <code>null</code> without <code>--watch</code>
+     */
+    void run(Path folder, CoverageSummary coverageSummary, Map<Path, List<String>> watched) {
+        RegradeManifest regrade = openRegradeManifest();
+        boolean dedup = options.containsKey("dedup");
+        if (dedup && (options.containsKey("coverage") || options.containsKey("trace-file"))) {
+            System.err.println("Identical programs are not deduplicated with --coverage or --trace-file.");
+            dedup = false;
+        }
+        LineCache lineCache = LineCache.getShared();
+        long lineCacheHits = lineCache.getHits();
+        long lineCacheMisses = lineCache.getMisses();
+        Map<String, Path> uniquePrograms = new HashMap<>();
+        Map<String, List<String>> uniqueResults = new HashMap<>();
+        int executed = 0;
+        int duplicates = 0;
+        List<Path> programs;
+        try (var files = Files.list(folder)) {
+            programs = files.filter(p -> p.toString().endsWith(".s") || p.toString().endsWith(MachineCodeImage.EXTENSION)).toList();
+        } catch (IOException e) {
+            System.err.println("Error reading directory: " + folder);
+            programs = List.of();
+        }
+        for (Path file : programs) {
+            try {
+                List<String> cached = (regrade == null) ? null : regrade.lookup(file);
+                if (cached != null) {
+                    System.out.println("Unchanged: " + file);
+                    handler.writeResults(whereToPrint, cached);
+                    if (watched != null) {
+                        watched.put(file, cached);
+                    }
+                    continue;
+                }
+                String normalizedHash = (dedup && !file.toString().endsWith(MachineCodeImage.EXTENSION))
+                        ? reader.hashNormalized(file.toString()) : null;
+                List<String> results;
+                if (normalizedHash != null && uniqueResults.containsKey(normalizedHash)) {
+                    System.out.println("Identical to " + uniquePrograms.get(normalizedHash) + ": " + file);
+                    results = new ArrayList<>(uniqueResults.get(normalizedHash));
+                    results.set(0, "=== " + file + " ===");
+                    results.add(1, "Identical to: " + uniquePrograms.get(normalizedHash));
+                    handler.writeResults(whereToPrint, results);
+                    duplicates++;
+                } else {
+                    results = handler.executeFile(file.toString(), printMemory, expected, whereToPrint, compactResults, options, coverageSummary, testCases);
+                    executed++;
+                    if (normalizedHash != null && results != null) {
+                        uniquePrograms.put(normalizedHash, file);
+                        uniqueResults.put(normalizedHash, results);
+                    }
+                }
+                if (regrade != null && results != null) {
+                    regrade.store(file, results);
+                }
+                if (watched != null && results != null) {
+                    watched.put(file, results);
+                }
+            } catch (IOException e) {
+                System.err.println("Error accessing assembly file: " + file);
+            }
+        }
+        if (dedup && executed + duplicates > 0) {
+            String summary = "Deduplication: " + (executed + duplicates) + " programs, " + executed + " executed, "
+                    + duplicates + " identical to another (" + String.format("%.1f", 100.0 * duplicates / (executed + duplicates)) + "% saved)";
+            System.out.println(summary);
+            handler.writeResults(whereToPrint, List.of(summary));
+        }
+        if (regrade != null) {
+            try {
+                regrade.save();
+                System.out.println("Regraded " + regrade.getMisses() + " programs, reused " + regrade.getHits() + " results.");
+            } catch (IOException e) {
+                System.err.println("Error writing regrade manifest: " + e.getMessage());
+            }
+        }
+        if (coverageSummary != null && coverageSummary.getPrograms() > 0) {
+            handler.writeResults(whereToPrint, List.of(coverageSummary.toString()));
+        }
+        System.out.println(lineCache.getSummary(lineCacheHits, lineCacheMisses));
+    }
+
+    /*
+     * The stored results are only valid for the same simulator, positional arguments, options and the files they name.
+     * Coverage and traces are produced as a side effect of execution, so they disable the manifest.
+     */
+    private RegradeManifest openRegradeManifest() {
+        String manifestPath = options.get("regrade-manifest");
+        if (manifestPath == null) {
+            return null;
+        }
+        if (options.containsKey("coverage") || options.containsKey("trace-file")) {
+            System.err.println("The regrade manifest is not used with --coverage or --trace-file.");
+            return null;
+        }
+        List<String> settings = new ArrayList<>(List.of("print-memory=" + printMemory, "compact=" + compactResults));
+        List<Path> files = new ArrayList<>();
+        if (expectedResultFilePath != null && !expectedResultFilePath.isEmpty()) {
+            files.add(Path.of(expectedResultFilePath));
+        }
+        new TreeMap<>(options).forEach((name, value) -> {
+            if (!name.equals("regrade-manifest")) {
+                settings.add(name + "=" + value);
+                if (CommandLineHandler.PATH_OPTIONS.contains(name)) {
+                    try {
+                        files.add(Path.of(value));
+                    } catch (InvalidPathException e) {
+                        // Not a file
+                    }
+                }
+            }
+        });
+        String version = simulatorVersion();
+        String configurationHash;
+        try {
+            configurationHash = RegradeManifest.hashConfiguration(files, settings);
+        } catch (IOException e) {
+            System.err.println("Error reading the files named by the options: " + e.getMessage());
+            return null;
+        }
+        try {
+            return RegradeManifest.load(Path.of(manifestPath), version, configurationHash);
+        } catch (IOException e) {
+            System.err.println("Error reading regrade manifest, regrading every program: " + e.getMessage());
+            return new RegradeManifest(Path.of(manifestPath), version, configurationHash);
+        }
+    }
+
+    /*
+     * Outside a packaged jar there is no version, so the compiled classes stand in for it: rebuilding the
+     * simulator changes their number or their latest modification time.
+     */
+    private static String simulatorVersion() {
+        String version = BulkCommand.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        try (Stream<Path> files = Files.walk(Path.of(BulkCommand.class.getProtectionDomain().getCodeSource().getLocation().toURI()))) {
+            long[] classes = files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.getLastModifiedTime(file).toMillis();
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).toArray();
+            return "development-" + classes.length + "-" + Arrays.stream(classes).max().orElse(0);
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return "development";
+        }
+    }
+
+    private final CommandLineHandler handler;
+    private final AssemblyFileReader reader;
+    private final boolean printMemory;
+    private final String expectedResultFilePath;
+    private final Expectations expected;
+    private final String whereToPrint;
+    private final boolean compactResults;
+    private final Map<String, String> options;
+    private final List<TestCase> testCases;
+}
@@ -1,28 +1,66 @@
 package com.legv8.simulator.cli;
 
+import com.legv8.simulator.cache.CacheHierarchy;
+import com.legv8.simulator.cpu.TimingModel;
+import com.legv8.simulator.execution.AssembledProgram;
+import com.legv8.simulator.execution.BatchMode;
 import com.legv8.simulator.execution.ContinuousMode;
+import com.legv8.simulator.execution.Expectations;
+import com.legv8.simulator.execution.InterleavedMode;
 import com.legv8.simulator.execution.LEGv8_Simulator;
+import com.legv8.simulator.execution.MachineCodeImage;
+import com.legv8.simulator.execution.MultiCoreMode;
+import com.legv8.simulator.execution.TestCase;
+import com.legv8.simulator.execution.TestMode;
 import com.legv8.simulator.fileio.AssemblyFileReader;
+import com.legv8.simulator.fileio.BatchInputFileReader;
 import com.legv8.simulator.fileio.ExpectedResulFileReader;
+import com.legv8.simulator.fileio.RegradeManifest;
 import com.legv8.simulator.fileio.ResultFileWriter;
+import com.legv8.simulator.fileio.TestManifestFileReader;
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.lexer.LineCache;
 import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.MemoryProfiler;
+import com.legv8.simulator.predictor.BranchPredictionUnit;
+import com.legv8.simulator.predictor.BranchPredictor;
 import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.CoverageReport;
+import com.legv8.simulator.response.CoverageSummary;
 import com.legv8.simulator.response.LineError;
 import com.legv8.simulator.response.ResultWrapper;
+import com.legv8.simulator.response.TestCaseResult;
+import com.legv8.simulator.server.DaemonClient;
+import com.legv8.simulator.server.SimulationDaemon;
+import com.legv8.simulator.server.SimulationServer;
+import com.legv8.simulator.trace.TraceDecoder;
+import com.legv8.simulator.trace.TraceFileWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <code>CommandLineHandler</code> is used when the simulator is run from the CLI.
  * This makes it so the simulator can be run without a GUI.
+ * <p>
+ * Single programs are run here. The server, the daemon, folders and watch mode are run by
+ * <code>ServeCommand</code>, <code>DaemonCommand</code>, <code>BulkCommand</code> and <code>WatchCommand</code>.
  *
  * @see LEGv8_Simulator
  * @author Rodrigo Bautista Hernández, 2025
@@ -30,26 +68,72 @@ import java.util.Map;
 @Component
 public class CommandLineHandler implements CommandLineRunner {
 
+    // Options whose value is a file
+    static final Set<String> PATH_OPTIONS = Set.of("trace-file", "cache", "timing", "batch", "tests",
+            "regrade-manifest", "decode-trace", "source", "decode-output", "assemble", "assemble-output", "file-directory");
+
+    private final AssemblyFileReader reader;
+    private final ExpectedResulFileReader resultReader;
+    private final ResultFileWriter writer;
+    private final BatchInputFileReader batchReader;
+    private final TestManifestFileReader testReader;
+    private boolean startupReported = false;
+
+    /**
+     * The readers and writer are injected by Spring, or created by <code>SimulatorLauncher</code> when the
+     * simulator is started without Spring.
+     */
     @Autowired
-    private AssemblyFileReader reader;
-    @Autowired
-    private ExpectedResulFileReader resultReader;
-    @Autowired
-    private ResultFileWriter writer;
+    public CommandLineHandler(AssemblyFileReader reader, ExpectedResulFileReader resultReader, ResultFileWriter writer,
+                              BatchInputFileReader batchReader, TestManifestFileReader testReader) {
+        this.reader = reader;
+        this.resultReader = resultReader;
+        this.writer = writer;
+        this.batchReader = batchReader;
+        this.testReader = testReader;
+    }
 
     @Override
-    public void run(String... args) {
-        if (args.length < 3) {
-            System.out.println("Usage: java -jar simulator.jar <path-to-file-or-folder> <bulk:true|false> <print-memory:true|false> <expected-results-path> <compact-results:true|false> <path-to-print-results-file>");
+    public void run(String... arguments) {
+        List<String> args = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        parseArguments(arguments, args, options);
+
+        if (options.containsKey("decode-trace")) {
+            decodeTrace(options);
+            return;
+        }
+
+        if (options.containsKey("assemble")) {
+            assemble(options);
+            return;
+        }
+
+        if (options.containsKey("serve")) {
+            new ServeCommand(reader).run(options);
             return;
         }
 
-        String path = args[0];
-        boolean isBulk = Boolean.parseBoolean(args[1]);
-        boolean printMemory = Boolean.parseBoolean(args[2]);
-        String expectedResultFilePath = (args.length >= 4) ? args[3] : null;
-        boolean compactResults = (args.length >= 5) ? Boolean.parseBoolean(args[4]) : false;
-        String whereToPrint = (args.length >= 6) ? args[5] : null;
+        if (options.containsKey("daemon")) {
+            new DaemonCommand(this::run).run(options);
+            return;
+        }
+
+        if (args.size() < 3) {
+            System.out.println("Usage: java -jar simulator.jar <path-to-file-or-folder> <bulk:true|false> <print-memory:true|false> <expected-results-path> <compact-results:true|false> <path-to-print-results-file> [--trace-file=<file-or-folder>] [--coverage] [--memory-profile] [--cache[=<cache-properties-file>]] [--branch-predictor[=not-taken|1bit|2bit|gshare[:history-bits]]] [--timing=<timing-properties-file>] [--cores=<number>] [--quantum=<instructions>] [--seed=<number>] [--batch=<inputs-file>] [--tests=<manifest-file>] [--regrade-manifest=<file>] [--dedup] [--startup-time] [--watch] [--file-directory=<folder>]");
+            System.out.println("       java -jar simulator.jar --decode-trace=<trace-file> [--source=<path-to-file>] [--decode-output=<path-to-text-file>]");
+            System.out.println("       java -jar simulator.jar --assemble=<path-to-file> [--assemble-output=<path-to-binary-file>]");
+            System.out.println("       java -jar simulator.jar --serve[=<port>] [--server-threads=<number>] [--max-instructions=<number>] [--sandbox=<folder>]");
+            System.out.println("       java -jar simulator.jar --daemon[=<socket-file>] [--server-threads=<number>]");
+            return;
+        }
+
+        String path = args.get(0);
+        boolean isBulk = Boolean.parseBoolean(args.get(1));
+        boolean printMemory = Boolean.parseBoolean(args.get(2));
+        String expectedResultFilePath = (args.size() >= 4) ? args.get(3) : null;
+        boolean compactResults = (args.size() >= 5) ? Boolean.parseBoolean(args.get(4)) : false;
+        String whereToPrint = (args.size() >= 6) ? args.get(5) : null;
         try {
             if(whereToPrint != null)
                 Files.delete(Path.of(whereToPrint));
@@ -59,108 +143,518 @@ public class CommandLineHandler implements CommandLineRunner {
             //Do nothing, it is fine
         }
 
-        if (isBulk) {
-            try (var files = Files.list(Path.of(path))) {
-                files.filter(p -> p.toString().endsWith(".s"))
-                        .forEach(file -> executeFile(file.toString(), printMemory, expectedResultFilePath, whereToPrint, compactResults));
+        Expectations expected = null;
+        if (expectedResultFilePath != null && !expectedResultFilePath.isEmpty()) {
+            try {
+                expected = resultReader.readExpectations(expectedResultFilePath);
+            } catch (IOException e) {
+                System.err.println("Error reading expected results file " + expectedResultFilePath + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        List<TestCase> testCases = null;
+        if (options.containsKey("tests")) {
+            try {
+                testCases = testReader.readTestCases(options.get("tests"));
             } catch (IOException e) {
-                System.err.println("Error reading directory: " + path);
+                System.err.println("Error reading test manifest " + options.get("tests") + ": " + e.getMessage());
+                return;
             }
+        }
+
+        CoverageSummary coverageSummary = options.containsKey("coverage") ? new CoverageSummary() : null;
+        Map<Path, List<String>> watched = options.containsKey("watch") ? new LinkedHashMap<>() : null;
+        if (isBulk) {
+            new BulkCommand(this, reader, printMemory, expectedResultFilePath, expected, whereToPrint, compactResults, options, testCases)
+                    .run(Path.of(path), coverageSummary, watched);
         } else {
-            executeFile(path, printMemory, expectedResultFilePath, whereToPrint, compactResults);
+            List<String> results = executeFile(path, printMemory, expected, whereToPrint, compactResults, options, coverageSummary, testCases);
+            if (watched != null && results != null) {
+                watched.put(Path.of(path), results);
+            }
+        }
+
+        if (watched != null) {
+            new WatchCommand(this, reader, printMemory, expected, whereToPrint, compactResults, options, testCases)
+                    .watch(Path.of(path), isBulk, watched);
         }
     }
 
+    void writeResults(String whereToPrint, List<String> lines) {
+        try {
+            if (whereToPrint != null && !whereToPrint.isEmpty()) {
+                writer.writeToFile(whereToPrint, lines);
+            } else {
+                writer.writeToFile(lines);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing results file.");
+        }
+    }
 
-    private void executeFile(String filePath, boolean printMemory, String expectedResultFilePath, String whereToPrint, boolean compactResults) {
-        System.out.println("Executing: " + filePath);
-        ArrayList<TextLine> lines;
+    /*
+     * Arguments of the form --name=value (or just --name) are options, everything else is positional.
+     */
+    static void parseArguments(String[] arguments, List<String> args, Map<String, String> options) {
+        for (String argument : arguments) {
+            if (argument.startsWith("--")) {
+                int equals = argument.indexOf('=');
+                if (equals == -1) {
+                    options.put(argument.substring(2), "true");
+                } else {
+                    options.put(argument.substring(2, equals), argument.substring(equals + 1));
+                }
+            } else {
+                args.add(argument);
+            }
+        }
+    }
+
+    private void decodeTrace(Map<String, String> options) {
+        String tracePath = options.get("decode-trace");
+        String outputPath = options.getOrDefault("decode-output", tracePath + ".txt");
+        ArrayList<Instruction> instructions = null;
+        String source = options.get("source");
+        if (source != null) {
+            try {
+                instructions = new ContinuousMode(reader.readAsTextLines(source)).getInstructions();
+            } catch (IOException e) {
+                System.err.println("Error accessing assembly file: " + source);
+            }
+        }
         try {
-            lines = reader.readAsTextLines(filePath);
+            long count = new TraceDecoder(instructions).decode(Path.of(tracePath), Path.of(outputPath));
+            System.out.println("Decoded " + count + " trace records into: " + outputPath);
         } catch (IOException e) {
-            System.err.println("Error accessing assembly file: " + filePath);
+            System.err.println("Error decoding trace file: " + tracePath + ". " + e.getMessage());
+        }
+    }
+
+    /*
+     * The image is written next to the source, with .bin in place of .s, unless another file is given.
+     */
+    private void assemble(Map<String, String> options) {
+        String sourcePath = options.get("assemble");
+        String outputPath = options.getOrDefault("assemble-output",
+                (sourcePath.endsWith(".s") ? sourcePath.substring(0, sourcePath.length() - 2) : sourcePath) + MachineCodeImage.EXTENSION);
+        AssembledProgram program;
+        try {
+            program = reader.assemble(sourcePath);
+        } catch (IOException e) {
+            System.err.println("Error accessing assembly file: " + sourcePath);
+            return;
+        }
+        if (!program.getCompileErrors().isEmpty()) {
+            for (LineError err : program.getCompileErrors()) {
+                System.out.println("Line " + (err.getLineNumber() + 1) + ": " + err.getMsg());
+            }
+            System.err.println("Not assembled, the program has compile errors: " + sourcePath);
             return;
         }
+        try {
+            int count = MachineCodeImage.write(Path.of(outputPath), program.getInstructions());
+            System.out.println("Assembled " + count + " instructions into: " + outputPath);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error assembling " + sourcePath + ". " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error writing machine code image: " + outputPath);
+        }
+    }
 
-        if (lines != null && !lines.isEmpty()) {
-            List<String> toPrint = new ArrayList<>();
-            toPrint.add("=== " + filePath + " ===");
+    /*
+     * If the trace path is an existing folder, one trace per program is written inside it.
+     */
+    private TraceFileWriter openTrace(String filePath, String tracePath) {
+        if (tracePath == null || tracePath.isEmpty()) {
+            return null;
+        }
+        Path path = Path.of(tracePath);
+        if (Files.isDirectory(path)) {
+            path = path.resolve(Path.of(filePath).getFileName() + ".trace");
+        }
+        try {
+            return new TraceFileWriter(path);
+        } catch (IOException e) {
+            System.err.println("Error creating trace file: " + path);
+            return null;
+        }
+    }
 
-            ContinuousMode simulator = new ContinuousMode(lines);
-            ResultWrapper<CPUSnapshot, LineError> result;
+    /*
+     * A bare --cache option simulates the default hierarchy, otherwise the value is a properties file.
+     */
+    private CacheHierarchy openCache(String cacheOption) {
+        if (cacheOption == null) {
+            return null;
+        }
+        if (cacheOption.equals("true")) {
+            return CacheHierarchy.defaultHierarchy();
+        }
+        try {
+            return CacheHierarchy.load(Path.of(cacheOption));
+        } catch (IOException e) {
+            System.err.println("Error accessing cache configuration file: " + cacheOption);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid cache configuration: " + e.getMessage());
+        }
+        return null;
+    }
 
-            if (!simulator.getCompileErrorMsgs().isEmpty()) {
-                result = null;
-                toPrint.addAll(simulator.getCompileErrorMsgs().stream()
-                        .map(err -> "Line " + (err.getLineNumber() + 1) + ": " + err.getMsg())
-                        .peek(System.out::println)
-                        .toList());
-            } else {
-                result = simulator.runWithResult();
-                if (result.isSuccess()) {
-                    if(!compactResults) {
-                        toPrint.add(result.getValue().toString());
-                    }
-                    else {
-                        toPrint.add(result.getValue().getRunTimeString());
-                    }
-                    if (printMemory) {
-                        toPrint.add(simulator.getMemory().toString());
-                    }
-                } else {
-                    toPrint.add(result.getError().toString());
-                }
+    static int parseCores(Map<String, String> options) {
+        if (options.containsKey("cores")) {
+            try {
+                return Integer.parseInt(options.get("cores"));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid number of cores: " + options.get("cores"));
+            }
+        }
+        return 1;
+    }
+
+    /*
+     * Several cores run on their own threads, unless a quantum or a seed asks for a deterministic interleaving.
+     */
+    static ContinuousMode createSimulator(ArrayList<TextLine> lines, int cores, Map<String, String> options) {
+        if (options.containsKey("quantum") || options.containsKey("seed")) {
+            try {
+                int quantum = Integer.parseInt(options.getOrDefault("quantum", String.valueOf(InterleavedMode.DEFAULT_QUANTUM)));
+                Long seed = options.containsKey("seed") ? Long.valueOf(options.get("seed")) : null;
+                return new InterleavedMode(lines, Math.max(1, cores), quantum, seed);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid schedule: " + e.getMessage());
             }
+        }
+        return (cores > 1) ? new MultiCoreMode(lines, cores) : new ContinuousMode(lines);
+    }
 
-            if (expectedResultFilePath != null && !expectedResultFilePath.isEmpty()) {
-                boolean success = true;
-                String failingRegisters = "";
-                if (result == null || result.isFailure()) {
-                    toPrint.add("Tests FAILED. Run or compile failure.");
-                } else {
-                    Map<String, Long> registers;
-                    try {
-                        registers = resultReader.readExpectedRegisters(expectedResultFilePath);
-                    } catch (IOException e) {
-                        System.err.println("Error accessing expected results file: " + expectedResultFilePath);
-                        return;
-                    }
-
-                    if (registers != null && !registers.isEmpty()) {
-                        List<String> registerNames = List.of(result.getValue().getRegisterNames());
-                        for (Map.Entry<String, Long> entry : registers.entrySet()) {
-                            int reg = registerNames.indexOf(entry.getKey());
-                            long actual = result.getValue().getRegister(reg);
-                            if (entry.getValue() != actual) {
-                                success = false;
-                                failingRegisters += (failingRegisters.length()==0) ? entry.getKey() : (", " + entry.getKey());
-                            }
-                        }
-                    }
-                    if (!success) {
-                        toPrint.add("Tests FAILED. Failing registers: " + failingRegisters);
-                    } else {
-                        toPrint.add("Tests PASSED.");
-                    }
-                }
+    /*
+     * The time from the start of the JVM until the first program is compiled and about to run, printed once per process.
+     */
+    private synchronized void reportStartup() {
+        long now = System.currentTimeMillis();
+        if (startupReported) {
+            return;
+        }
+        startupReported = true;
+        System.out.println("Time to first instruction: " + (now - ManagementFactory.getRuntimeMXBean().getStartTime()) + "ms");
+    }
+
+    private static String checkExpected(ResultWrapper<CPUSnapshot, LineError> result, Expectations expected,
+                                        Memory memory, String stdout) {
+        if (result == null || result.isFailure()) {
+            return "Tests FAILED. Run or compile failure.";
+        }
+        List<String> failures = expected.check(result.getValue(), memory, stdout);
+        if (!failures.isEmpty()) {
+            return "Tests FAILED. " + String.join("; ", failures);
+        }
+        return "Tests PASSED.";
+    }
+
+    /*
+     * Captures what the program prints while still echoing it to the terminal.
+     */
+    private static PrintStream captureConsole(ByteArrayOutputStream captured) {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                captured.write(b);
+                System.out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                captured.write(b, off, len);
+                System.out.write(b, off, len);
+                System.out.flush();
             }
+        }, true, StandardCharsets.ISO_8859_1);
+    }
 
+    /*
+     * Runs the compiled program once per input of the batch file, reporting each input like a separate run.
+     */
+    private List<ResultWrapper<CPUSnapshot, LineError>> executeBatch(ContinuousMode compiled, String batchPath, Map<String, String> options,
+                                                                      boolean printMemory, boolean compactResults, Expectations expected,
+                                                                      List<String> toPrint) {
+        BatchMode batch;
+        try {
+            batch = new BatchMode(compiled.getInstructions(), batchReader.readInputs(batchPath));
+        } catch (IOException e) {
+            System.err.println("Error reading batch inputs file " + batchPath + ": " + e.getMessage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid batch inputs: " + e.getMessage());
+            return null;
+        }
+        if (options.containsKey("file-directory")) {
+            batch.setFileDirectory(Path.of(options.get("file-directory")), false);
+        }
+        String timingOption = options.get("timing");
+        if (timingOption != null) {
             try {
-                if(whereToPrint!=null && !whereToPrint.isEmpty()) {
-                    writer.writeToFile(whereToPrint,toPrint);
-                }
-                else {
-                    writer.writeToFile(toPrint);
+                batch.setTimingModel(TimingModel.load(Path.of(timingOption)));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Invalid timing configuration: " + timingOption);
+            }
+        }
+        List<ResultWrapper<CPUSnapshot, LineError>> results = batch.run();
+        for (int lane=0; lane<results.size(); lane++) {
+            toPrint.add("--- Input " + (lane + 1) + " ---");
+            addResult(toPrint, results.get(lane), compactResults);
+            if (printMemory && results.get(lane).isSuccess()) {
+                toPrint.add(batch.getMemory(lane).toString());
+            }
+        }
+        if (expected != null) {
+            for (int lane=0; lane<results.size(); lane++) {
+                toPrint.add("Input " + (lane + 1) + ": " + checkExpected(results.get(lane), expected, batch.getMemory(lane), null));
+            }
+        }
+        return results;
+    }
+
+    /*
+     * Runs the compiled program once per case of the test manifest, reporting whether each case passed.
+     */
+    private List<TestCaseResult> executeTests(ContinuousMode compiled, List<TestCase> testCases, Map<String, String> options,
+                                              boolean compactResults, List<String> toPrint) {
+        TestMode tests = new TestMode(compiled.getInstructions());
+        if (options.containsKey("file-directory")) {
+            tests.setFileDirectory(Path.of(options.get("file-directory")), false);
+        }
+        String timingOption = options.get("timing");
+        if (timingOption != null) {
+            try {
+                tests.setTimingModel(TimingModel.load(Path.of(timingOption)));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Invalid timing configuration: " + timingOption);
+            }
+        }
+        List<TestCaseResult> results = tests.run(testCases);
+        int passed = 0;
+        for (TestCaseResult result : results) {
+            if (!compactResults && result.getResult() != null && result.getResult().isSuccess()) {
+                toPrint.add("--- Case " + result.getName() + " ---");
+                addResult(toPrint, result.getResult(), false);
+            }
+            if (result.isPassed()) {
+                passed++;
+            }
+        }
+        results.forEach(result -> toPrint.add(result.toString()));
+        toPrint.add("Test cases passed: " + passed + "/" + results.size());
+        return results;
+    }
+
+    private static void addResult(List<String> toPrint, ResultWrapper<CPUSnapshot, LineError> result, boolean compactResults) {
+        if (result.isSuccess()) {
+            if(!compactResults) {
+                toPrint.add(result.getValue().toString());
+            }
+            else {
+                toPrint.add(result.getValue().getRunTimeString());
+            }
+        } else {
+            toPrint.add(result.getError().toString());
+            if (!result.getError().getExecutionHistory().isEmpty()) {
+                toPrint.add("Last instructions executed:");
+                toPrint.addAll(result.getError().getExecutionHistory());
+            }
+        }
+    }
+
+    /*
+     * Returns the lines written for the program, or null if nothing was reported for it.
+     */
+    List<String> executeFile(String filePath, boolean printMemory, Expectations expected, String whereToPrint, boolean compactResults, Map<String, String> options, CoverageSummary coverageSummary, List<TestCase> testCases) {
+        System.out.println("Executing: " + filePath);
+        int cores = parseCores(options);
+
+        // A single core does not need the source lines, so the program is compiled while it is read
+        ArrayList<TextLine> lines = null;
+        AssembledProgram program = null;
+        MachineCodeImage image = null;
+        try {
+            if (filePath.endsWith(MachineCodeImage.EXTENSION)) {
+                if (cores > 1 || options.containsKey("quantum") || options.containsKey("seed")) {
+                    System.err.println("Machine code images run on a single core: " + filePath);
                 }
-            } catch (IOException e) {
-                System.err.println("Error writing results for file: " + filePath);
+                image = reader.loadMachineCode(filePath);
+            } else if (cores > 1 || options.containsKey("quantum") || options.containsKey("seed")) {
+                lines = reader.readAsTextLines(filePath);
+            } else {
+                program = reader.assemble(filePath);
             }
+        } catch (IOException e) {
+            System.err.println("Error accessing assembly file: " + filePath);
+            return null;
+        }
+
+        if ((image != null) ? image.getWords().length > 0 : (program != null) ? program.getLineCount() > 0 : !lines.isEmpty()) {
+            ContinuousMode simulator = (image != null) ? new ContinuousMode(image)
+                    : (program != null) ? new ContinuousMode(program) : createSimulator(lines, cores, options);
+            return runSimulator(filePath, simulator, printMemory, expected, whereToPrint, compactResults, options, coverageSummary, testCases, true);
         } else {
-            try {
+            writeNoCode(filePath, whereToPrint);
+            return null;
+        }
+    }
+
+    void writeNoCode(String filePath, String whereToPrint) {
+        try {
+            if (whereToPrint != null && !whereToPrint.isEmpty()) {
+                writer.writeToFile(whereToPrint, "No code found in file: " + filePath);
+            } else {
                 writer.writeToFile("No code found in file: " + filePath);
-            } catch (IOException e) {
-                System.err.println("Error writing empty result for file: " + filePath);
             }
+        } catch (IOException e) {
+            System.err.println("Error writing empty result for file: " + filePath);
+        }
+    }
+
+    /*
+     * Runs a compiled program as its options ask and writes its results. Callers that print and write the returned
+     * lines themselves, as watch mode does, pass false for writeResults so that the compile errors are not echoed
+     * and the results not appended here as well.
+     */
+    List<String> runSimulator(String filePath, ContinuousMode simulator, boolean printMemory, Expectations expected, String whereToPrint,
+                              boolean compactResults, Map<String, String> options, CoverageSummary coverageSummary, List<TestCase> testCases,
+                              boolean writeResults) {
+        List<String> toPrint = new ArrayList<>();
+        toPrint.add("=== " + filePath + " ===");
+
+        ResultWrapper<CPUSnapshot, LineError> result;
+        List<ResultWrapper<CPUSnapshot, LineError>> batchResults = null;
+        List<TestCaseResult> testResults = null;
+        String programOutput = null;
+
+        if (options.containsKey("startup-time")) {
+            reportStartup();
+        }
+        if (!simulator.getCompileErrorMsgs().isEmpty()) {
+            result = null;
+            List<String> compileErrors = simulator.getCompileErrorMsgs().stream()
+                    .map(err -> "Line " + (err.getLineNumber() + 1) + ": " + err.getMsg())
+                    .toList();
+            if (writeResults) {
+                compileErrors.forEach(System.out::println);
+            }
+            toPrint.addAll(compileErrors);
+        } else if (options.containsKey("batch")) {
+            batchResults = executeBatch(simulator, options.get("batch"), options, printMemory, compactResults, expected, toPrint);
+            result = (batchResults == null) ? null : batchResults.get(0);
+        } else if (testCases != null) {
+            testResults = executeTests(simulator, testCases, options, compactResults, toPrint);
+            result = null;
+        } else {
+            TraceFileWriter trace = openTrace(filePath, options.get("trace-file"));
+            if (trace != null) {
+                // The trace holds every instruction, the text log would only grow the heap with it
+                simulator.setTraceWriter(trace);
+                simulator.setKeepLog(false);
+            }
+            MemoryProfiler memoryProfiler = null;
+            if (options.containsKey("memory-profile")) {
+                memoryProfiler = new MemoryProfiler();
+                simulator.getMemory().addAccessListener(memoryProfiler);
+            }
+            CacheHierarchy cache = openCache(options.get("cache"));
+            if (cache != null) {
+                simulator.getMemory().addAccessListener(cache);
+            }
+            BranchPredictionUnit branchPrediction = null;
+            String predictorName = options.get("branch-predictor");
+            if (predictorName != null) {
+                try {
+                    branchPrediction = simulator.setBranchPredictor(
+                            BranchPredictor.fromString(predictorName.equals("true") ? "2bit" : predictorName));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Invalid branch predictor: " + e.getMessage());
+                }
+            }
+            String timingOption = options.get("timing");
+            if (timingOption != null) {
+                try {
+                    simulator.setTimingModel(TimingModel.load(Path.of(timingOption)));
+                } catch (IOException e) {
+                    System.err.println("Error accessing timing configuration file: " + timingOption);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Invalid timing configuration: " + e.getMessage());
+                }
+            }
+            if (options.containsKey("file-directory")) {
+                simulator.setFileDirectory(Path.of(options.get("file-directory")), false);
+            }
+            ByteArrayOutputStream stdout = null;
+            if (expected != null && expected.checksStdout()) {
+                stdout = new ByteArrayOutputStream();
+                simulator.setConsole(null, captureConsole(stdout));
+            }
+            result = simulator.runWithResult();
+            if (stdout != null) {
+                simulator.setConsole(null, null);
+                programOutput = stdout.toString(StandardCharsets.ISO_8859_1);
+            }
+            if (trace != null) {
+                // A program kept by watch mode runs again without the closed trace
+                simulator.setTraceWriter(null);
+                try {
+                    trace.close();
+                    System.out.println("Traced " + trace.getRecordCount() + " instructions.");
+                } catch (IOException e) {
+                    System.err.println("Error writing trace for file: " + filePath);
+                }
+            }
+            if (simulator instanceof InterleavedMode interleaved) {
+                toPrint.add(interleaved.toString());
+            }
+            if (simulator instanceof MultiCoreMode multiCore) {
+                List<ResultWrapper<CPUSnapshot, LineError>> coreResults = multiCore.getCoreResults();
+                for (int core=0; core<coreResults.size(); core++) {
+                    toPrint.add("--- Core " + core + " ---");
+                    addResult(toPrint, coreResults.get(core), compactResults);
+                }
+            } else {
+                addResult(toPrint, result, compactResults);
+            }
+            if (printMemory && result.isSuccess()) {
+                toPrint.add(simulator.getMemory().toString());
+            }
+            if (memoryProfiler != null) {
+                toPrint.add(memoryProfiler.toString());
+            }
+            if (cache != null) {
+                toPrint.add(cache.toString());
+            }
+            if (branchPrediction != null) {
+                toPrint.add(branchPrediction.getReport(simulator.getInstructions()));
+            }
+            if (coverageSummary != null) {
+                CoverageReport coverage = simulator.getCoverageReport();
+                coverageSummary.add(coverage);
+                toPrint.add(coverage.toString());
+            }
+        }
+
+        if (expected != null && testResults == null && batchResults == null) {
+            toPrint.add(checkExpected(result, expected, simulator.getMemory(), programOutput));
+        }
+
+        if (!writeResults) {
+            return toPrint;
+        }
+        try {
+            if(whereToPrint!=null && !whereToPrint.isEmpty()) {
+                writer.writeToFile(whereToPrint,toPrint);
+            }
+            else {
+                writer.writeToFile(toPrint);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing results for file: " + filePath);
         }
+        return toPrint;
     }
 }
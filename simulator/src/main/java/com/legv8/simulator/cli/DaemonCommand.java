@@ -0,0 +1,96 @@
+package com.legv8.simulator.cli;
+
+import com.legv8.simulator.fileio.ResultFileWriter;
+import com.legv8.simulator.server.DaemonClient;
+import com.legv8.simulator.server.SimulationDaemon;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * <code>DaemonCommand</code> keeps the simulator running for <code>--daemon</code> and runs the command
+ * lines sent by <code>DaemonClient</code>, with their paths made absolute, until the JVM is stopped.
+ *
+ * @see SimulationDaemon
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+class DaemonCommand {
+
+    /**
+     * @param command	runs a command line, as <code>CommandLineHandler.run()</code> does
+     */
+    DaemonCommand(Consumer<String[]> command) {
+        this.command = command;
+    }
+
+    /*
+     * The daemon threads keep the JVM running once the command line runner returns.
+     */
+    void run(Map<String, String> options) {
+        String socket = options.get("daemon");
+        Path socketPath = socket.equals("true") ? Path.of(System.getProperty("java.io.tmpdir"), DaemonClient.DEFAULT_SOCKET) : Path.of(socket);
+        SimulationDaemon daemon;
+        try {
+            daemon = new SimulationDaemon(socketPath,
+                    Integer.parseInt(options.getOrDefault("server-threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    (workingDirectory, arguments) -> command.accept(resolveArguments(workingDirectory, arguments)));
+            daemon.start();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid daemon configuration: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            System.err.println("Error starting daemon: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+        System.out.println("Listening on " + socketPath);
+    }
+
+    /*
+     * Makes the paths of a command sent by a client relative to the client's directory instead of the daemon's.
+     * The results go to the client's default results file when none is given, and the files used by the program
+     * are looked for in the client's directory.
+     */
+    private static String[] resolveArguments(Path workingDirectory, String[] arguments) {
+        List<String> args = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        CommandLineHandler.parseArguments(arguments, args, options);
+        if (options.containsKey("daemon") || options.containsKey("serve")) {
+            throw new IllegalArgumentException("A daemon cannot start another server");
+        }
+        if (options.containsKey("watch")) {
+            throw new IllegalArgumentException("A daemon cannot watch files for a client");
+        }
+        List<String> resolved = new ArrayList<>();
+        for (int i=0; i<args.size(); i++) {
+            boolean isPath = (i == 0 || i == 3 || i == 5) && !args.get(i).isEmpty();
+            resolved.add(isPath ? workingDirectory.resolve(args.get(i)).toString() : args.get(i));
+        }
+        if (resolved.size() >= 3) {
+            while (resolved.size() < 5) {
+                resolved.add(resolved.size() == 3 ? "" : "false");
+            }
+            if (resolved.size() == 5) {
+                resolved.add(workingDirectory.resolve(ResultFileWriter.DEFAULT_FILE_PATH).toString());
+            }
+        }
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            if (CommandLineHandler.PATH_OPTIONS.contains(option.getKey()) && !value.equals("true") && !value.isEmpty()) {
+                value = workingDirectory.resolve(value).toString();
+            }
+            resolved.add("--" + option.getKey() + "=" + value);
+        }
+        if (!options.containsKey("file-directory")) {
+            resolved.add("--file-directory=" + workingDirectory);
+        }
+        return resolved.toArray(new String[0]);
+    }
+
+    private final Consumer<String[]> command;
+}
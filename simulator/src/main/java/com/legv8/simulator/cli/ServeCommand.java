@@ -0,0 +1,49 @@
+package com.legv8.simulator.cli;
+
+import com.legv8.simulator.fileio.AssemblyFileReader;
+import com.legv8.simulator.server.SimulationServer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * <code>ServeCommand</code> runs the simulator as an HTTP server for <code>--serve</code>,
+ * until the JVM is stopped.
+ *
+ * @see SimulationServer
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+class ServeCommand {
+
+    ServeCommand(AssemblyFileReader reader) {
+        this.reader = reader;
+    }
+
+    /*
+     * The server threads keep the JVM running once the command line runner returns.
+     */
+    void run(Map<String, String> options) {
+        SimulationServer server;
+        try {
+            String port = options.get("serve");
+            server = new SimulationServer(
+                    port.equals("true") ? SimulationServer.DEFAULT_PORT : Integer.parseInt(port),
+                    Integer.parseInt(options.getOrDefault("server-threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    Long.parseLong(options.getOrDefault("max-instructions", String.valueOf(SimulationServer.DEFAULT_MAX_INSTRUCTIONS))),
+                    reader,
+                    options.containsKey("sandbox") ? Path.of(options.get("sandbox")) : null);
+            server.start();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid server configuration: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Listening on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    private final AssemblyFileReader reader;
+}
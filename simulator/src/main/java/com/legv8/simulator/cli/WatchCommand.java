@@ -0,0 +1,201 @@
+package com.legv8.simulator.cli;
+
+import com.legv8.simulator.execution.ContinuousMode;
+import com.legv8.simulator.execution.Expectations;
+import com.legv8.simulator.execution.TestCase;
+import com.legv8.simulator.fileio.AssemblyFileReader;
+import com.legv8.simulator.fileio.ResultFileWriter;
+import com.legv8.simulator.lexer.TextLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <code>WatchCommand</code> waits for programs to be created, changed or deleted after a run with <code>--watch</code>
+ * and runs again only the ones whose code changed, keeping the results of the others. The results file is
+ * rewritten after every change so it always holds the latest result of every program.
+ * <p>
+ * The compiled program of every file that changed is kept, so a later change only compiles the lines
+ * between the first and the last line that differ.
+ *
+ * @see com.legv8.simulator.execution.LEGv8_Simulator#applyEdit(int, int, List)
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+class WatchCommand {
+
+    // How long to wait for the rest of the events of a save
+    private static final long WATCH_SETTLE_MILLIS = 50;
+
+    WatchCommand(CommandLineHandler handler, AssemblyFileReader reader, boolean printMemory, Expectations expected,
+                 String whereToPrint, boolean compactResults, Map<String, String> options, List<TestCase> testCases) {
+        this.handler = handler;
+        this.reader = reader;
+        this.printMemory = printMemory;
+        this.expected = expected;
+        this.whereToPrint = whereToPrint;
+        this.compactResults = compactResults;
+        this.options = options;
+        this.testCases = testCases;
+    }
+
+    /**
+     * Returns only when the thread is interrupted or the folder can no longer be watched.
+     *
+     * @param path		the program or folder that was run
+     * @param isBulk	whether <code>path</code> is a folder
+     * @param watched	the results of every program run so far, updated as programs change
+     */
+    void watch(Path path, boolean isBulk, Map<Path, List<String>> watched) {
+        Path folder = isBulk ? path : path.toAbsolutePath().getParent();
+        for (Path file : watched.keySet()) {
+            try {
+                hashes.put(file, reader.hashNormalized(file.toString()));
+            } catch (IOException e) {
+                // Hashed again when it changes
+            }
+        }
+        try (WatchService watcher = folder.getFileSystem().newWatchService()) {
+            folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            System.out.println("Watching " + (isBulk ? folder : path) + " for changes. Press Ctrl+C to stop.");
+            while (true) {
+                WatchKey key = watcher.take();
+                // Editors save a file in several steps, so the events of a save are handled together
+                Thread.sleep(WATCH_SETTLE_MILLIS);
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (event.context() instanceof Path name && name.toString().endsWith(".s")) {
+                            Path file = isBulk ? path.resolve(name) : path;
+                            if (isBulk || name.equals(path.getFileName())) {
+                                changed.add(file);
+                            }
+                        }
+                    }
+                    key.reset();
+                } while ((key = watcher.poll()) != null);
+                if (overflow) {
+                    changed.addAll(watched.keySet());
+                    if (isBulk) {
+                        try (var files = Files.list(path)) {
+                            files.filter(p -> p.toString().endsWith(".s")).forEach(changed::add);
+                        }
+                    }
+                }
+
+                boolean rewrite = false;
+                for (Path file : changed) {
+                    if (!Files.isRegularFile(file)) {
+                        simulators.remove(file);
+                        sources.remove(file);
+                        if (watched.remove(file) != null) {
+                            hashes.remove(file);
+                            System.out.println("Removed: " + file);
+                            rewrite = true;
+                        }
+                        continue;
+                    }
+                    String hash;
+                    try {
+                        hash = reader.hashNormalized(file.toString());
+                    } catch (IOException e) {
+                        System.err.println("Error accessing assembly file: " + file);
+                        continue;
+                    }
+                    if (hash.equals(hashes.get(file))) {
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    List<String> results = rerunFile(file);
+                    if (results != null) {
+                        results.forEach(System.out::println);
+                        System.out.println("Ran " + file + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                        watched.put(file, results);
+                        hashes.put(file, hash);
+                        rewrite = true;
+                    }
+                }
+                if (rewrite) {
+                    try {
+                        Files.deleteIfExists(Path.of((whereToPrint != null) ? whereToPrint : ResultFileWriter.DEFAULT_FILE_PATH));
+                    } catch (IOException e) {
+                        System.err.println("Error writing results file.");
+                    }
+                    watched.values().forEach(results -> handler.writeResults(whereToPrint, results));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error watching " + folder + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Compiles a file the first time it changes and applies the lines that differ to its kept program after that.
+     */
+    private List<String> rerunFile(Path file) {
+        System.out.println("Executing: " + file);
+        List<String> source;
+        try {
+            source = reader.readFile(file.toString());
+        } catch (IOException e) {
+            System.err.println("Error accessing assembly file: " + file);
+            return null;
+        }
+        ContinuousMode simulator = simulators.get(file);
+        List<String> previous = sources.get(file);
+        if (simulator == null) {
+            ArrayList<TextLine> lines = new ArrayList<>(source.size());
+            for (String line : source) {
+                lines.add(new TextLine(line));
+            }
+            simulator = CommandLineHandler.createSimulator(lines, CommandLineHandler.parseCores(options), options);
+            simulators.put(file, simulator);
+        } else {
+            int length = Math.min(previous.size(), source.size());
+            int first = 0;
+            while (first < length && previous.get(first).equals(source.get(first))) {
+                first++;
+            }
+            int last = 0;
+            while (last < length - first && previous.get(previous.size() - 1 - last).equals(source.get(source.size() - 1 - last))) {
+                last++;
+            }
+            simulator.applyEdit(first, previous.size() - first - last, source.subList(first, source.size() - last));
+        }
+        sources.put(file, source);
+
+        if (source.isEmpty()) {
+            handler.writeNoCode(file.toString(), whereToPrint);
+            return null;
+        }
+        return handler.runSimulator(file.toString(), simulator, printMemory, expected, whereToPrint, compactResults, options, null, testCases, false);
+    }
+
+    private final CommandLineHandler handler;
+    private final AssemblyFileReader reader;
+    private final boolean printMemory;
+    private final Expectations expected;
+    private final String whereToPrint;
+    private final boolean compactResults;
+    private final Map<String, String> options;
+    private final List<TestCase> testCases;
+    private final Map<Path, String> hashes = new HashMap<>();
+    private final Map<Path, ContinuousMode> simulators = new HashMap<>();
+    private final Map<Path, List<String>> sources = new HashMap<>();
+}
@@ -0,0 +1,498 @@
+package com.legv8.simulator.cpu;
+
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.SegmentFaultException;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <code>BatchCPU</code> executes one LEGv8 program over many independent inputs, called lanes, in lockstep.
+ * <p>
+ * Registers and flags are stored as struct-of-arrays, one array of lanes per register, and each lane
+ * has its own <code>Memory</code>. At every step the lanes with the lowest instruction index execute that
+ * instruction together, so lanes that diverge on a branch run separately and merge again as soon as they
+ * reach the same instruction. When all lanes agree the ALU loops run over contiguous arrays, which the JIT
+ * compiles to SIMD instructions where the host supports them.
+ * <p>
+ * Instructions with side effects outside the lane, such as <code>SVC</code>, are handed to a scalar
+ * <code>CPU</code> for the lanes that reach them. Results are identical to running each input on its own
+ * <code>CPU</code>.
+ *
+ * @see CPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class BatchCPU {
+
+    public static final long DEFAULT_INSTRUCTION_LIMIT = 100_000_000L;
+
+    private static final int OP_ADD = 0;
+    private static final int OP_SUB = 1;
+    private static final int OP_AND = 2;
+    private static final int OP_ORR = 3;
+    private static final int OP_EOR = 4;
+    private static final int OP_LSL = 5;
+    private static final int OP_LSR = 6;
+
+    private static final int FLAGS_NONE = 0;
+    private static final int FLAGS_ARITHMETIC = 1;
+    private static final int FLAGS_LOGICAL = 2;
+
+    /**
+     * @param lanes	the number of inputs executed together
+     */
+    public BatchCPU(int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("A batch needs at least one lane");
+        }
+        this.lanes = lanes;
+        registers = new long[CPU.NUM_REGISTERS][lanes];
+        Arrays.fill(registers[CPU.SP], Memory.STACK_BASE);
+        Nflags = new boolean[lanes];
+        Zflags = new boolean[lanes];
+        Cflags = new boolean[lanes];
+        Vflags = new boolean[lanes];
+        instructionIndices = new int[lanes];
+        instructionCounts = new long[lanes];
+        cycles = new long[lanes];
+        errors = new LineError[lanes];
+        finished = new boolean[lanes];
+        group = new int[lanes];
+        result = new long[lanes];
+        immediates = new long[lanes];
+    }
+
+    /**
+     * @param lane		the lane whose register to set
+     * @param register	the register to set, an integer in the range 0-30
+     * @param value		the initial value of <code>register</code>
+     */
+    public void setRegister(int lane, int register, long value) {
+        if (register != CPU.XZR) {
+            registers[register][lane] = value;
+        }
+    }
+
+    /**
+     * @param lane		a lane
+     * @param register	the register whose value to return, an integer in the range 0-31
+     * @return			the value of <code>register</code> in <code>lane</code>
+     */
+    public long getRegister(int lane, int register) {
+        return registers[register][lane];
+    }
+
+    /**
+     * @param timingModel	the latencies used to count the simulated cycles of each lane
+     */
+    public void setTimingModel(TimingModel timingModel) {
+        this.timingModel = timingModel;
+    }
+
+    /**
+     * @param directory	the directory the file calls of every lane are resolved against, <code>null</code>
+     * 					to make them fail
+     * @param confined	<code>true</code> to also fail for names that lead outside of <code>directory</code>
+     * @see CPU#setFileDirectory(Path, boolean)
+     */
+    public void setFileDirectory(Path directory, boolean confined) {
+        fileDirectory = directory;
+        filesConfined = confined;
+    }
+
+    /**
+     * @param instructionLimit	the number of instructions after which a lane is stopped, as it is
+     * 							likely stuck in an infinite loop
+     */
+    public void setInstructionLimit(long instructionLimit) {
+        this.instructionLimit = instructionLimit;
+    }
+
+    /**
+     * Runs every lane to completion.
+     *
+     * @param cpuInstructions	the list of <code>Instruction</code>s in the LEGv8 assembly program
+     * @param memories			the data memory of each lane
+     * @return					the result of each lane, indexed by lane
+     */
+    public List<ResultWrapper<CPUSnapshot, LineError>> run(ArrayList<Instruction> cpuInstructions, Memory[] memories) {
+        if (memories.length != lanes) {
+            throw new IllegalArgumentException("Expected " + lanes + " memories, got " + memories.length);
+        }
+        CPU[] laneCPUs = new CPU[lanes];
+        for (int lane=0; lane<lanes; lane++) {
+            laneCPUs[lane] = new CPU();
+            laneCPUs[lane].setFileDirectory(fileDirectory, filesConfined);
+        }
+        while (true) {
+            int next = Integer.MAX_VALUE;
+            for (int lane=0; lane<lanes; lane++) {
+                if (!finished[lane] && instructionIndices[lane] < next) {
+                    next = instructionIndices[lane];
+                }
+            }
+            if (next == Integer.MAX_VALUE) {
+                break;
+            }
+            if (next >= cpuInstructions.size()) {
+                // every remaining lane has run past the last instruction
+                for (int lane=0; lane<lanes; lane++) {
+                    if (!finished[lane]) {
+                        finished[lane] = true;
+                        laneCPUs[lane].stopClock();
+                    }
+                }
+                break;
+            }
+            int count = 0;
+            for (int lane=0; lane<lanes; lane++) {
+                if (!finished[lane] && instructionIndices[lane] == next) {
+                    group[count++] = lane;
+                }
+            }
+            count = enforceLimit(count, cpuInstructions.get(next));
+            if (count > 0) {
+                execute(cpuInstructions, next, count, memories, laneCPUs);
+                steps++;
+            }
+        }
+        List<ResultWrapper<CPUSnapshot, LineError>> results = new ArrayList<>(lanes);
+        for (int lane=0; lane<lanes; lane++) {
+            if (errors[lane] != null) {
+                results.add(ResultWrapper.failure(errors[lane]));
+            } else {
+                CPU cpu = laneCPUs[lane];
+                cpu.restore(column(lane), Nflags[lane], Zflags[lane], Cflags[lane], Vflags[lane],
+                        instructionIndices[lane], cycles[lane], instructionCounts[lane]);
+                results.add(ResultWrapper.success(new CPUSnapshot(cpu)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return	the number of lockstep steps executed, each running one instruction for a group of lanes
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return	the number of lanes
+     */
+    public int getLanes() {
+        return lanes;
+    }
+
+    /*
+     * Removes from the group the lanes that reached the instruction limit.
+     */
+    private int enforceLimit(int count, Instruction ins) {
+        int kept = 0;
+        for (int i=0; i<count; i++) {
+            int lane = group[i];
+            if (instructionCounts[lane] >= instructionLimit) {
+                fail(lane, new LineError("Instruction limit of " + instructionLimit + " reached, possible infinite loop.",
+                        ins.getLineNumber()));
+            } else {
+                group[kept++] = lane;
+            }
+        }
+        return kept;
+    }
+
+    private void execute(ArrayList<Instruction> cpuInstructions, int index, int count, Memory[] memories, CPU[] laneCPUs) {
+        Instruction ins = cpuInstructions.get(index);
+        int[] args = ins.getArgs();
+        boolean dense = (count == lanes);
+        for (int i=0; i<count; i++) {
+            instructionIndices[group[i]] = index + 1;
+        }
+        switch (ins.getMnemonic()) {
+            case ADD -> alu(OP_ADD, FLAGS_NONE, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case ADDS -> alu(OP_ADD, FLAGS_ARITHMETIC, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case ADDI -> alu(OP_ADD, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case ADDIS -> alu(OP_ADD, FLAGS_ARITHMETIC, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case SUB -> alu(OP_SUB, FLAGS_NONE, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case SUBS -> alu(OP_SUB, FLAGS_ARITHMETIC, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case SUBI -> alu(OP_SUB, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case SUBIS -> alu(OP_SUB, FLAGS_ARITHMETIC, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case AND -> alu(OP_AND, FLAGS_NONE, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case ANDS -> alu(OP_AND, FLAGS_LOGICAL, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case ANDI -> alu(OP_AND, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case ANDIS -> alu(OP_AND, FLAGS_LOGICAL, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case ORR -> alu(OP_ORR, FLAGS_NONE, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case ORRI -> alu(OP_ORR, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case EOR -> alu(OP_EOR, FLAGS_NONE, args[0], registers[args[1]], registers[args[2]], count, dense);
+            case EORI -> alu(OP_EOR, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case LSL -> alu(OP_LSL, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case LSR -> alu(OP_LSR, FLAGS_NONE, args[0], registers[args[1]], immediate(args[2], count, dense), count, dense);
+            case MOVZ -> move(args[0], args[1] << args[2], false, count);
+            case MOVK -> move(args[0], args[1] << args[2], true, count);
+            case LDUR, LDURSW, LDURH, LDURB, LDXR -> load(ins, count, memories);
+            case STUR, STURW, STURH, STURB, STXR -> store(ins, count, memories);
+            case CBZ, CBNZ, BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE, BMI, BPL, BVS, BVC ->
+                    branch(ins, index, count);
+            case B -> jump(args[0], count);
+            case BL -> {
+                jump(args[0], count);
+                long link = (long) args[0] * CPU.INSTRUCTION_SIZE + Memory.TEXT_SEGMENT_OFFSET;
+                for (int i=0; i<count; i++) {
+                    registers[CPU.LR][group[i]] = link;
+                }
+            }
+            case BR -> branchRegister(ins, count, memories[0].getStaticDataSegmentOffset());
+            default -> {
+                fallback(cpuInstructions, index, count, memories, laneCPUs);
+                return;
+            }
+        }
+        int latency = timingModel.getLatency(ins);
+        for (int i=0; i<count; i++) {
+            int lane = group[i];
+            instructionCounts[lane]++;
+            cycles[lane] += latency;
+        }
+    }
+
+    private long[] immediate(int value, int count, boolean dense) {
+        if (dense) {
+            Arrays.fill(immediates, value);
+        } else {
+            for (int i=0; i<count; i++) {
+                immediates[group[i]] = value;
+            }
+        }
+        return immediates;
+    }
+
+    /*
+     * Computes the operation for every lane of the group, then writes the destination and the flags.
+     * As in CPU, the flags are computed from the operand registers after the destination is written.
+     */
+    private void alu(int op, int flags, int destReg, long[] a, long[] b, int count, boolean dense) {
+        long[] r = result;
+        if (dense) {
+            switch (op) {
+                case OP_ADD -> { for (int l=0; l<lanes; l++) r[l] = a[l] + b[l]; }
+                case OP_SUB -> { for (int l=0; l<lanes; l++) r[l] = a[l] - b[l]; }
+                case OP_AND -> { for (int l=0; l<lanes; l++) r[l] = a[l] & b[l]; }
+                case OP_ORR -> { for (int l=0; l<lanes; l++) r[l] = a[l] | b[l]; }
+                case OP_EOR -> { for (int l=0; l<lanes; l++) r[l] = a[l] ^ b[l]; }
+                case OP_LSL -> { for (int l=0; l<lanes; l++) r[l] = a[l] << b[l]; }
+                case OP_LSR -> { for (int l=0; l<lanes; l++) r[l] = a[l] >>> b[l]; }
+                default -> throw new IllegalStateException("Unknown ALU operation " + op);
+            }
+            if (destReg != CPU.XZR) {
+                System.arraycopy(r, 0, registers[destReg], 0, lanes);
+            }
+        } else {
+            for (int i=0; i<count; i++) {
+                int l = group[i];
+                r[l] = switch (op) {
+                    case OP_ADD -> a[l] + b[l];
+                    case OP_SUB -> a[l] - b[l];
+                    case OP_AND -> a[l] & b[l];
+                    case OP_ORR -> a[l] | b[l];
+                    case OP_EOR -> a[l] ^ b[l];
+                    case OP_LSL -> a[l] << b[l];
+                    case OP_LSR -> a[l] >>> b[l];
+                    default -> throw new IllegalStateException("Unknown ALU operation " + op);
+                };
+            }
+            if (destReg != CPU.XZR) {
+                long[] d = registers[destReg];
+                for (int i=0; i<count; i++) {
+                    d[group[i]] = r[group[i]];
+                }
+            }
+        }
+        if (flags != FLAGS_NONE) {
+            for (int i=0; i<count; i++) {
+                int l = group[i];
+                Nflags[l] = r[l] < 0;
+                Zflags[l] = r[l] == 0;
+                if (flags == FLAGS_ARITHMETIC) {
+                    Cflags[l] = Flags.carry(r[l], a[l], b[l]);
+                    Vflags[l] = Flags.overflow(r[l], a[l], b[l]);
+                } else {
+                    Cflags[l] = false;
+                    Vflags[l] = false;
+                }
+            }
+        }
+    }
+
+    private void move(int destReg, long value, boolean keep, int count) {
+        if (destReg == CPU.XZR) {
+            return;
+        }
+        long[] d = registers[destReg];
+        for (int i=0; i<count; i++) {
+            int l = group[i];
+            d[l] = keep ? d[l] | value : value;
+        }
+    }
+
+    private void load(Instruction ins, int count, Memory[] memories) {
+        int[] args = ins.getArgs();
+        int destReg = args[0];
+        int baseReg = args[1];
+        int offset = args[2];
+        for (int i=0; i<count; i++) {
+            int l = group[i];
+            if (!checkSPAlignment(l, baseReg, ins) || destReg == CPU.XZR) {
+                continue;
+            }
+            Memory memory = memories[l];
+            long address = registers[baseReg][l] + offset;
+            try {
+                registers[destReg][l] = switch (ins.getMnemonic()) {
+                    case LDURSW -> memory.loadSignedWord(address);
+                    // mirrors CPU.LDURH, which addresses from the destination register
+                    case LDURH -> memory.loadHalfword(registers[destReg][l] + offset);
+                    case LDURB -> memory.loadByte(address);
+                    case LDXR -> memory.loadExclusive(0, address);
+                    default -> memory.loadDoubleword(address);
+                };
+            } catch (SegmentFaultException e) {
+                fail(l, new LineError(e.getMessage(), ins.getLineNumber()));
+            }
+        }
+    }
+
+    private void store(Instruction ins, int count, Memory[] memories) {
+        int[] args = ins.getArgs();
+        boolean exclusive = (args.length == 4);
+        int valReg = args[0];
+        int baseReg = exclusive ? args[2] : args[1];
+        int offset = exclusive ? args[3] : args[2];
+        for (int i=0; i<count; i++) {
+            int l = group[i];
+            if (!checkSPAlignment(l, baseReg, ins)) {
+                continue;
+            }
+            Memory memory = memories[l];
+            long address = registers[baseReg][l] + offset;
+            long value = registers[valReg][l];
+            try {
+                switch (ins.getMnemonic()) {
+                    case STURW -> memory.storeWord(address, value);
+                    case STURH -> memory.storeHalfword(address, value);
+                    case STURB -> memory.storeByte(address, value);
+                    case STXR -> registers[args[1]][l] = memory.storeExclusive(0, address, value) ? 0 : 1;
+                    default -> memory.storeDoubleword(address, value);
+                }
+            } catch (SegmentFaultException e) {
+                fail(l, new LineError(e.getMessage(), ins.getLineNumber()));
+            }
+        }
+    }
+
+    private boolean checkSPAlignment(int lane, int baseReg, Instruction ins) {
+        if (baseReg == CPU.SP && registers[CPU.SP][lane] % 16 != 0) {
+            fail(lane, new LineError(new SPAlignmentException(registers[CPU.SP][lane]).getMessage(), ins.getLineNumber()));
+            return false;
+        }
+        return true;
+    }
+
+    private void branch(Instruction ins, int index, int count) {
+        int[] args = ins.getArgs();
+        int target = (args.length == 2) ? args[1] : args[0];
+        for (int i=0; i<count; i++) {
+            int l = group[i];
+            boolean taken = switch (ins.getMnemonic()) {
+                case CBZ -> registers[args[0]][l] == 0;
+                case CBNZ -> registers[args[0]][l] != 0;
+                default -> Flags.holds(ins.getMnemonic(), Nflags[l], Zflags[l], Cflags[l], Vflags[l]);
+            };
+            instructionIndices[l] = taken ? target : index + 1;
+        }
+    }
+
+    private void jump(int target, int count) {
+        for (int i=0; i<count; i++) {
+            instructionIndices[group[i]] = target;
+        }
+    }
+
+    private void branchRegister(Instruction ins, int count, long staticDataSegmentOffset) {
+        int branchReg = ins.getArgs()[0];
+        for (int i=0; i<count; i++) {
+            int l = group[i];
+            long target = registers[branchReg][l];
+            if (target % Memory.WORD_SIZE != 0) {
+                fail(l, new LineError(new PCAlignmentException(target).getMessage(), ins.getLineNumber()));
+            } else if (target < Memory.TEXT_SEGMENT_OFFSET || target > staticDataSegmentOffset - Memory.WORD_SIZE) {
+                fail(l, new LineError(new SegmentFaultException(target, "text").getMessage(), ins.getLineNumber()));
+            } else {
+                instructionIndices[l] = (int) (target - Memory.TEXT_SEGMENT_OFFSET) / CPU.INSTRUCTION_SIZE;
+            }
+        }
+    }
+
+    /*
+     * Hands each lane of the group to its own CPU for one instruction, then copies the state back.
+     */
+    private void fallback(ArrayList<Instruction> cpuInstructions, int index, int count, Memory[] memories, CPU[] laneCPUs) {
+        for (int i=0; i<count; i++) {
+            int l = group[i];
+            CPU cpu = laneCPUs[l];
+            cpu.restore(column(l), Nflags[l], Zflags[l], Cflags[l], Vflags[l], index, cycles[l], instructionCounts[l]);
+            LineError error = cpu.executeInstruction(cpuInstructions, memories[l]);
+            for (int reg=0; reg<CPU.NUM_REGISTERS; reg++) {
+                registers[reg][l] = cpu.getRegister(reg);
+            }
+            Nflags[l] = cpu.getNflag();
+            Zflags[l] = cpu.getZflag();
+            Cflags[l] = cpu.getCflag();
+            Vflags[l] = cpu.getVflag();
+            instructionIndices[l] = cpu.getInstructionIndex();
+            cycles[l] = cpu.getCycles();
+            instructionCounts[l] = cpu.getInstructionCount();
+            if (error != null) {
+                fail(l, error);
+            }
+        }
+    }
+
+    private long[] column(int lane) {
+        long[] values = new long[CPU.NUM_REGISTERS];
+        for (int reg=0; reg<CPU.NUM_REGISTERS; reg++) {
+            values[reg] = registers[reg][lane];
+        }
+        return values;
+    }
+
+    private void fail(int lane, LineError error) {
+        errors[lane] = error;
+        finished[lane] = true;
+    }
+
+    private final int lanes;
+    private final long[][] registers;
+    private final boolean[] Nflags;
+    private final boolean[] Zflags;
+    private final boolean[] Cflags;
+    private final boolean[] Vflags;
+    private final int[] instructionIndices;
+    private final long[] instructionCounts;
+    private final long[] cycles;
+    private final LineError[] errors;
+    private final boolean[] finished;
+    private final int[] group;
+    private final long[] result;
+    private final long[] immediates;
+    private TimingModel timingModel = TimingModel.defaultModel();
+    private long instructionLimit = DEFAULT_INSTRUCTION_LIMIT;
+    private Path fileDirectory = Path.of("");
+    private boolean filesConfined = false;
+    private long steps = 0;
+}
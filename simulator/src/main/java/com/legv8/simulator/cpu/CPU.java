@@ -4,14 +4,20 @@ import ch.qos.logback.core.encoder.JsonEscapeUtil;
 import com.legv8.simulator.response.CPUSnapshot;
 import com.legv8.simulator.response.LineError;
 import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.Mnemonic;
 import com.legv8.simulator.memory.Memory;
 import com.legv8.simulator.memory.SegmentFaultException;
+import com.legv8.simulator.predictor.BranchPredictionUnit;
 import com.legv8.simulator.response.ResultWrapper;
+import com.legv8.simulator.trace.TraceFileWriter;
+import com.legv8.simulator.trace.TraceRecord;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -19,6 +25,7 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -44,6 +51,7 @@ public class CPU {
 
     public static final int INSTRUCTION_SIZE = 4;
     public static final int NUM_REGISTERS = 32;
+    public static final long CORE_STACK_SIZE = 0x100000L;
 
     public static final int XZR = 31;
     public static final int LR = 30;
@@ -82,14 +90,26 @@ public class CPU {
     private boolean STXRSucceed = false;
     private StringBuilder cpuLog = new StringBuilder("");
     private long[] registerFile;
-    private long taggedAddress;
     private int instructionIndex;
     private boolean Nflag;
     private boolean Zflag;
     private boolean Cflag;
     private boolean Vflag;
-    private final long startTime;
+    private long startTime;
     private long endTime;
+    private TraceFileWriter traceWriter = null;
+    private final FlightRecorder flightRecorder = new FlightRecorder(FlightRecorder.DEFAULT_CAPACITY);
+    private final ExecutionCoverage coverage = new ExecutionCoverage();
+    private BranchPredictionUnit branchPredictionUnit = null;
+    private TimingModel timingModel = TimingModel.defaultModel();
+    private long cycles = 0;
+    private long instructionCount = 0;
+    private final int coreId;
+    private Scanner consoleInput = null;
+    private PrintStream consoleOutput = System.out;
+    private boolean keepLog = true;
+    private Path fileDirectory = Path.of("");
+    private boolean filesConfined = false;
 
     /**
      * Constructs a new <code>CPU</code> object, initialising registers and flags to 0 and false respectively.
@@ -98,16 +118,55 @@ public class CPU {
      * @see Memory
      */
     public CPU() {
+        this(0);
+    }
+
+    /**
+     * Constructs the <code>CPU</code> of one core of a multi-core system. X0 holds the core number
+     * and each core gets its own stack of <code>CORE_STACK_SIZE</code> bytes below that of the previous core.
+     *
+     * @param coreId	the number of this core, starting at 0
+     * @see Memory#loadExclusive(int, long)
+     */
+    public CPU(int coreId) {
+        this.coreId = coreId;
         registerFile = new long[NUM_REGISTERS];
+        reset();
+    }
+
+    /**
+     * Returns this <code>CPU</code> to its initial state so that it can run a program again:
+     * registers, flags, PC, cycle counts and execution history are cleared and any file left open
+     * by the previous run is closed. Coverage keeps accumulating across runs.
+     */
+    public void reset() {
         for (int i=0; i<NUM_REGISTERS; i++) {
             registerFile[i] = 0L;
         }
-        registerFile[SP] = Memory.STACK_BASE;
+        registerFile[X0] = coreId;
+        registerFile[SP] = Memory.STACK_BASE - coreId * CORE_STACK_SIZE;
         Nflag = false;
         Zflag = false;
         Cflag = false;
         Vflag = false;
+        instructionIndex = 0;
+        branchTaken = false;
+        STXRSucceed = false;
+        cycles = 0;
+        instructionCount = 0;
+        cpuLog = new StringBuilder("");
+        flightRecorder.clear();
+        for (SeekableByteChannel channel : openFiles.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Closing file failed: " + e.getMessage());
+            }
+        }
+        openFiles.clear();
+        nextFileId = 3;
         startTime = System.currentTimeMillis();
+        endTime = 0;
     }
 
     /**
@@ -126,16 +185,17 @@ public class CPU {
      * in the cpuInstructions ArrayList
      */
     public LineError executeInstruction(ArrayList<Instruction> cpuInstructions, Memory memory) {
+        coverage.ensureCapacity(cpuInstructions.size());
         try {
-            execute(cpuInstructions.get(instructionIndex++), memory);
+            step(cpuInstructions, memory);
         } catch (SegmentFaultException sfe) {
-            return new LineError(sfe.getMessage(), cpuInstructions.get(instructionIndex-1).getLineNumber());
+            return faultError(sfe, cpuInstructions);
         } catch (PCAlignmentException pcae) {
-            return new LineError(pcae.getMessage(), cpuInstructions.get(instructionIndex-1).getLineNumber());
+            return faultError(pcae, cpuInstructions);
         } catch (SPAlignmentException spae) {
-            return new LineError(spae.getMessage(), cpuInstructions.get(instructionIndex-1).getLineNumber());
+            return faultError(spae, cpuInstructions);
         } catch (IOException ioe) {
-            return new LineError(ioe.getMessage(), cpuInstructions.get(instructionIndex-1).getLineNumber());
+            return faultError(ioe, cpuInstructions);
         } catch (EndExecutionException eee) {
             return new LineError(eee.getMessage(), eee.getLine());
         }
@@ -150,12 +210,13 @@ public class CPU {
      * @return					an <code>LineError</code> object, <code>null</code> if no error occurs during execution
      */
     public ResultWrapper<CPUSnapshot, LineError> run(ArrayList<Instruction> cpuInstructions, Memory memory) {
+        coverage.ensureCapacity(cpuInstructions.size());
         try {
             while (instructionIndex < cpuInstructions.size()) {
-                execute(cpuInstructions.get(instructionIndex++), memory);
+                step(cpuInstructions, memory);
             }
         } catch (SegmentFaultException | IOException | SPAlignmentException | PCAlignmentException sfe) {
-            return ResultWrapper.failure(new LineError(sfe.getMessage(), cpuInstructions.get(instructionIndex-1).getLineNumber()));
+            return ResultWrapper.failure(faultError(sfe, cpuInstructions));
         } catch (EndExecutionException eee) {
             return ResultWrapper.failure(new LineError(eee.getMessage(), eee.getLine()));
         }
@@ -166,6 +227,116 @@ public class CPU {
         return ResultWrapper.success(new CPUSnapshot(this));
     }
 
+    /**
+     * Executes at most <code>count</code> instructions, stopping early if the end of the program is reached.
+     * Used to interleave several cores deterministically on one thread.
+     *
+     * @param cpuInstructions	the list of <code>Instruction</code>s in the LEGv8 assembly program
+     * @param memory			a reference to the data memory used in data transfer instructions
+     * @param count				the maximum number of instructions to execute
+     * @return					an <code>LineError</code> object, <code>null</code> if no error occurs during execution
+     * @see #isFinished(ArrayList)
+     */
+    public LineError executeInstructions(ArrayList<Instruction> cpuInstructions, Memory memory, long count) {
+        coverage.ensureCapacity(cpuInstructions.size());
+        try {
+            for (long i=0; i<count && instructionIndex < cpuInstructions.size(); i++) {
+                step(cpuInstructions, memory);
+            }
+        } catch (SegmentFaultException | IOException | SPAlignmentException | PCAlignmentException e) {
+            return faultError(e, cpuInstructions);
+        } catch (EndExecutionException eee) {
+            return new LineError(eee.getMessage(), eee.getLine());
+        } catch (OutOfMemoryError oome) {
+            return new LineError("Infinite loop prevented. Out of memory.", -1);
+        }
+        if (instructionIndex >= cpuInstructions.size()) {
+            this.endTime = System.currentTimeMillis();
+        }
+        return null;
+    }
+
+    /**
+     * @param cpuInstructions	the list of <code>Instruction</code>s in the LEGv8 assembly program
+     * @return					<code>true</code> if the PC is past the last instruction of the program
+     */
+    public boolean isFinished(ArrayList<Instruction> cpuInstructions) {
+        return instructionIndex >= cpuInstructions.size();
+    }
+
+    /**
+     * When set, one <code>TraceRecord</code> is written for every instruction executed.
+     * The caller is responsible for closing the writer once execution has finished.
+     *
+     * @param traceWriter	the binary trace to stream execution to, <code>null</code> to disable tracing
+     * @see TraceFileWriter
+     */
+    public void setTraceWriter(TraceFileWriter traceWriter) {
+        this.traceWriter = traceWriter;
+    }
+
+    /*
+     * Builds the error for an instruction that faulted, attaching the instructions that led to it.
+     */
+    private LineError faultError(Exception e, ArrayList<Instruction> cpuInstructions) {
+        LineError error = new LineError(e.getMessage(), cpuInstructions.get(instructionIndex-1).getLineNumber());
+        error.setExecutionHistory(flightRecorder.describe(cpuInstructions, instructionIndex-1));
+        return error;
+    }
+
+    /**
+     * When set, every conditional and indirect branch executed is fed to the prediction unit.
+     *
+     * @param branchPredictionUnit	the unit simulating branch prediction, <code>null</code> to disable it
+     * @see BranchPredictionUnit
+     */
+    public void setBranchPredictionUnit(BranchPredictionUnit branchPredictionUnit) {
+        this.branchPredictionUnit = branchPredictionUnit;
+    }
+
+    /**
+     * @param timingModel	the latencies used to count the simulated cycles of each instruction executed
+     * @see TimingModel
+     */
+    public void setTimingModel(TimingModel timingModel) {
+        this.timingModel = timingModel;
+    }
+
+    /**
+     * @return	the number of simulated cycles taken by the instructions executed so far
+     */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return	the number of instructions executed so far
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * @return	the number of the core this <code>CPU</code> simulates
+     */
+    public int getCoreId() {
+        return coreId;
+    }
+
+    /**
+     * @return	the ring buffer of the most recently executed instructions
+     */
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    /**
+     * @return	the bitmap of instructions executed by this <code>CPU</code>
+     */
+    public ExecutionCoverage getCoverage() {
+        return coverage;
+    }
+
     /**
      * @param index	the register whose value to return, an integer in the range 0-31
      * @return		the value stored in the register <code>index</code>
@@ -174,6 +345,54 @@ public class CPU {
         return registerFile[index];
     }
 
+    /**
+     * Sets the initial value of a register before a run. Writes to XZR are ignored.
+     *
+     * @param index	the register to set, an integer in the range 0-31
+     * @param value	the value to store in the register <code>index</code>
+     */
+    public void setRegister(int index, long value) {
+        if (index != XZR) {
+            registerFile[index] = value;
+        }
+    }
+
+    /**
+     * Redirects the console used by <code>SVC #0</code> and <code>SVC #1</code>, so that a program's
+     * output can be captured and its input scripted. By default the console is <code>System.out</code>
+     * and <code>System.in</code>.
+     *
+     * @param in	the stream <code>SVC #1</code> reads lines from, <code>null</code> for <code>System.in</code>
+     * @param out	the stream <code>SVC #0</code> prints to, <code>null</code> for <code>System.out</code>
+     */
+    public void setConsole(InputStream in, PrintStream out) {
+        consoleInput = (in == null) ? null : new Scanner(in, StandardCharsets.UTF_8);
+        consoleOutput = (out == null) ? System.out : out;
+    }
+
+    /**
+     * Resolves the file names of <code>SVC #2</code>, <code>SVC #6</code> and <code>SVC #7</code> against
+     * <code>directory</code>. By default they are resolved against the working directory of the JVM.
+     *
+     * @param directory	the directory relative file names are resolved against, <code>null</code> to make
+     * 					every file call fail
+     * @param confined	<code>true</code> to also fail for names, links included, that lead outside of <code>directory</code>
+     */
+    public void setFileDirectory(Path directory, boolean confined) {
+        fileDirectory = directory;
+        filesConfined = confined;
+    }
+
+    /**
+     * The log of every instruction executed grows with the length of the run, and formatting it costs
+     * more than executing the instruction. Long-running callers that never read it can turn it off.
+     *
+     * @param keepLog	<code>false</code> to stop writing the log, <code>true</code> by default
+     */
+    public void setKeepLog(boolean keepLog) {
+        this.keepLog = keepLog;
+    }
+
     /**
      * @return a string showing full CPU execution history
      */
@@ -252,7 +471,7 @@ public class CPU {
     }
 
     private void setCflag(long result, long op1, long op2) {
-        Cflag = ((MSB(~result) + MSB(op1) + MSB(op2)) & 2L) != 0;
+        Cflag = Flags.carry(result, op1, op2);
     }
 
     private void setVflag(boolean set) {
@@ -260,12 +479,7 @@ public class CPU {
     }
 
     private void setVflag(long result, long op1, long op2) {
-        Vflag = (((op1^~op2) & (op1^result)) & (1<<63)) != 0;
-    }
-
-    // returns most significant bit of value passed in
-    private long MSB(long value) {
-        return value >>> 63;
+        Vflag = Flags.overflow(result, op1, op2);
     }
 
     private void ADDSetFlags(long result, long op1, long op2) {
@@ -286,23 +500,111 @@ public class CPU {
         setVflag(false);
     }
 
-    private void clearExclusiveAccessTag(long address, int figureSize) {
-        if (taggedAddress == 0) return;
-        if ((address >= taggedAddress
-                && address < taggedAddress+Memory.DOUBLEWORD_SIZE)
-                || (address+figureSize-1 >= taggedAddress
-                && address+figureSize-1 < taggedAddress+Memory.DOUBLEWORD_SIZE)) {
-            taggedAddress = 0;
-            cpuLog.append("Exclusive access address tag cleared \n");
-        }
-    }
-
     private void checkSPAlignment() throws SPAlignmentException {
         if (registerFile[SP]%16 != 0) {
-            cpuLog.append("SP misaligned\n");
+            if (keepLog) cpuLog.append("SP misaligned\n");
             throw new SPAlignmentException(registerFile[SP]);
         }
-        cpuLog.append("SP aligned correctly\n");
+        if (keepLog) cpuLog.append("SP aligned correctly\n");
+    }
+
+    /*
+     * Executes the instruction pointed to by instructionIndex, accounting its latency and recording it
+     * in the coverage bitmap, the flight recorder and, if set, the branch prediction unit and the trace.
+     * The data address is computed before execution as a load may overwrite its own base register.
+     */
+    private void step(ArrayList<Instruction> cpuInstructions, Memory memory)
+            throws SegmentFaultException, PCAlignmentException, SPAlignmentException, IOException, EndExecutionException {
+        int index = instructionIndex++;
+        Instruction ins = cpuInstructions.get(index);
+        long address = (traceWriter == null) ? 0 : dataAddress(ins);
+        coverage.mark(index);
+        execute(ins, memory);
+        instructionCount++;
+        cycles += timingModel.getLatency(ins);
+        int register = writtenRegister(ins);
+        long registerValue = (register == TraceRecord.NO_REGISTER) ? 0 : registerFile[register];
+        flightRecorder.record(index, register, registerValue);
+        if (branchPredictionUnit != null) {
+            predictBranch(ins, index);
+        }
+        if (traceWriter != null) {
+            trace(ins, index, register, registerValue, address);
+        }
+    }
+
+    private void trace(Instruction ins, int index, int register, long registerValue, long address) throws IOException {
+        int memoryAccess = memoryAccess(ins);
+        long memoryValue = 0;
+        if (memoryAccess != 0) {
+            long value = registerFile[(memoryAccess & TraceRecord.ACCESS_STORE) != 0 ? ins.getArgs()[0] : register];
+            int bits = (memoryAccess & TraceRecord.ACCESS_SIZE_MASK) * Memory.BITS_IN_BYTE;
+            memoryValue = (bits == 64) ? value : value & ((1L << bits) - 1);
+        } else {
+            address = 0;
+        }
+        traceWriter.write(index, register, registerValue, memoryAccess, address, memoryValue, flagBits());
+    }
+
+    private void predictBranch(Instruction ins, int index) {
+        switch (ins.getMnemonic()) {
+            case CBZ, CBNZ, BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE, BMI, BPL, BVS, BVC ->
+                    branchPredictionUnit.conditional(index, branchTaken);
+            case BR -> branchPredictionUnit.indirect(index, instructionIndex);
+            default -> {
+            }
+        }
+    }
+
+    // address accessed by a data transfer instruction, 0 for any other instruction
+    private long dataAddress(Instruction ins) {
+        int[] args = ins.getArgs();
+        return switch (ins.getMnemonic()) {
+            case LDUR, STUR, LDURSW, STURW, LDURH, STURH, LDURB, STURB, LDXR -> registerFile[args[1]] + args[2];
+            case STXR -> registerFile[args[2]] + args[3];
+            default -> 0;
+        };
+    }
+
+    // register written by the previously executed instruction, TraceRecord.NO_REGISTER if none
+    private int writtenRegister(Instruction ins) {
+        int[] args = ins.getArgs();
+        int register = switch (ins.getMnemonic()) {
+            case STUR, STURW, STURH, STURB, CBZ, CBNZ, BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE,
+                    BMI, BPL, BVS, BVC, B, BR, ERET -> TraceRecord.NO_REGISTER;
+            case STXR -> args[1];
+            case BL -> LR;
+            case SVC -> switch (args[0]) {
+                case 1 -> X2;
+                case 2, 4, 5, 6, 7, 8 -> X0;
+                default -> TraceRecord.NO_REGISTER;
+            };
+            default -> args[0];
+        };
+        return (register == XZR) ? TraceRecord.NO_REGISTER : register;
+    }
+
+    // size of the memory access performed by the previously executed instruction, plus ACCESS_STORE for stores
+    private int memoryAccess(Instruction ins) {
+        int[] args = ins.getArgs();
+        return switch (ins.getMnemonic()) {
+            case LDUR, LDXR -> (args[0] == XZR) ? 0 : Memory.DOUBLEWORD_SIZE;
+            case LDURSW -> (args[0] == XZR) ? 0 : Memory.WORD_SIZE;
+            case LDURH -> (args[0] == XZR) ? 0 : Memory.HALFWORD_SIZE;
+            case LDURB -> (args[0] == XZR) ? 0 : Memory.BYTE_SIZE;
+            case STUR -> Memory.DOUBLEWORD_SIZE | TraceRecord.ACCESS_STORE;
+            case STURW -> Memory.WORD_SIZE | TraceRecord.ACCESS_STORE;
+            case STURH -> Memory.HALFWORD_SIZE | TraceRecord.ACCESS_STORE;
+            case STURB -> Memory.BYTE_SIZE | TraceRecord.ACCESS_STORE;
+            case STXR -> STXRSucceed ? (Memory.DOUBLEWORD_SIZE | TraceRecord.ACCESS_STORE) : 0;
+            default -> 0;
+        };
+    }
+
+    private int flagBits() {
+        return (Nflag ? TraceRecord.FLAG_N : 0) | (Zflag ? TraceRecord.FLAG_Z : 0)
+                | (Cflag ? TraceRecord.FLAG_C : 0) | (Vflag ? TraceRecord.FLAG_V : 0)
+                | (branchTaken ? TraceRecord.FLAG_BRANCH_TAKEN : 0);
     }
 
     private void execute(Instruction ins, Memory memory)
@@ -343,20 +645,8 @@ public class CPU {
             case MOVK -> MOVK(args[0], args[1], args[2]);
             case CBZ -> CBZ(args[0], args[1]);
             case CBNZ -> CBNZ(args[0], args[1]);
-            case BEQ -> BEQ(args[0]);
-            case BNE -> BNE(args[0]);
-            case BHS -> BHS(args[0]);
-            case BLO -> BLO(args[0]);
-            case BHI -> BHI(args[0]);
-            case BLS -> BLS(args[0]);
-            case BGE -> BGE(args[0]);
-            case BLT -> BLT(args[0]);
-            case BGT -> BGT(args[0]);
-            case BLE -> BLE(args[0]);
-            case BMI -> BMI(args[0]);
-            case BPL -> BPL(args[0]);
-            case BVS -> BVS(args[0]);
-            case BVC -> BVC(args[0]);
+            case BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE, BMI, BPL, BVS, BVC ->
+                    conditionalBranch(ins.getMnemonic(), args[0]);
             case B -> B(args[0]);
             case BR -> BR(args[0], memory);
             case BL -> BL(args[0]);
@@ -368,181 +658,181 @@ public class CPU {
 
     private void ADD(int destReg, int op1Reg, int op2Reg) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] + registerFile[op2Reg];
-            cpuLog.append("ADD \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("ADD \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
     }
 
     private void ADDS(int destReg, int op1Reg, int op2Reg) {
         long result = registerFile[op1Reg] + registerFile[op2Reg];
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = result;
-            cpuLog.append("ADDS \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("ADDS \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
         ADDSetFlags(result, registerFile[op1Reg], registerFile[op2Reg]);
-        cpuLog.append("Set flags + \n");
+        if (keepLog) cpuLog.append("Set flags + \n");
     }
 
     private void ADDI(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] + op2Imm;
-            cpuLog.append("ADDI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("ADDI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
     private void ADDIS(int destReg, int op1Reg, int op2Imm) {
         long result = registerFile[op1Reg] + op2Imm;
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = result;
-            cpuLog.append("ADDIS \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("ADDIS \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
         ADDSetFlags(result, registerFile[op1Reg], op2Imm);
-        cpuLog.append("Set flags + \n");
+        if (keepLog) cpuLog.append("Set flags + \n");
     }
 
     private void SUB(int destReg, int op1Reg, int op2Reg) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] - registerFile[op2Reg];
-            cpuLog.append("SUB \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("SUB \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
     }
 
     private void SUBS(int destReg, int op1Reg, int op2Reg) {
         long result = registerFile[op1Reg] - registerFile[op2Reg];
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = result;
-            cpuLog.append("SUBS \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("SUBS \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
         SUBSetFlags(result, registerFile[op1Reg], registerFile[op2Reg]);
-        cpuLog.append("Set flags + \n");
+        if (keepLog) cpuLog.append("Set flags + \n");
     }
 
     private void SUBI(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] - op2Imm;
-            cpuLog.append("SUBI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("SUBI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
     private void SUBIS(int destReg, int op1Reg, int op2Imm) {
         long result = registerFile[op1Reg] - op2Imm;
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = result;
-            cpuLog.append("SUBIS \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("SUBIS \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
         SUBSetFlags(result, registerFile[op1Reg], op2Imm);
-        cpuLog.append("Set flags + \n");
+        if (keepLog) cpuLog.append("Set flags + \n");
     }
 
     private void AND(int destReg, int op1Reg, int op2Reg) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] & registerFile[op2Reg];
-            cpuLog.append("AND \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("AND \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
     }
 
     private void ANDS(int destReg, int op1Reg, int op2Reg) {
         long result = registerFile[op1Reg] & registerFile[op2Reg];
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = result;
-            cpuLog.append("ANDS \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("ANDS \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
         ANDSetFlags(result);
-        cpuLog.append("Set flags + \n");
+        if (keepLog) cpuLog.append("Set flags + \n");
     }
 
     private void ANDI(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] & op2Imm;
-            cpuLog.append("ANDI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("ANDI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
     private void ANDIS(int destReg, int op1Reg, int op2Imm) {
         long result = registerFile[op1Reg] & op2Imm;
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = result;
-            cpuLog.append("ANDIS \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("ANDIS \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
         ANDSetFlags(result);
-        cpuLog.append("Set flags + \n");
+        if (keepLog) cpuLog.append("Set flags + \n");
     }
 
     private void ORR(int destReg, int op1Reg, int op2Reg) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] | registerFile[op2Reg];
-            cpuLog.append("ORR \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("ORR \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
     }
 
     private void ORRI(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] | op2Imm;
-            cpuLog.append("ORRI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("ORRI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
     private void EOR(int destReg, int op1Reg, int op2Reg) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] ^ registerFile[op2Reg];
-            cpuLog.append("EOR \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
+            if (keepLog) cpuLog.append("EOR \t X" + destReg + ", X" + op1Reg + ", X" + op2Reg + "\n");
         }
     }
 
     private void EORI(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] ^ op2Imm;
-            cpuLog.append("EORI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("EORI \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
     private void LSL(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] << op2Imm;
-            cpuLog.append("LSL \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("LSL \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
     private void LSR(int destReg, int op1Reg, int op2Imm) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[op1Reg] >>> op2Imm;
-            cpuLog.append("LSR \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
+            if (keepLog) cpuLog.append("LSR \t X" + destReg + ", X" + op1Reg + ", #" + op2Imm + "\n");
         }
     }
 
@@ -550,10 +840,10 @@ public class CPU {
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = memory.loadDoubleword(registerFile[baseAddressReg]+offset);
-            cpuLog.append("LDUR \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+            if (keepLog) cpuLog.append("LDUR \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
         }
     }
 
@@ -561,18 +851,17 @@ public class CPU {
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         memory.storeDoubleword(registerFile[baseAddressReg]+offset, registerFile[valReg]);
-        clearExclusiveAccessTag(registerFile[baseAddressReg]+offset, Memory.DOUBLEWORD_SIZE);
-        cpuLog.append("STUR \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+        if (keepLog) cpuLog.append("STUR \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
     }
 
     private void LDURSW(int destReg, int baseAddressReg, int offset, Memory memory)
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = memory.loadSignedWord(registerFile[baseAddressReg]+offset);
-            cpuLog.append("LDURSW \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+            if (keepLog) cpuLog.append("LDURSW \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
         }
     }
 
@@ -580,18 +869,17 @@ public class CPU {
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         memory.storeWord(registerFile[baseAddressReg]+offset, registerFile[valReg]);
-        clearExclusiveAccessTag(registerFile[baseAddressReg]+offset, Memory.WORD_SIZE);
-        cpuLog.append("STURW \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+        if (keepLog) cpuLog.append("STURW \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
     }
 
     private void LDURH(int destReg, int baseAddressReg, int offset, Memory memory)
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = memory.loadHalfword(registerFile[destReg]+offset);
-            cpuLog.append("LDURH \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+            if (keepLog) cpuLog.append("LDURH \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
         }
     }
 
@@ -599,18 +887,17 @@ public class CPU {
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         memory.storeHalfword(registerFile[baseAddressReg]+offset, registerFile[valReg]);
-        clearExclusiveAccessTag(registerFile[baseAddressReg]+offset, Memory.HALFWORD_SIZE);
-        cpuLog.append("STURH \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+        if (keepLog) cpuLog.append("STURH \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
     }
 
     private void LDURB(int destReg, int baseAddressReg, int offset, Memory memory)
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = memory.loadByte(registerFile[baseAddressReg]+offset);
-            cpuLog.append("LDURB \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+            if (keepLog) cpuLog.append("LDURB \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
         }
     }
 
@@ -618,8 +905,7 @@ public class CPU {
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         memory.storeByte(registerFile[baseAddressReg]+offset, registerFile[valReg]);
-        clearExclusiveAccessTag(registerFile[baseAddressReg]+offset, Memory.BYTE_SIZE);
-        cpuLog.append("STURB \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+        if (keepLog) cpuLog.append("STURB \t X" + valReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
     }
 
     private void LDXR(int destReg, int baseAddressReg, int offset, Memory memory)
@@ -627,11 +913,10 @@ public class CPU {
         if (baseAddressReg == SP) checkSPAlignment();
         long address = registerFile[baseAddressReg] + offset;
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
-            registerFile[destReg] = memory.loadDoubleword(address);
-            taggedAddress = address;
-            cpuLog.append("LDXR \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+            registerFile[destReg] = memory.loadExclusive(coreId, address);
+            if (keepLog) cpuLog.append("LDXR \t X" + destReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
         }
     }
 
@@ -639,33 +924,31 @@ public class CPU {
             throws SegmentFaultException, SPAlignmentException {
         if (baseAddressReg == SP) checkSPAlignment();
         long address = registerFile[baseAddressReg] + offset;
-        if (taggedAddress == address) {
-            memory.storeDoubleword(address, registerFile[valReg]);
+        if (memory.storeExclusive(coreId, address, registerFile[valReg])) {
             registerFile[outcomeReg] = 0;
-            taggedAddress = 0;
             STXRSucceed = true;
         } else {
             registerFile[outcomeReg] = 1;
             STXRSucceed = false;
         }
-        cpuLog.append("STXR \t X" + valReg + ", X" + outcomeReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
+        if (keepLog) cpuLog.append("STXR \t X" + valReg + ", X" + outcomeReg + ", [X" + baseAddressReg + ", #" + offset + "] \n");
     }
 
     private void MOVZ(int destReg, int immediate, int quadrantShift) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = immediate << quadrantShift;
-            cpuLog.append("MOVZ \t X" + destReg + ", #" + immediate + ", LSL #" + quadrantShift + " \n");
+            if (keepLog) cpuLog.append("MOVZ \t X" + destReg + ", #" + immediate + ", LSL #" + quadrantShift + " \n");
         }
     }
 
     private void MOVK(int destReg, int immediate, int quadrantShift) {
         if (destReg == XZR) {
-            cpuLog.append("Ignored attempted assignment to XZR. \n");
+            if (keepLog) cpuLog.append("Ignored attempted assignment to XZR. \n");
         } else {
             registerFile[destReg] = registerFile[destReg] | (immediate << quadrantShift);
-            cpuLog.append("MOVK \t X" + destReg + ", #" + immediate + ", LSL #" + quadrantShift + " \n");
+            if (keepLog) cpuLog.append("MOVK \t X" + destReg + ", #" + immediate + ", LSL #" + quadrantShift + " \n");
         }
     }
 
@@ -673,7 +956,7 @@ public class CPU {
         if (registerFile[conditionReg] == 0) {
             instructionIndex = branchIndex;
         }
-        cpuLog.append("CBZ \t X" + conditionReg + ", " + "0x" + Long.toHexString(getPC()) + " \n");
+        if (keepLog) cpuLog.append("CBZ \t X" + conditionReg + ", " + "0x" + Long.toHexString(getPC()) + " \n");
         branchTaken = (registerFile[conditionReg] == 0);
     }
 
@@ -681,124 +964,21 @@ public class CPU {
         if (registerFile[conditionReg] != 0) {
             instructionIndex = branchIndex;
         }
-        cpuLog.append("CBNZ \t X" + conditionReg + ", " + "0x" + Long.toHexString(getPC()) + " \n");
+        if (keepLog) cpuLog.append("CBNZ \t X" + conditionReg + ", " + "0x" + Long.toHexString(getPC()) + " \n");
         branchTaken = (registerFile[conditionReg] != 0);
     }
 
-    private void BEQ(int branchIndex) {
-        if (Zflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.EQ \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (Zflag);
-    }
-
-    private void BNE(int branchIndex) {
-        if (!Zflag) {
+    private void conditionalBranch(Mnemonic condition, int branchIndex) {
+        branchTaken = Flags.holds(condition, Nflag, Zflag, Cflag, Vflag);
+        if (branchTaken) {
             instructionIndex = branchIndex;
         }
-        cpuLog.append("B.NE \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!Zflag);
-    }
-
-    private void BHS(int branchIndex) {
-        if (Cflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.HS \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (Cflag);
-    }
-
-    private void BLO(int branchIndex) {
-        if (!Cflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.LO \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!Cflag);
-    }
-
-    private void BHI(int branchIndex) {
-        if (!Zflag && Cflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.HI \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!Zflag && Cflag);
-    }
-
-    private void BLS(int branchIndex) {
-        if (!(!Zflag && Cflag)) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.LS \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!(!Zflag && Cflag));
-    }
-
-    private void BGE(int branchIndex) {
-        if (Nflag == Vflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.GE \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (Nflag == Vflag);
-    }
-
-    private void BLT(int branchIndex) {
-        if (Cflag != Vflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.LT \t" + "0x" + Long.toHexString(getPC()) + " \n");
-    }
-
-    private void BGT(int branchIndex) {
-        if (!Zflag && Nflag == Vflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.GT \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!Zflag && Nflag == Vflag);
-    }
-
-    private void BLE(int branchIndex) {
-        if (!(!Zflag && Nflag == Vflag)) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.LE \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!(!Zflag && Nflag == Vflag));
-    }
-
-    private void BMI(int branchIndex) {
-        if (Nflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.MI \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (Nflag);
-    }
-
-    private void BPL(int branchIndex) {
-        if (!Nflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.PL \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!Nflag);
-    }
-
-    private void BVS(int branchIndex) {
-        if (Vflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.VS \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (Vflag);
-    }
-
-    private void BVC(int branchIndex) {
-        if (!Vflag) {
-            instructionIndex = branchIndex;
-        }
-        cpuLog.append("B.VC \t" + "0x" + Long.toHexString(getPC()) + " \n");
-        branchTaken = (!Vflag);
+        if (keepLog) cpuLog.append(condition.nameUpper + " \t" + "0x" + Long.toHexString(getPC()) + " \n");
     }
 
     private void B(int branchIndex) {
         instructionIndex = branchIndex;
-        cpuLog.append("B \t" + "0x" + Long.toHexString(getPC()) + " \n");
+        if (keepLog) cpuLog.append("B \t" + "0x" + Long.toHexString(getPC()) + " \n");
         branchTaken = true;
     }
 
@@ -811,13 +991,13 @@ public class CPU {
             throw new SegmentFaultException(registerFile[branchReg], "text");
         }
         instructionIndex = (int) (registerFile[branchReg] - Memory.TEXT_SEGMENT_OFFSET) / INSTRUCTION_SIZE;
-        cpuLog.append("BR \t X" + "0x" + Long.toHexString(getPC()) + " \n");
+        if (keepLog) cpuLog.append("BR \t X" + "0x" + Long.toHexString(getPC()) + " \n");
     }
 
     private void BL(int branchIndex) {
         instructionIndex = branchIndex;
         registerFile[LR] = instructionIndex * INSTRUCTION_SIZE + Memory.TEXT_SEGMENT_OFFSET;
-        cpuLog.append("BL \t" + "0x" + Long.toHexString(registerFile[LR]) + " \n");
+        if (keepLog) cpuLog.append("BL \t" + "0x" + Long.toHexString(registerFile[LR]) + " \n");
     }
 
     private void SVC(int imm, Memory memory) throws SegmentFaultException, IOException, EndExecutionException {
@@ -833,16 +1013,24 @@ public class CPU {
                         b = memory.loadByte(address+i);
                         sb.append((char) b);
                     }
-                    System.out.print(sb);
+                    consoleOutput.print(sb);
                 } catch (SegmentFaultException e) {
                     System.err.println("Memory access error during string print: " + e.getMessage());
                     throw(e);
                 }
             }
             case 1 -> {
-                Scanner scanner = new Scanner(System.in);
-                System.out.println("Debug channel listening...");
-                String input = scanner.nextLine().replace("\\n", "\n");;
+                Scanner scanner = consoleInput;
+                if (scanner == null) {
+                    scanner = new Scanner(System.in);
+                    System.out.println("Debug channel listening...");
+                }
+                String input;
+                try {
+                    input = scanner.nextLine().replace("\\n", "\n");
+                } catch (NoSuchElementException e) {
+                    throw new IOException("SVC #1: no more input to read");
+                }
                 byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
                 for (int i = 0; i < bytes.length; i++) {
                     try {
@@ -879,7 +1067,7 @@ public class CPU {
                     }
 
                     String filename = filenameBuilder.toString();
-                    Path path = Path.of(filename);
+                    Path path = resolveFile(filename);
                     SeekableByteChannel channel = write ? Files.newByteChannel(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE) : Files.newByteChannel(path, StandardOpenOption.READ);
                     int fileId = nextFileId++;
                     openFiles.put(fileId, channel);
@@ -958,7 +1146,7 @@ public class CPU {
                 try {
                     String oldName = readStringFromMemory(registerFile[X1], memory);
                     String newName = readStringFromMemory(registerFile[X2], memory);
-                    Files.move(Path.of(oldName), Path.of(newName), StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(resolveFile(oldName), resolveFile(newName), StandardCopyOption.REPLACE_EXISTING);
                     registerFile[X0] = 0;
                 } catch (Exception e) {
                     System.err.println("File rename failed: " + e.getMessage());
@@ -969,7 +1157,7 @@ public class CPU {
             case 7 -> {
                 try {
                     String filename = readStringFromMemory(registerFile[X1], memory);
-                    Files.delete(Path.of(filename));
+                    Files.delete(resolveFile(filename));
                     registerFile[X0] = 0;
                 } catch (Exception e) {
                     System.err.println("File deletion failed: " + e.getMessage());
@@ -998,6 +1186,29 @@ public class CPU {
         return sb.toString();
     }
 
+    /*
+     * A confined name is checked where it really leads, so that a link inside the directory cannot reach outside of it.
+     */
+    private Path resolveFile(String name) throws IOException {
+        if (fileDirectory == null) {
+            throw new IOException("File access is disabled: " + name);
+        }
+        Path path = fileDirectory.resolve(name);
+        if (filesConfined) {
+            Path directory = fileDirectory.toRealPath();
+            Path real = path.toAbsolutePath().normalize();
+            if (Files.exists(real)) {
+                real = real.toRealPath();
+            } else if (real.getParent() != null && Files.exists(real.getParent())) {
+                real = real.getParent().toRealPath().resolve(real.getFileName());
+            }
+            if (!real.startsWith(directory) || real.equals(directory)) {
+                throw new IOException("File outside of " + fileDirectory + ": " + name);
+            }
+        }
+        return path;
+    }
+
     public long getStartTime() {
         return startTime;
     }
@@ -1005,4 +1216,24 @@ public class CPU {
     public long getEndTime() {
         return endTime;
     }
+
+    /*
+     * Used by BatchCPU to hand a lane over to this CPU for instructions it does not execute itself,
+     * and to build the snapshot of a lane once it finishes.
+     */
+    void restore(long[] registers, boolean N, boolean Z, boolean C, boolean V,
+                 int instructionIndex, long cycles, long instructionCount) {
+        System.arraycopy(registers, 0, registerFile, 0, NUM_REGISTERS);
+        Nflag = N;
+        Zflag = Z;
+        Cflag = C;
+        Vflag = V;
+        this.instructionIndex = instructionIndex;
+        this.cycles = cycles;
+        this.instructionCount = instructionCount;
+    }
+
+    void stopClock() {
+        endTime = System.currentTimeMillis();
+    }
 }
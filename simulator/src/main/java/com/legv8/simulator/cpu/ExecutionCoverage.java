@@ -0,0 +1,63 @@
+package com.legv8.simulator.cpu;
+
+import java.util.Arrays;
+
+/**
+ * <code>ExecutionCoverage</code> is a bitmap over instruction indices recording which
+ * instructions of a program have been executed by the <code>CPU</code>.
+ * <p>
+ * Marking an instruction is a single bitwise OR on a <code>long[]</code>, cheap enough to be
+ * left enabled for every run.
+ *
+ * @see CPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class ExecutionCoverage {
+
+    /**
+     * Makes sure the bitmap can hold <code>numInstructions</code> instructions.
+     *
+     * @param numInstructions	the number of instructions in the program being executed
+     */
+    public void ensureCapacity(int numInstructions) {
+        int words = (numInstructions + 63) >>> 6;
+        if (bits.length < words) {
+            bits = Arrays.copyOf(bits, words);
+        }
+    }
+
+    /**
+     * @param index	the index of an executed instruction
+     */
+    public void mark(int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * @param index	the index of an instruction
+     * @return		<code>true</code> if the instruction at <code>index</code> has been executed
+     */
+    public boolean isExecuted(int index) {
+        return (index >>> 6) < bits.length && (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return	the number of distinct instructions executed
+     */
+    public int countExecuted() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Marks every instruction as not executed.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    private long[] bits = new long[0];
+}
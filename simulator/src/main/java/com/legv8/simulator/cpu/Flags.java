@@ -0,0 +1,73 @@
+package com.legv8.simulator.cpu;
+
+import com.legv8.simulator.instruction.Mnemonic;
+
+/**
+ * <code>Flags</code> holds the rules for the NZCV condition flags: how the carry and overflow flags
+ * are computed by the instructions that set flags, and when each conditional branch is taken.
+ * <p>
+ * <code>CPU</code> and <code>BatchCPU</code> both evaluate the flags here, so a change to these rules
+ * applies to both engines.
+ *
+ * @see CPU
+ * @see BatchCPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+final class Flags {
+
+    private Flags() {
+    }
+
+    /**
+     * @param result	the result of the operation
+     * @param op1		the first operand
+     * @param op2		the second operand
+     * @return			the value of the C flag after the operation
+     */
+    static boolean carry(long result, long op1, long op2) {
+        return ((MSB(~result) + MSB(op1) + MSB(op2)) & 2L) != 0;
+    }
+
+    /**
+     * @param result	the result of the operation
+     * @param op1		the first operand
+     * @param op2		the second operand
+     * @return			the value of the V flag after the operation
+     */
+    static boolean overflow(long result, long op1, long op2) {
+        return (((op1^~op2) & (op1^result)) & (1<<63)) != 0;
+    }
+
+    /**
+     * @param condition	the mnemonic of a <code>B.cond</code> instruction
+     * @param N			the negative flag
+     * @param Z			the zero flag
+     * @param C			the carry flag
+     * @param V			the overflow flag
+     * @return			<code>true</code> if the branch is taken
+     */
+    static boolean holds(Mnemonic condition, boolean N, boolean Z, boolean C, boolean V) {
+        return switch (condition) {
+            case BEQ -> Z;
+            case BNE -> !Z;
+            case BHS -> C;
+            case BLO -> !C;
+            case BHI -> !Z && C;
+            case BLS -> !(!Z && C);
+            case BGE -> N == V;
+            case BLT -> C != V;
+            case BGT -> !Z && N == V;
+            case BLE -> !(!Z && N == V);
+            case BMI -> N;
+            case BPL -> !N;
+            case BVS -> V;
+            case BVC -> !V;
+            default -> throw new IllegalArgumentException(condition.nameUpper + " is not a conditional branch");
+        };
+    }
+
+    // returns most significant bit of value passed in
+    private static long MSB(long value) {
+        return value >>> 63;
+    }
+}
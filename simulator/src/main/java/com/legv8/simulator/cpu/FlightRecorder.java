@@ -0,0 +1,101 @@
+package com.legv8.simulator.cpu;
+
+import com.legv8.simulator.instruction.Instruction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The <code>FlightRecorder</code> is a fixed-size ring buffer holding the last instructions
+ * executed by the <code>CPU</code> and the register each of them wrote.
+ * <p>
+ * It is always enabled, so entries are stored in preallocated primitive arrays and recording
+ * an instruction never allocates. When execution fails, the recorded history is attached to the
+ * <code>LineError</code> so the path that led to the fault can be shown to the user.
+ *
+ * @see CPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class FlightRecorder {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * @param capacity	the number of instructions to remember, rounded up to a power of two
+     */
+    public FlightRecorder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = size - 1;
+        instructionIndices = new int[size];
+        registers = new byte[size];
+        registerValues = new long[size];
+    }
+
+    /**
+     * @param instructionIndex	the index of the instruction just executed
+     * @param register			the register written by the instruction, negative if none
+     * @param registerValue		the value written to <code>register</code>
+     */
+    public void record(int instructionIndex, int register, long registerValue) {
+        int slot = (int) (count++ & mask);
+        instructionIndices[slot] = instructionIndex;
+        registers[slot] = (byte) register;
+        registerValues[slot] = registerValue;
+    }
+
+    /**
+     * Forgets all recorded instructions.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @return	the number of instructions currently held, at most the capacity of the recorder
+     */
+    public int size() {
+        return (int) Math.min(count, mask + 1);
+    }
+
+    /**
+     * @return	the total number of instructions recorded since the last <code>clear()</code>
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param instructions	the program the recorded indices refer to
+     * @param faultIndex	the index of the instruction that failed, negative if none
+     * @return				one line per recorded instruction, oldest first, followed by the failing instruction
+     */
+    public List<String> describe(ArrayList<Instruction> instructions, int faultIndex) {
+        List<String> lines = new ArrayList<>(size() + 1);
+        for (long i = count - size(); i < count; i++) {
+            int slot = (int) (i & mask);
+            String line = describeInstruction(instructions, instructionIndices[slot]);
+            if (registers[slot] >= 0) {
+                line += "\tX" + registers[slot] + " = " + registerValues[slot];
+            }
+            lines.add(line);
+        }
+        if (faultIndex >= 0) {
+            lines.add(describeInstruction(instructions, faultIndex) + "\t<- fault");
+        }
+        return lines;
+    }
+
+    private static String describeInstruction(ArrayList<Instruction> instructions, int index) {
+        if (index < 0 || index >= instructions.size()) {
+            return "[" + index + "]";
+        }
+        Instruction ins = instructions.get(index);
+        return "line " + (ins.getLineNumber() + 1) + ":\t" + ins.getMnemonic().nameUpper;
+    }
+
+    private final int mask;
+    private final int[] instructionIndices;
+    private final byte[] registers;
+    private final long[] registerValues;
+    private long count = 0;
+}
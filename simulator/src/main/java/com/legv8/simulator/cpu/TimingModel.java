@@ -0,0 +1,147 @@
+package com.legv8.simulator.cpu;
+
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.Mnemonic;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * <code>TimingModel</code> assigns a fixed latency in cycles to every instruction executed by the
+ * <code>CPU</code>, according to the group of its <code>ControlUnitConfiguration</code>.
+ * <p>
+ * Unlike the host run time, the simulated cycle count only depends on the instructions executed,
+ * so it can be used to compare programs. The default latencies are those of the multicycle
+ * implementation in Patterson and Hennessy ARM Edition. A model can be configured from a properties
+ * file with the keys <code>alu</code>, <code>load</code>, <code>store</code>, <code>branch</code>
+ * and <code>svc</code>; missing keys keep their default value.
+ *
+ * @see ControlUnitConfiguration
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TimingModel {
+
+    /**
+     * The groups of instructions sharing the same latency.
+     */
+    public enum Group {
+        ALU(4), LOAD(5), STORE(4), BRANCH(3), SVC(4);
+
+        Group(int defaultLatency) {
+            this.defaultLatency = defaultLatency;
+        }
+
+        /**
+         * The latency of the group in the default model
+         */
+        public final int defaultLatency;
+    }
+
+    private static final Group[] GROUPS = Group.values();
+
+    /**
+     * @param latencies	the latency in cycles of each <code>Group</code>, indexed by ordinal
+     */
+    public TimingModel(int[] latencies) {
+        if (latencies.length != GROUPS.length) {
+            throw new IllegalArgumentException("Expected " + GROUPS.length + " latencies, got " + latencies.length);
+        }
+        for (int i=0; i<latencies.length; i++) {
+            if (latencies[i] < 0) {
+                throw new IllegalArgumentException("Negative latency for " + GROUPS[i].name().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.latencies = latencies.clone();
+    }
+
+    /**
+     * @return	a model using the default latency of every group
+     */
+    public static TimingModel defaultModel() {
+        int[] latencies = new int[GROUPS.length];
+        for (Group group : GROUPS) {
+            latencies[group.ordinal()] = group.defaultLatency;
+        }
+        return new TimingModel(latencies);
+    }
+
+    /**
+     * @param path	a properties file with the latency of each group
+     * @return		the configured model
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a latency is not a non-negative integer
+     */
+    public static TimingModel load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * @param properties	the configuration, see the class description for the keys
+     * @return				the configured model
+     * @throws IllegalArgumentException if a latency is not a non-negative integer
+     */
+    public static TimingModel fromProperties(Properties properties) {
+        int[] latencies = new int[GROUPS.length];
+        for (Group group : GROUPS) {
+            String value = properties.getProperty(group.name().toLowerCase(Locale.ROOT));
+            latencies[group.ordinal()] = (value == null) ? group.defaultLatency : Integer.parseInt(value.trim());
+        }
+        return new TimingModel(latencies);
+    }
+
+    /**
+     * Instructions without a <code>ControlUnitConfiguration</code> (BR, BL and the CMP, CMPI and MOV
+     * aliases) are grouped by mnemonic.
+     *
+     * @param ins	an instruction of the program
+     * @return		the group the instruction belongs to
+     */
+    public static Group group(Instruction ins) {
+        ControlUnitConfiguration signals = ins.getControlSignals();
+        if (signals == null) {
+            return (ins.getMnemonic() == Mnemonic.BR || ins.getMnemonic() == Mnemonic.BL) ? Group.BRANCH : Group.ALU;
+        }
+        return switch (signals) {
+            case RRR, RRR_FLAGS, RRI, RRI_FLAGS, RISI -> Group.ALU;
+            case RM_LOAD -> Group.LOAD;
+            case RM_STORE, RRM -> Group.STORE;
+            case L, L_COND, RL -> Group.BRANCH;
+            case SVC, ERET -> Group.SVC;
+        };
+    }
+
+    /**
+     * @param ins	an instruction of the program
+     * @return		the number of cycles taken to execute <code>ins</code>
+     */
+    public int getLatency(Instruction ins) {
+        return latencies[group(ins).ordinal()];
+    }
+
+    /**
+     * @param group	a group of instructions
+     * @return		the number of cycles taken by each instruction of <code>group</code>
+     */
+    public int getLatency(Group group) {
+        return latencies[group.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        String ret = "";
+        for (Group group : GROUPS) {
+            ret += ((ret.isEmpty()) ? "" : ", ") + group.name().toLowerCase(Locale.ROOT) + "=" + latencies[group.ordinal()];
+        }
+        return ret;
+    }
+
+    private final int[] latencies;
+}
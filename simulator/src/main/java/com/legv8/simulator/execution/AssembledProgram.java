@@ -0,0 +1,236 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.fileio.AssemblyFileReader;
+import com.legv8.simulator.instruction.Decoder;
+import com.legv8.simulator.instruction.ImmediateOutOfBoundsException;
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.Mnemonic;
+import com.legv8.simulator.instruction.UndefinedLabelException;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.lexer.TokenType;
+import com.legv8.simulator.response.LineError;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * <code>AssembledProgram</code> compiles an assembly file while it is read, for programs too large to keep
+ * every <code>TextLine</code> in memory.
+ * <p>
+ * The file is memory mapped and each line is tokenized, parsed and decoded as soon as it is found, then
+ * dropped. Branches may name a label defined further down, so they are decoded once the whole file has
+ * been read. What is kept is the list of instructions, the branch table, the compile errors and the
+ * offset of every line in the file, from which the text of a line can be read again for an error message.
+ * The result is the same as compiling the <code>TextLine</code>s of the whole file in
+ * <code>LEGv8_Simulator</code>.
+ *
+ * @see LEGv8_Simulator
+ * @see AssemblyFileReader
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class AssembledProgram {
+
+    /**
+     * @param path	the assembly file, at most 2 GiB
+     * @return		the program compiled from it
+     * @throws IOException if the file cannot be read
+     */
+    public static AssembledProgram assemble(Path path) throws IOException {
+        AssembledProgram program = new AssembledProgram(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Assembly files are limited to 2 GiB: " + path);
+            }
+            if (size > 0) {
+                program.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+        program.resolveBranches();
+        return program;
+    }
+
+    private AssembledProgram(Path path) {
+        this.path = path;
+    }
+
+    /*
+     * Lines end in \n, \r\n or \r, like in Files.readAllLines(). A last empty line is not a line.
+     */
+    private void read(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[256];
+        int limit = buffer.limit();
+        int start = 0;
+        for (int i=0; i<=limit; i++) {
+            byte b = (i < limit) ? buffer.get(i) : (byte) '\n';
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            if (i == limit && start == limit) {
+                break;
+            }
+            int length = i - start;
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(start, bytes, 0, length);
+            addLine(new String(bytes, 0, length, StandardCharsets.UTF_8), start);
+            if (b == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+                i++;
+            }
+            start = i + 1;
+        }
+    }
+
+    private void addLine(String text, int offset) {
+        int lineNumber = lineCount++;
+        if (lineNumber == lineOffsets.length) {
+            lineOffsets = Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+        }
+        lineOffsets[lineNumber] = offset;
+
+        TextLine line = new TextLine(text.trim());
+        String errorMsg = LEGv8_Simulator.parseLine(line);
+        if (errorMsg != null) {
+            parseErrors.add(new LineError(errorMsg, lineNumber));
+        }
+        if (line.getLabel() != null) {
+            branchTable.put(line.getLabel(), mnemonicCount);
+        }
+        Mnemonic mnemonic = line.getMnemonic();
+        if (mnemonic == null) {
+            return;
+        }
+        mnemonicCount++;
+        if (mnemonic.type == TokenType.MNEMONIC_L || mnemonic.type == TokenType.MNEMONIC_RL) {
+            pendingBranches.add(new PendingBranch(instructions.size(), mnemonic, line.getArgs(), lineNumber));
+            instructions.add(null);
+            return;
+        }
+        try {
+            instructions.add(line.decode(lineNumber, branchTable));
+        } catch (UndefinedLabelException | ImmediateOutOfBoundsException e) {
+            decodeErrors.add(new LineError(e.getMessage(), lineNumber));
+        }
+    }
+
+    /*
+     * Branches that failed to decode leave no instruction, as when the whole file is compiled at once.
+     */
+    private void resolveBranches() {
+        BitSet failed = new BitSet();
+        for (PendingBranch branch : pendingBranches) {
+            try {
+                instructions.set(branch.index, Decoder.getInstruction(branch.mnemonic, branch.args, branch.lineNumber, branchTable));
+            } catch (UndefinedLabelException | ImmediateOutOfBoundsException e) {
+                decodeErrors.add(new LineError(e.getMessage(), branch.lineNumber));
+                failed.set(branch.index);
+            }
+        }
+        pendingBranches = null;
+        if (!failed.isEmpty()) {
+            ArrayList<Instruction> decoded = new ArrayList<Instruction>(instructions.size() - failed.cardinality());
+            for (int i=0; i<instructions.size(); i++) {
+                if (!failed.get(i)) {
+                    decoded.add(instructions.get(i));
+                }
+            }
+            instructions = decoded;
+        }
+        instructions.trimToSize();
+        decodeErrors.sort(Comparator.comparingInt(LineError::getLineNumber));
+        compileErrors.addAll(parseErrors);
+        compileErrors.addAll(decodeErrors);
+        parseErrors = null;
+        decodeErrors = null;
+        lineOffsets = Arrays.copyOf(lineOffsets, lineCount);
+    }
+
+    /**
+     * @return	the instructions decoded from the file
+     */
+    public ArrayList<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * @return	the table mapping each label to the index of the instruction after it
+     */
+    public HashMap<String, Integer> getBranchTable() {
+        return branchTable;
+    }
+
+    /**
+     * @return	the parse errors in line order followed by the decode errors in line order
+     */
+    public ArrayList<LineError> getCompileErrors() {
+        return compileErrors;
+    }
+
+    /**
+     * @return	the number of lines in the file
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Reads a line of the file again.
+     *
+     * @param lineNumber	the index of the line, starting at 0
+     * @return				the text of the line without its line terminator
+     * @throws IOException if the file can no longer be read
+     */
+    public String getSourceLine(int lineNumber) throws IOException {
+        if (lineNumber < 0 || lineNumber >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + lineNumber + " of a program with " + lineCount + " lines");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = (lineNumber + 1 < lineCount) ? lineOffsets[lineNumber + 1] : channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - lineOffsets[lineNumber]));
+            while (buffer.hasRemaining() && channel.read(buffer, lineOffsets[lineNumber] + buffer.position()) != -1) {
+                // Read up to the next line
+            }
+            String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            int terminator = text.indexOf('\n');
+            terminator = (terminator == -1) ? text.indexOf('\r') : terminator;
+            text = (terminator == -1) ? text : text.substring(0, terminator);
+            return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+        }
+    }
+
+    private static class PendingBranch {
+        PendingBranch(int index, Mnemonic mnemonic, ArrayList<String> args, int lineNumber) {
+            this.index = index;
+            this.mnemonic = mnemonic;
+            this.args = args;
+            this.lineNumber = lineNumber;
+        }
+
+        final int index;
+        final Mnemonic mnemonic;
+        final ArrayList<String> args;
+        final int lineNumber;
+    }
+
+    private final Path path;
+    private int lineCount = 0;
+    private int mnemonicCount = 0;
+    private int[] lineOffsets = new int[1024];
+    private ArrayList<Instruction> instructions = new ArrayList<Instruction>();
+    private final HashMap<String, Integer> branchTable = new HashMap<String, Integer>();
+    private final ArrayList<LineError> compileErrors = new ArrayList<LineError>();
+    private ArrayList<LineError> parseErrors = new ArrayList<LineError>();
+    private ArrayList<LineError> decodeErrors = new ArrayList<LineError>();
+    private ArrayList<PendingBranch> pendingBranches = new ArrayList<PendingBranch>();
+}
@@ -0,0 +1,87 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.cpu.CPU;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A <code>BatchInput</code> is one set of initial register and memory values for a lane of a
+ * <code>BatchMode</code> run.
+ *
+ * @see BatchMode
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class BatchInput {
+
+    /**
+     * @param register	the register to initialise, an integer in the range 0-30
+     * @param value		its initial value
+     */
+    public void setRegister(int register, long value) {
+        registers.put(register, value);
+    }
+
+    /**
+     * @param address	the address of a doubleword in the stack or heap
+     * @param value		its initial value
+     */
+    public void setDoubleword(long address, long value) {
+        doublewords.put(address, value);
+    }
+
+    /**
+     * @return	the initial register values, keyed by register index
+     */
+    public Map<Integer, Long> getRegisters() {
+        return registers;
+    }
+
+    /**
+     * @return	the initial doubleword values, keyed by address
+     */
+    public Map<Long, Long> getDoublewords() {
+        return doublewords;
+    }
+
+    /**
+     * @return	<code>true</code> if this input sets no register and no memory
+     */
+    public boolean isEmpty() {
+        return registers.isEmpty() && doublewords.isEmpty();
+    }
+
+    /**
+     * @param name	a register name such as <code>X9</code>, <code>SP</code>, <code>FP</code>, <code>LR</code>,
+     * 				<code>IP0</code> or <code>IP1</code>, in any case
+     * @return		the index of the register
+     * @throws IllegalArgumentException if <code>name</code> is not a register
+     */
+    public static int parseRegister(String name) {
+        String upper = name.trim().toUpperCase(Locale.ROOT);
+        switch (upper) {
+            case "SP": return CPU.SP;
+            case "FP": return CPU.FP;
+            case "LR": return CPU.LR;
+            case "XZR": return CPU.XZR;
+            case "IP0": return CPU.IP0;
+            case "IP1": return CPU.IP1;
+            default:
+                if (upper.startsWith("X")) {
+                    try {
+                        int index = Integer.parseInt(upper.substring(1));
+                        if (index >= 0 && index < CPU.NUM_REGISTERS) {
+                            return index;
+                        }
+                    } catch (NumberFormatException e) {
+                        // reported below
+                    }
+                }
+                throw new IllegalArgumentException("Unknown register: " + name);
+        }
+    }
+
+    private final Map<Integer, Long> registers = new LinkedHashMap<>();
+    private final Map<Long, Long> doublewords = new LinkedHashMap<>();
+}
@@ -0,0 +1,95 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.cpu.BatchCPU;
+import com.legv8.simulator.cpu.TimingModel;
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.MachineCode;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.SegmentFaultException;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>BatchMode</code> runs an already compiled program once for every <code>BatchInput</code>,
+ * executing all of them in lockstep on a <code>BatchCPU</code>.
+ *
+ * @see BatchCPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class BatchMode {
+
+    /**
+     * @param cpuInstructions	the instructions of a program compiled without errors
+     * @param inputs			the initial registers and memory of each lane
+     * @throws IllegalArgumentException if there are no inputs or an input stores outside the stack or heap
+     */
+    public BatchMode(ArrayList<Instruction> cpuInstructions, List<BatchInput> inputs) {
+        this.cpuInstructions = cpuInstructions;
+        batch = new BatchCPU(inputs.size());
+        memories = new Memory[inputs.size()];
+        int[] text = MachineCode.encodeText(cpuInstructions);
+        for (int lane=0; lane<inputs.size(); lane++) {
+            BatchInput input = inputs.get(lane);
+            for (Map.Entry<Integer, Long> register : input.getRegisters().entrySet()) {
+                batch.setRegister(lane, register.getKey(), register.getValue());
+            }
+            memories[lane] = new Memory(cpuInstructions.size());
+            memories[lane].loadText(text);
+            for (Map.Entry<Long, Long> doubleword : input.getDoublewords().entrySet()) {
+                try {
+                    memories[lane].storeDoubleword(doubleword.getKey(), doubleword.getValue());
+                } catch (SegmentFaultException e) {
+                    throw new IllegalArgumentException("Input " + (lane + 1) + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return	the result of each input, in the order the inputs were given
+     */
+    public List<ResultWrapper<CPUSnapshot, LineError>> run() {
+        return batch.run(cpuInstructions, memories);
+    }
+
+    /**
+     * @param timingModel	the latencies used to count simulated cycles
+     */
+    public void setTimingModel(TimingModel timingModel) {
+        batch.setTimingModel(timingModel);
+    }
+
+    /**
+     * @param directory	the directory the file names of <code>SVC #2</code>, <code>#6</code> and <code>#7</code> are
+     * 					resolved against, <code>null</code> to make every file call fail
+     * @param confined	<code>true</code> to also fail for names that lead outside of <code>directory</code>
+     */
+    public void setFileDirectory(Path directory, boolean confined) {
+        batch.setFileDirectory(directory, confined);
+    }
+
+    /**
+     * @param lane	the index of an input
+     * @return		the memory of that input
+     */
+    public Memory getMemory(int lane) {
+        return memories[lane];
+    }
+
+    /**
+     * @return	the number of lockstep steps executed
+     */
+    public long getSteps() {
+        return batch.getSteps();
+    }
+
+    private final ArrayList<Instruction> cpuInstructions;
+    private final BatchCPU batch;
+    private final Memory[] memories;
+}
@@ -27,6 +27,28 @@ public class ContinuousMode extends LEGv8_Simulator {
         super(code);
     }
 
+    /**
+     * @param code		the individual lines of LEGv8 source code
+     * @param numCores	the number of cores the memory is created for
+     */
+    protected ContinuousMode(ArrayList<TextLine> code, int numCores) {
+        super(code, numCores);
+    }
+
+    /**
+     * @param program	a program compiled while its file was read
+     */
+    public ContinuousMode(AssembledProgram program) {
+        super(program);
+    }
+
+    /**
+     * @param image	a program loaded from its machine code
+     */
+    public ContinuousMode(MachineCodeImage image) {
+        super(image);
+    }
+
     /**
      * Run the cpu with the generated list of instructions until completion (or not if infinite loop)
      */
@@ -37,4 +59,24 @@ public class ContinuousMode extends LEGv8_Simulator {
         }
         return result;
     }
+
+    /**
+     * Runs the cpu until completion or until it has executed <code>maxInstructions</code>, whichever comes first.
+     * The CPU log is not written, so memory does not grow with the length of the run.
+     *
+     * @param maxInstructions	the number of instructions after which the run is stopped with an error
+     * @return					the final state of the cpu, or the error that stopped it
+     */
+    public ResultWrapper<CPUSnapshot, LineError> runWithResult(long maxInstructions) {
+        cpu.setKeepLog(false);
+        LineError error = cpu.executeInstructions(cpuInstructions, memory, maxInstructions);
+        if (error == null && !cpu.isFinished(cpuInstructions)) {
+            error = new LineError("Stopped after " + maxInstructions + " instructions.", -1);
+        }
+        if (error != null) {
+            runtimeError = error;
+            return ResultWrapper.failure(error);
+        }
+        return ResultWrapper.success(new CPUSnapshot(cpu));
+    }
 }
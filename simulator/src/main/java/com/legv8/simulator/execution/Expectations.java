@@ -0,0 +1,240 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.SegmentFaultException;
+import com.legv8.simulator.response.CPUSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <code>Expectations</code> is the compiled form of the results expected from a program: register
+ * values, NZCV flags, doublewords of memory and the output printed by <code>SVC #0</code>.
+ * <p>
+ * The expectations are parsed once, resolving register names and addresses up front, so checking a
+ * run only compares values held in arrays. Each expectation is one line:
+ * <ul>
+ * <li><code>X2 = 50</code>, a register by name or alias (<code>SP</code>, <code>FP</code>, <code>LR</code>,
+ *     <code>IP0</code>, <code>IP1</code>, <code>XZR</code>)</li>
+ * <li><code>N = 1</code> or <code>NZCV = 0b0110</code>, one flag or all four</li>
+ * <li><code>[0x10000000] = 1, 2, 3</code>, consecutive doublewords starting at an address</li>
+ * <li><code>[0x10000000..0x10000018] = 0</code>, every doubleword from the first to the last address</li>
+ * <li><code>stdout: &lt;text&gt;</code>, the next line of output, lines being joined by a newline</li>
+ * </ul>
+ * Values may be decimal, hexadecimal (<code>0x</code>) or binary (<code>0b</code>) and may be negative.
+ * Hexadecimal and binary values may use all 64 bits. Blank lines and lines starting with <code>//</code>
+ * are ignored.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class Expectations {
+
+    /*
+     * Bit of each flag in an NZCV mask
+     */
+    private static final int N = 8;
+    private static final int Z = 4;
+    private static final int C = 2;
+    private static final int V = 1;
+
+    /*
+     * A range larger than this is almost certainly a typo, and would allocate one entry per doubleword.
+     */
+    private static final long MAX_RANGE_DOUBLEWORDS = 1 << 20;
+
+    /**
+     * @param lines	the expectations, one per line
+     * @throws IllegalArgumentException if a line is not a valid expectation
+     */
+    public Expectations(List<String> lines) {
+        List<Integer> registers = new ArrayList<>();
+        List<Long> registerValues = new ArrayList<>();
+        List<Long> addresses = new ArrayList<>();
+        List<Long> doublewordValues = new ArrayList<>();
+        int mask = 0;
+        int flags = 0;
+        String stdout = null;
+
+        for (String rawLine : lines) {
+            String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith("//")) {
+                continue;
+            }
+            if (line.startsWith("stdout:")) {
+                String text = line.equals("stdout:") ? "" : rawLine.substring(rawLine.indexOf("stdout:") + 7);
+                text = text.startsWith(" ") ? text.substring(1) : text;
+                stdout = (stdout == null) ? text : stdout + "\n" + text;
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals == -1) {
+                throw new IllegalArgumentException("Invalid expectation '" + line + "': expected <target> = <value>");
+            }
+            String target = line.substring(0, equals).trim();
+            String value = line.substring(equals + 1).trim();
+            try {
+                if (target.startsWith("[") && target.endsWith("]")) {
+                    String location = target.substring(1, target.length() - 1);
+                    int dots = location.indexOf("..");
+                    if (dots == -1) {
+                        long address = parseValue(location);
+                        for (String element : value.split(",")) {
+                            addresses.add(address);
+                            doublewordValues.add(parseValue(element));
+                            address += Memory.DOUBLEWORD_SIZE;
+                        }
+                    } else {
+                        long first = parseValue(location.substring(0, dots));
+                        long last = parseValue(location.substring(dots + 2));
+                        if (last < first || (last - first) / Memory.DOUBLEWORD_SIZE >= MAX_RANGE_DOUBLEWORDS) {
+                            throw new IllegalArgumentException("invalid range");
+                        }
+                        long expected = parseValue(value);
+                        for (long address = first; address <= last; address += Memory.DOUBLEWORD_SIZE) {
+                            addresses.add(address);
+                            doublewordValues.add(expected);
+                        }
+                    }
+                    continue;
+                }
+                int flagMask = flagMask(target);
+                if (flagMask != 0) {
+                    int expected = (flagMask == (N | Z | C | V)) ? (int) parseValue(value) : (parseFlag(value) ? flagMask : 0);
+                    if ((expected & ~flagMask) != 0) {
+                        throw new IllegalArgumentException("NZCV is a 4 bit value");
+                    }
+                    mask |= flagMask;
+                    flags = (flags & ~flagMask) | expected;
+                    continue;
+                }
+                registers.add(BatchInput.parseRegister(target));
+                registerValues.add(parseValue(value));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid expectation '" + line + "': " + e.getMessage());
+            }
+        }
+
+        this.registers = registers.stream().mapToInt(Integer::intValue).toArray();
+        this.registerValues = registerValues.stream().mapToLong(Long::longValue).toArray();
+        this.addresses = addresses.stream().mapToLong(Long::longValue).toArray();
+        this.doublewordValues = doublewordValues.stream().mapToLong(Long::longValue).toArray();
+        this.flagMask = mask;
+        this.flags = flags;
+        this.stdout = stdout;
+    }
+
+    /**
+     * @param snapshot	the state of the <code>CPU</code> once the program finished
+     * @param memory	the memory the program ran on
+     * @param stdout	the output printed by the program, <code>null</code> if it was not captured
+     * @return			a description of every expectation that does not hold, empty if all of them hold
+     */
+    public List<String> check(CPUSnapshot snapshot, Memory memory, String stdout) {
+        List<String> failures = new ArrayList<>(0);
+        for (int i=0; i<registers.length; i++) {
+            long actual = snapshot.getRegister(registers[i]);
+            if (actual != registerValues[i]) {
+                failures.add(snapshot.getRegisterNames()[registers[i]] + " = " + actual + ", expected " + registerValues[i]);
+            }
+        }
+        if (flagMask != 0) {
+            int actual = (snapshot.getNflag() ? N : 0) | (snapshot.getZflag() ? Z : 0)
+                    | (snapshot.getCflag() ? C : 0) | (snapshot.getVflag() ? V : 0);
+            if (((actual ^ flags) & flagMask) != 0) {
+                failures.add("NZCV = " + flagString(actual, flagMask) + ", expected " + flagString(flags, flagMask));
+            }
+        }
+        for (int i=0; i<addresses.length; i++) {
+            try {
+                long actual = memory.loadDoubleword(addresses[i]);
+                if (actual != doublewordValues[i]) {
+                    failures.add("[0x" + Long.toHexString(addresses[i]) + "] = " + actual + ", expected " + doublewordValues[i]);
+                }
+            } catch (SegmentFaultException e) {
+                failures.add("[0x" + Long.toHexString(addresses[i]) + "]: " + e.getMessage());
+            }
+        }
+        if (this.stdout != null) {
+            if (stdout == null) {
+                failures.add("stdout was not captured");
+            } else if (!stdout.equals(this.stdout)) {
+                failures.add("stdout was \"" + stdout + "\", expected \"" + this.stdout + "\"");
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @return	<code>true</code> if the output of the program is checked
+     */
+    public boolean checksStdout() {
+        return stdout != null;
+    }
+
+    /**
+     * @return	the number of registers, flags, doublewords and outputs checked
+     */
+    public int size() {
+        return registers.length + Integer.bitCount(flagMask) + addresses.length + ((stdout == null) ? 0 : 1);
+    }
+
+    /**
+     * @param text	a decimal, <code>0x</code> hexadecimal or <code>0b</code> binary number, optionally negative
+     * @return		its value, hexadecimal and binary numbers being read as unsigned 64 bit values
+     * @throws NumberFormatException if <code>text</code> is not a number
+     */
+    public static long parseValue(String text) {
+        String number = text.trim().replace("_", "");
+        boolean negative = number.startsWith("-");
+        if (negative || number.startsWith("+")) {
+            number = number.substring(1);
+        }
+        String lower = number.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("0x")) {
+            long value = Long.parseUnsignedLong(number.substring(2), 16);
+            return negative ? -value : value;
+        }
+        if (lower.startsWith("0b")) {
+            long value = Long.parseUnsignedLong(number.substring(2), 2);
+            return negative ? -value : value;
+        }
+        return Long.parseLong(negative ? "-" + number : number);
+    }
+
+    private static int flagMask(String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "N": return N;
+            case "Z": return Z;
+            case "C": return C;
+            case "V": return V;
+            case "NZCV": return N | Z | C | V;
+            default: return 0;
+        }
+    }
+
+    private static boolean parseFlag(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "1": case "true": return true;
+            case "0": case "false": return false;
+            default: throw new IllegalArgumentException("a flag is 0, 1, true or false");
+        }
+    }
+
+    private static String flagString(int flags, int mask) {
+        StringBuilder sb = new StringBuilder();
+        for (int i=0; i<4; i++) {
+            int bit = N >> i;
+            sb.append(((mask & bit) == 0) ? '-' : ((flags & bit) != 0) ? '1' : '0');
+        }
+        return sb.toString();
+    }
+
+    private final int[] registers;
+    private final long[] registerValues;
+    private final long[] addresses;
+    private final long[] doublewordValues;
+    private final int flagMask;
+    private final int flags;
+    private final String stdout;
+}
@@ -0,0 +1,142 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.cpu.CPU;
+import com.legv8.simulator.instruction.MachineCode;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * <code>InterleavedMode</code> runs the same program on several cores sharing one <code>Memory</code>,
+ * interleaving them deterministically on the calling thread.
+ * <p>
+ * Each core keeps a virtual clock, the simulated cycles it has executed. The scheduler always resumes
+ * the unfinished core with the earliest clock, lowest core number first, for a quantum of instructions.
+ * If a seed is given, each quantum is instead drawn uniformly between 1 and twice the configured
+ * quantum, so different seeds explore different interleavings while a given seed always reproduces
+ * the same one.
+ * <p>
+ * The cores do not write their CPU log unless <code>setKeepLog(true)</code> is called, as formatting
+ * the text of every instruction would dominate the time of a long run.
+ *
+ * @see MultiCoreMode
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class InterleavedMode extends MultiCoreMode {
+
+    public static final int DEFAULT_QUANTUM = 100;
+
+    /**
+     * @param code		the individual lines of LEGv8 source code
+     * @param numCores	the number of cores to run the program on
+     * @param quantum	the number of instructions a core runs before the scheduler picks the next one
+     * @param seed		the seed used to randomise each quantum, <code>null</code> for a fixed quantum
+     */
+    public InterleavedMode(ArrayList<TextLine> code, int numCores, int quantum, Long seed) {
+        super(code, numCores);
+        if (quantum < 1) {
+            throw new IllegalArgumentException("The quantum must be at least 1 instruction");
+        }
+        setKeepLog(false);
+        this.quantum = quantum;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs every core to completion, one quantum at a time.
+     *
+     * @return	the result of the first core that failed, or the result of core 0 if all succeeded
+     */
+    @Override
+    public ResultWrapper<CPUSnapshot, LineError> runWithResult() {
+        SplittableRandom random = (seed == null) ? null : new SplittableRandom(seed);
+        int running = cpus.length;
+        while (running > 0) {
+            int core = nextCore();
+            int slice = (random == null) ? quantum : 1 + random.nextInt(2 * quantum);
+            CPU cpu = cpus[core];
+            LineError error;
+            try {
+                error = cpu.executeInstructions(cpuInstructions, memory, slice);
+            } catch (RuntimeException e) {
+                error = new LineError("Core " + core + " stopped: " + e, -1);
+            }
+            slices++;
+            if (error != null) {
+                coreResults[core] = ResultWrapper.failure(error);
+                running--;
+            } else if (cpu.isFinished(cpuInstructions)) {
+                coreResults[core] = ResultWrapper.success(new CPUSnapshot(cpu));
+                running--;
+            }
+        }
+        return collectResults();
+    }
+
+    /*
+     * The unfinished core with the smallest virtual clock. A linear scan is cheaper than a heap
+     * for the handful of cores simulated.
+     */
+    private int nextCore() {
+        int next = -1;
+        for (int i=0; i<cpus.length; i++) {
+            if (coreResults[i] == null && (next == -1 || cpus[i].getCycles() < cpus[next].getCycles())) {
+                next = i;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Resets every core on a new memory and the count of quanta.
+     */
+    @Override
+    protected void resetExecution() {
+        super.resetExecution();
+        slices = 0;
+    }
+
+    /**
+     * @return	a plain <code>Memory</code>, as the cores all run on the calling thread
+     */
+    @Override
+    protected Memory createMemory(int numCores) {
+        Memory memory = new Memory(cpuInstructions.size(), numCores);
+        memory.loadText(MachineCode.encodeText(cpuInstructions));
+        return memory;
+    }
+
+    /**
+     * @return	the virtual time at which the last core finished, in simulated cycles
+     */
+    public long getVirtualTime() {
+        long time = 0;
+        for (CPU cpu : cpus) {
+            time = Math.max(time, cpu.getCycles());
+        }
+        return time;
+    }
+
+    /**
+     * @return	the number of quanta scheduled so far
+     */
+    public long getSlices() {
+        return slices;
+    }
+
+    @Override
+    public String toString() {
+        return "Deterministic schedule: " + cpus.length + " cores, quantum " + quantum
+                + ((seed == null) ? "" : " randomised with seed " + seed)
+                + ", " + slices + " quanta, virtual time " + getVirtualTime() + " cycles";
+    }
+
+    private final int quantum;
+    private final Long seed;
+    private long slices = 0;
+}
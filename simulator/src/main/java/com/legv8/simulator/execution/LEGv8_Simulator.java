@@ -1,15 +1,31 @@
 package com.legv8.simulator.execution;
 
+import com.legv8.simulator.instruction.MachineCode;
 import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.CoverageReport;
 import com.legv8.simulator.response.LineError;
 import com.legv8.simulator.cpu.CPU;
+import com.legv8.simulator.cpu.TimingModel;
 import com.legv8.simulator.instruction.*;
 import com.legv8.simulator.lexer.TextLine;
 import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.predictor.BranchPredictionUnit;
+import com.legv8.simulator.predictor.BranchPredictor;
 import com.legv8.simulator.response.ResultWrapper;
+import com.legv8.simulator.trace.TraceFileWriter;
 
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * <code>LEGv8_Simulator</code> is the base class from which all simulator/execution modes are derived.
@@ -18,6 +34,11 @@ import java.util.HashMap;
  */
 public abstract class LEGv8_Simulator {
 
+    // Programs with at least this many lines are compiled in parallel
+    public static final int PARALLEL_COMPILE_LINES = 20_000;
+    // The number of lines compiled by each task
+    private static final int COMPILE_CHUNK_LINES = 4096;
+
     /**
      * Initialises all necessary components for the simulator to run.
      * If there are no errors in the supplied code, one can immediately
@@ -26,15 +47,62 @@ public abstract class LEGv8_Simulator {
      * @param code	the individual lines of LEGv8 source code from the text editor
      */
     public LEGv8_Simulator(ArrayList<TextLine> code) {
+        this(code, 1);
+    }
+
+    /**
+     * Initialises the simulator for a program run on several cores.
+     *
+     * @param code		the individual lines of LEGv8 source code from the text editor
+     * @param numCores	the number of cores the memory is created for
+     */
+    protected LEGv8_Simulator(ArrayList<TextLine> code, int numCores) {
         this.code = code;
         branchTable = new HashMap<String, Integer>();
         cpuInstructions = new ArrayList<Instruction>();
         cpu = new CPU();
         compileErrors = new ArrayList<LineError>();
-        parseCode();
-        populateBranchTable();
-        decodeInstructions();
+        if (code.size() >= PARALLEL_COMPILE_LINES) {
+            compileInParallel();
+        } else {
+            parseCode();
+            populateBranchTable();
+            decodeInstructions();
+        }
+        memory = createMemory(numCores);
+    }
+
+    /**
+     * Initialises the simulator with a program compiled while its file was read.
+     * Its source lines are not kept, so <code>getCode()</code> returns <code>null</code>
+     * and the program cannot be edited.
+     *
+     * @param program	the instructions, branch table and compile errors of the program
+     */
+    public LEGv8_Simulator(AssembledProgram program) {
+        this.code = null;
+        branchTable = program.getBranchTable();
+        cpuInstructions = program.getInstructions();
+        cpu = new CPU();
+        compileErrors = program.getCompileErrors();
+        memory = createMemory(1);
+    }
+
+    /**
+     * Initialises the simulator with a program loaded from its machine code.
+     * It has no source lines or labels, so <code>getCode()</code> returns <code>null</code>
+     * and the program cannot be edited.
+     *
+     * @param image	the instructions decoded from the image and the words that could not be decoded
+     */
+    public LEGv8_Simulator(MachineCodeImage image) {
+        this.code = null;
+        branchTable = new HashMap<String, Integer>();
+        cpuInstructions = image.getInstructions();
+        cpu = new CPU();
+        compileErrors = image.getCompileErrors();
         memory = new Memory(cpuInstructions.size());
+        memory.loadText(image.getWords());
     }
 
     /**
@@ -45,18 +113,20 @@ public abstract class LEGv8_Simulator {
      */
     public void parseCode() {
         for (int i=0; i<code.size(); i++) {
-            if (!code.get(i).getLine().isEmpty()) {
-                code.get(i).tokenize();
-                if (code.get(i).getNumTokens()>0) { // Why would there be an error message is the number of tokens is greater than 0?
-                    String errorMsg = code.get(i).parse();
-                    if (errorMsg != null) {
-                        compileErrors.add(new LineError(errorMsg, i));
-                    }
-                }
+            String errorMsg = parseLine(code.get(i));
+            if (errorMsg != null) {
+                compileErrors.add(new LineError(errorMsg, i));
             }
         }
     }
 
+    static String parseLine(TextLine line) {
+        if (!line.getLine().isEmpty()) {
+            return line.tokenizeAndParse();
+        }
+        return null;
+    }
+
     /**
      * For each label in the source code, an entry is inserted into the branch lookup table
      * mapping from the label to the index of the instruction immediately after it.
@@ -89,8 +159,7 @@ public abstract class LEGv8_Simulator {
             line = code.get(i);
             if (line.getMnemonic() != null) {
                 try {
-                    cpuInstructions.add(Decoder.getInstruction(
-                            line.getMnemonic(), line.getArgs(), i, branchTable));
+                    cpuInstructions.add(line.decode(i, branchTable));
                 } catch (UndefinedLabelException ule) {
                     compileErrors.add(new LineError(ule.getMessage(), i));
                 } catch (ImmediateOutOfBoundsException ioobe) {
@@ -100,6 +169,206 @@ public abstract class LEGv8_Simulator {
         }
     }
 
+    /**
+     * Compiles large programs in chunks of lines on the common fork-join pool, with the same result as
+     * <code>parseCode()</code>, <code>populateBranchTable()</code> and <code>decodeInstructions()</code>.
+     * <p>
+     * Each chunk is parsed on its own, collecting its labels and counting its instructions at the same time.
+     * The labels are merged into the branch table in line order, offset by the instructions of the chunks
+     * before them, and then the chunks are decoded in parallel. Instructions and errors are joined in line order.
+     */
+    private void compileInParallel() {
+        int chunks = (code.size() + COMPILE_CHUNK_LINES - 1) / COMPILE_CHUNK_LINES;
+        ArrayList<ArrayList<LineError>> parseErrors = new ArrayList<ArrayList<LineError>>(Collections.nCopies(chunks, null));
+        ArrayList<HashMap<String, Integer>> labels = new ArrayList<HashMap<String, Integer>>(Collections.nCopies(chunks, null));
+        int[] instructionCounts = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            ArrayList<LineError> errors = new ArrayList<LineError>();
+            HashMap<String, Integer> chunkLabels = new HashMap<String, Integer>();
+            int instructionCount = 0;
+            for (int i=chunk * COMPILE_CHUNK_LINES; i<Math.min(code.size(), (chunk + 1) * COMPILE_CHUNK_LINES); i++) {
+                TextLine line = code.get(i);
+                String errorMsg = parseLine(line);
+                if (errorMsg != null) {
+                    errors.add(new LineError(errorMsg, i));
+                }
+                if (line.getLabel() != null) {
+                    chunkLabels.put(line.getLabel(), instructionCount);
+                }
+                if (line.getMnemonic() != null) {
+                    instructionCount++;
+                }
+            }
+            parseErrors.set(chunk, errors);
+            labels.set(chunk, chunkLabels);
+            instructionCounts[chunk] = instructionCount;
+        });
+
+        int offset = 0;
+        for (int chunk=0; chunk<chunks; chunk++) {
+            for (Map.Entry<String, Integer> label : labels.get(chunk).entrySet()) {
+                branchTable.put(label.getKey(), offset + label.getValue());
+            }
+            offset += instructionCounts[chunk];
+            compileErrors.addAll(parseErrors.get(chunk));
+        }
+
+        ArrayList<ArrayList<Instruction>> instructions = new ArrayList<ArrayList<Instruction>>(Collections.nCopies(chunks, null));
+        ArrayList<ArrayList<LineError>> decodeErrors = new ArrayList<ArrayList<LineError>>(Collections.nCopies(chunks, null));
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            ArrayList<Instruction> decoded = new ArrayList<Instruction>(instructionCounts[chunk]);
+            ArrayList<LineError> errors = new ArrayList<LineError>();
+            for (int i=chunk * COMPILE_CHUNK_LINES; i<Math.min(code.size(), (chunk + 1) * COMPILE_CHUNK_LINES); i++) {
+                TextLine line = code.get(i);
+                if (line.getMnemonic() != null) {
+                    try {
+                        decoded.add(line.decode(i, branchTable));
+                    } catch (UndefinedLabelException | ImmediateOutOfBoundsException e) {
+                        errors.add(new LineError(e.getMessage(), i));
+                    }
+                }
+            }
+            instructions.set(chunk, decoded);
+            decodeErrors.set(chunk, errors);
+        });
+        cpuInstructions.ensureCapacity(offset);
+        for (int chunk=0; chunk<chunks; chunk++) {
+            cpuInstructions.addAll(instructions.get(chunk));
+            compileErrors.addAll(decodeErrors.get(chunk));
+        }
+    }
+
+    /**
+     * Replaces some lines of the program, as typed in the text editor, and compiles only what the edit affects.
+     * <p>
+     * Only the new lines are tokenized and parsed. The branch table is updated from the labels already parsed,
+     * and besides the new lines only the instructions branching to a label that moved, appeared or disappeared
+     * are decoded again. The other instructions are kept, renumbered if the edit shifted their line.
+     * No index of labels or lines is kept, so rebuilding the branch table, the instructions and the errors still
+     * takes a pass over the whole program, but without the tokenizing, parsing and decoding that dominate a compile.
+     * <p>
+     * As after a full compile, the parse errors come first and then the decode errors, each in line order.
+     * The CPU, memory and runtime error are reset to run the edited program from the start.
+     *
+     * @param firstLine		the index of the first line replaced
+     * @param removedLines	the number of lines replaced, 0 to insert
+     * @param newLines		the lines inserted in their place
+     * @throws IllegalStateException if the simulator was created from an <code>AssembledProgram</code> or a <code>MachineCodeImage</code>
+     */
+    public void applyEdit(int firstLine, int removedLines, List<String> newLines) {
+        if (code == null) {
+            throw new IllegalStateException("The source lines of an assembled or loaded program are not kept");
+        }
+        if (firstLine < 0 || removedLines < 0 || firstLine + removedLines > code.size()) {
+            throw new IndexOutOfBoundsException("Cannot replace lines " + firstLine + " to " + (firstLine + removedLines)
+                    + " of a program with " + code.size() + " lines");
+        }
+        int endLine = firstLine + removedLines;
+        int shift = newLines.size() - removedLines;
+        ArrayList<LineError> errors = new ArrayList<LineError>();
+
+        ArrayList<TextLine> inserted = new ArrayList<TextLine>(newLines.size());
+        for (int i=0; i<newLines.size(); i++) {
+            TextLine line = new TextLine(newLines.get(i).trim());
+            String errorMsg = parseLine(line);
+            if (errorMsg != null) {
+                errors.add(new LineError(errorMsg, firstLine + i));
+            }
+            inserted.add(line);
+        }
+        code.subList(firstLine, endLine).clear();
+        code.addAll(firstLine, inserted);
+
+        HashMap<String, Integer> previousTable = branchTable;
+        branchTable = new HashMap<String, Integer>();
+        populateBranchTable();
+        Set<String> movedLabels = new HashSet<String>();
+        for (Map.Entry<String, Integer> label : branchTable.entrySet()) {
+            if (!label.getValue().equals(previousTable.get(label.getKey()))) {
+                movedLabels.add(label.getKey());
+            }
+        }
+        for (String label : previousTable.keySet()) {
+            if (!branchTable.containsKey(label)) {
+                movedLabels.add(label);
+            }
+        }
+
+        // Lines decoded again, in their new numbering
+        Set<Integer> decodedLines = new HashSet<Integer>();
+        ArrayList<Instruction> previousInstructions = cpuInstructions;
+        cpuInstructions = new ArrayList<Instruction>(Math.max(0, previousInstructions.size() + shift));
+        int next = 0;
+        for (int i=0; i<code.size(); i++) {
+            TextLine line = code.get(i);
+            int previousLine = (i < firstLine) ? i : (i < endLine + shift) ? -1 : i - shift;
+            Instruction previous = null;
+            while (previousLine >= 0 && next < previousInstructions.size()
+                    && previousInstructions.get(next).getLineNumber() <= previousLine) {
+                Instruction candidate = previousInstructions.get(next++);
+                if (candidate.getLineNumber() == previousLine) {
+                    previous = candidate;
+                }
+            }
+            if (line.getMnemonic() == null) {
+                continue;
+            }
+            if (previousLine >= 0 && (movedLabels.isEmpty() || Collections.disjoint(line.getArgs(), movedLabels))) {
+                if (previous != null) {
+                    cpuInstructions.add((i == previousLine) ? previous : new Instruction(previous.getMnemonic(),
+                            previous.getArgs(), i, previous.getControlSignals()));
+                }
+                continue;
+            }
+            decodedLines.add(i);
+            try {
+                cpuInstructions.add(line.decode(i, branchTable));
+            } catch (UndefinedLabelException | ImmediateOutOfBoundsException e) {
+                errors.add(new LineError(e.getMessage(), i));
+            }
+        }
+
+        for (LineError error : compileErrors) {
+            int line = error.getLineNumber();
+            if (line >= endLine) {
+                line += shift;
+            } else if (line >= firstLine) {
+                continue;
+            }
+            if (!decodedLines.contains(line)) {
+                errors.add((line == error.getLineNumber()) ? error : new LineError(error.getMsg(), line));
+            }
+        }
+        // A line that failed to parse has no mnemonic, one that failed to decode has
+        errors.sort(Comparator.comparing((LineError error) -> code.get(error.getLineNumber()).getMnemonic() != null)
+                .thenComparingInt(LineError::getLineNumber));
+        compileErrors = errors;
+        runtimeError = null;
+        resetExecution();
+    }
+
+    /**
+     * Resets the CPU and creates the memory for the current instructions, so the program runs from the start.
+     */
+    protected void resetExecution() {
+        cpu.reset();
+        cpu.getCoverage().clear();
+        memory = createMemory(1);
+    }
+
+    /**
+     * Creates the memory the program runs on, with the program in its text segment.
+     * It is called from the constructor, so an override may only use <code>cpuInstructions</code>.
+     *
+     * @param numCores	the number of cores that access the memory
+     * @return			a new memory for the current instructions
+     */
+    protected Memory createMemory(int numCores) {
+        Memory memory = new Memory(cpuInstructions.size(), numCores);
+        memory.loadText(MachineCode.encodeText(cpuInstructions));
+        return memory;
+    }
+
     /**
      * Run the cpu with the generated list of instructions until completion (or not if infinite loop)
      */
@@ -111,7 +380,75 @@ public abstract class LEGv8_Simulator {
     }
 
     /**
-     * @return	the list of text lines from the text editor
+     * @param traceWriter	the binary trace the CPU streams every executed instruction to,
+     * 						<code>null</code> to disable tracing
+     */
+    public void setTraceWriter(TraceFileWriter traceWriter) {
+        cpu.setTraceWriter(traceWriter);
+    }
+
+    /**
+     * @param keepLog	<code>false</code> to stop writing the CPU log, so that long runs, such as
+     * 					traced ones, do not grow it or format it for every instruction executed
+     */
+    public void setKeepLog(boolean keepLog) {
+        cpu.setKeepLog(keepLog);
+    }
+
+    /**
+     * Creates a branch prediction unit for the compiled program and attaches it to the CPU.
+     *
+     * @param predictor	the direction predictor for conditional branches
+     * @return			the unit fed by the CPU, used to obtain the prediction statistics
+     */
+    public BranchPredictionUnit setBranchPredictor(BranchPredictor predictor) {
+        BranchPredictionUnit unit = new BranchPredictionUnit(predictor, cpuInstructions.size());
+        cpu.setBranchPredictionUnit(unit);
+        return unit;
+    }
+
+    /**
+     * @param timingModel	the latencies used by the CPU to count simulated cycles
+     */
+    public void setTimingModel(TimingModel timingModel) {
+        cpu.setTimingModel(timingModel);
+    }
+
+    /**
+     * Redirects the console of core 0 used by <code>SVC #0</code> and <code>SVC #1</code>.
+     *
+     * @param in	the stream <code>SVC #1</code> reads lines from, <code>null</code> for <code>System.in</code>
+     * @param out	the stream <code>SVC #0</code> prints to, <code>null</code> for <code>System.out</code>
+     */
+    public void setConsole(InputStream in, PrintStream out) {
+        cpu.setConsole(in, out);
+    }
+
+    /**
+     * @param directory	the directory the file names of <code>SVC #2</code>, <code>#6</code> and <code>#7</code> are
+     * 					resolved against, <code>null</code> to make every file call fail
+     * @param confined	<code>true</code> to also fail for names that lead outside of <code>directory</code>
+     */
+    public void setFileDirectory(Path directory, boolean confined) {
+        cpu.setFileDirectory(directory, confined);
+    }
+
+    /**
+     * @return	the list of instructions generated from the source code
+     */
+    public ArrayList<Instruction> getInstructions() {
+        return cpuInstructions;
+    }
+
+    /**
+     * @return	the source lines executed and never executed by the CPU so far
+     */
+    public CoverageReport getCoverageReport() {
+        return new CoverageReport(cpuInstructions, cpu.getCoverage());
+    }
+
+    /**
+     * @return	the list of text lines from the text editor, <code>null</code> for an <code>AssembledProgram</code>
      */
     public ArrayList<TextLine> getCode() {
         return code;
@@ -0,0 +1,131 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.MachineCode;
+import com.legv8.simulator.response.LineError;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>MachineCodeImage</code> is a program stored as raw LEGv8 machine code: one 32-bit word per
+ * instruction, big-endian like the simulator's memory, with no header. A program assembled once into an
+ * image can be run again without being lexed, parsed or decoded from its source.
+ * <p>
+ * The image is memory mapped and each word is decoded into an <code>Instruction</code> whose line number
+ * is its index. Words that are not a supported instruction, and branches that leave the program, are
+ * reported as compile errors on the line of their index.
+ *
+ * @see MachineCode
+ * @see AssembledProgram
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class MachineCodeImage {
+
+    public static final String EXTENSION = ".bin";
+
+    /**
+     * @param path	the image file, at most 2 GiB
+     * @return		the program decoded from it
+     * @throws IOException if the file cannot be read or is not a whole number of words
+     */
+    public static MachineCodeImage load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Machine code images are limited to 2 GiB: " + path);
+            }
+            if (size % Integer.BYTES != 0) {
+                throw new IOException("Machine code image " + path + " is not a whole number of 32-bit instructions");
+            }
+            int[] words = new int[(int) (size / Integer.BYTES)];
+            if (size > 0) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer.asIntBuffer().get(words);
+            }
+            return new MachineCodeImage(words);
+        }
+    }
+
+    /**
+     * Encodes the instructions of a compiled program and writes them as an image.
+     *
+     * @param path			the image file to write, replaced if it exists
+     * @param instructions	the instructions of a program without compile errors
+     * @return				the number of instructions written
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if an instruction has no machine code encoding
+     */
+    public static int write(Path path, List<Instruction> instructions) throws IOException {
+        int[] words = MachineCode.encode(instructions);
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Integer.BYTES);
+        buffer.asIntBuffer().put(words);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return words.length;
+    }
+
+    private MachineCodeImage(int[] words) {
+        this.words = words;
+        instructions = new ArrayList<Instruction>(words.length);
+        compileErrors = new ArrayList<LineError>();
+        for (int i=0; i<words.length; i++) {
+            try {
+                Instruction instruction = MachineCode.decode(words[i], i);
+                checkBranchTarget(instruction, i);
+                instructions.add(instruction);
+            } catch (IllegalArgumentException e) {
+                compileErrors.add(new LineError(e.getMessage() + " at byte " + (long) i * Integer.BYTES, i));
+            }
+        }
+    }
+
+    /*
+     * A branch may go to the end of the program, which ends it, but not further
+     */
+    private void checkBranchTarget(Instruction instruction, int index) {
+        int target = switch (instruction.getMnemonic()) {
+            case CBZ, CBNZ -> instruction.getArgs()[1];
+            case B, BL, BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE, BMI, BPL, BVS, BVC -> instruction.getArgs()[0];
+            default -> index;
+        };
+        if (target < 0 || target > words.length) {
+            throw new IllegalArgumentException("Branch to instruction " + target + " outside the program");
+        }
+    }
+
+    /**
+     * @return	the instructions decoded from the image
+     */
+    public ArrayList<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * @return	the words that could not be decoded or branch outside the program, in order
+     */
+    public ArrayList<LineError> getCompileErrors() {
+        return compileErrors;
+    }
+
+    /**
+     * @return	the machine code of the image, one word per instruction
+     */
+    public int[] getWords() {
+        return words;
+    }
+
+    private final int[] words;
+    private final ArrayList<Instruction> instructions;
+    private final ArrayList<LineError> compileErrors;
+}
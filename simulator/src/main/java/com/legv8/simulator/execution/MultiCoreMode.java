@@ -0,0 +1,167 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.cpu.CPU;
+import com.legv8.simulator.cpu.TimingModel;
+import com.legv8.simulator.instruction.MachineCode;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.SharedMemory;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <code>MultiCoreMode</code> runs the same program on several <code>CPU</code>s sharing one
+ * <code>SharedMemory</code>, each core on its own thread, until all of them complete.
+ * <p>
+ * Every core starts with its core number in X0 and its own stack, so programs can split work
+ * between cores and synchronise through <code>LDXR</code>/<code>STXR</code>. The trace, branch
+ * predictor and coverage set up through <code>LEGv8_Simulator</code> apply to core 0.
+ *
+ * @see SharedMemory
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class MultiCoreMode extends ContinuousMode {
+
+    /**
+     * @param code		the individual lines of LEGv8 source code
+     * @param numCores	the number of cores to run the program on
+     */
+    public MultiCoreMode(ArrayList<TextLine> code, int numCores) {
+        super(code, numCores);
+        if (numCores < 1) {
+            throw new IllegalArgumentException("The number of cores must be at least 1");
+        }
+        cpus = new CPU[numCores];
+        cpus[0] = cpu;
+        for (int i=1; i<numCores; i++) {
+            cpus[i] = new CPU(i);
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ResultWrapper<CPUSnapshot, LineError>[] results = new ResultWrapper[numCores];
+        coreResults = results;
+    }
+
+    /**
+     * Runs every core to completion on its own thread.
+     *
+     * @return	the result of the first core that failed, or the result of core 0 if all succeeded
+     */
+    @Override
+    public ResultWrapper<CPUSnapshot, LineError> runWithResult() {
+        Thread[] threads = new Thread[cpus.length];
+        for (int i=0; i<cpus.length; i++) {
+            int core = i;
+            threads[i] = new Thread(() -> coreResults[core] = runCore(core), "legv8-core-" + i);
+            threads[i].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runtimeError = new LineError("Execution interrupted.", -1);
+            return ResultWrapper.failure(runtimeError);
+        }
+        return collectResults();
+    }
+
+    /**
+     * @return	the result of the first core that failed, or the result of core 0 if all succeeded
+     */
+    protected ResultWrapper<CPUSnapshot, LineError> collectResults() {
+        for (ResultWrapper<CPUSnapshot, LineError> result : coreResults) {
+            if (result.isFailure()) {
+                runtimeError = result.getError();
+                return result;
+            }
+        }
+        return coreResults[0];
+    }
+
+    private ResultWrapper<CPUSnapshot, LineError> runCore(int core) {
+        try {
+            return cpus[core].run(cpuInstructions, memory);
+        } catch (RuntimeException e) {
+            return ResultWrapper.failure(new LineError("Core " + core + " stopped: " + e, -1));
+        }
+    }
+
+    /**
+     * @param timingModel	the latencies used by every core to count simulated cycles
+     */
+    @Override
+    public void setTimingModel(TimingModel timingModel) {
+        for (CPU core : cpus) {
+            core.setTimingModel(timingModel);
+        }
+    }
+
+    /**
+     * @return	the result of each core after <code>runWithResult()</code>, indexed by core number
+     */
+    public List<ResultWrapper<CPUSnapshot, LineError>> getCoreResults() {
+        return Arrays.asList(coreResults);
+    }
+
+    /**
+     * Resets every core and shares a new memory between them.
+     */
+    @Override
+    protected void resetExecution() {
+        for (CPU core : cpus) {
+            core.reset();
+            core.getCoverage().clear();
+        }
+        Arrays.fill(coreResults, null);
+        memory = createMemory(cpus.length);
+    }
+
+    /**
+     * @return	a <code>SharedMemory</code>, as the cores run on threads of their own
+     */
+    @Override
+    protected Memory createMemory(int numCores) {
+        Memory memory = new SharedMemory(cpuInstructions.size(), numCores);
+        memory.loadText(MachineCode.encodeText(cpuInstructions));
+        return memory;
+    }
+
+    /**
+     * @param keepLog	<code>false</code> to stop writing the log of every core
+     */
+    @Override
+    public void setKeepLog(boolean keepLog) {
+        for (CPU core : cpus) {
+            core.setKeepLog(keepLog);
+        }
+    }
+
+    /**
+     * @param directory	the directory the file calls of every core are resolved against, <code>null</code>
+     * 					to make them fail
+     * @param confined	<code>true</code> to also fail for names that lead outside of <code>directory</code>
+     */
+    @Override
+    public void setFileDirectory(Path directory, boolean confined) {
+        for (CPU core : cpus) {
+            core.setFileDirectory(directory, confined);
+        }
+    }
+
+    /**
+     * @return	the number of cores the program runs on
+     */
+    public int getNumCores() {
+        return cpus.length;
+    }
+
+    protected final CPU[] cpus;
+    protected final ResultWrapper<CPUSnapshot, LineError>[] coreResults;
+}
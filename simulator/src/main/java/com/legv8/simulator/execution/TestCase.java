@@ -0,0 +1,66 @@
+package com.legv8.simulator.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A <code>TestCase</code> is one run of a program in a <code>TestMode</code>: the initial registers
+ * and memory, the lines typed in answer to <code>SVC #1</code>, and the registers, memory and
+ * <code>SVC #0</code> output expected once the program finishes.
+ *
+ * @see TestMode
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TestCase {
+
+    /**
+     * @param name	the name identifying this case in the report
+     */
+    public TestCase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param line	one more line read by <code>SVC #1</code>, in order
+     */
+    public void addStdin(String line) {
+        stdin.add(line);
+    }
+
+    /**
+     * @param expectations	the results expected once the program finishes
+     */
+    public void setExpectations(Expectations expectations) {
+        this.expectations = expectations;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return	the initial register and memory values
+     */
+    public BatchInput getInput() {
+        return input;
+    }
+
+    /**
+     * @return	the lines read by <code>SVC #1</code>, in order
+     */
+    public List<String> getStdin() {
+        return stdin;
+    }
+
+    /**
+     * @return	the results expected once the program finishes
+     */
+    public Expectations getExpectations() {
+        return expectations;
+    }
+
+    private final String name;
+    private final BatchInput input = new BatchInput();
+    private final List<String> stdin = new ArrayList<>();
+    private Expectations expectations = new Expectations(List.of());
+}
@@ -0,0 +1,122 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.cpu.CPU;
+import com.legv8.simulator.cpu.TimingModel;
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.MachineCode;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.SegmentFaultException;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+import com.legv8.simulator.response.TestCaseResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>TestMode</code> runs an already compiled program once for every <code>TestCase</code> and
+ * checks its expectations.
+ * <p>
+ * All cases run on the same <code>CPU</code> and <code>Memory</code>, which are reset between cases,
+ * so a submission is compiled once however many cases it is graded against. The console of each case
+ * is scripted: <code>SVC #1</code> reads the lines of the case and the output of <code>SVC #0</code>
+ * is captured instead of printed.
+ *
+ * @see TestCase
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TestMode {
+
+    /**
+     * @param cpuInstructions	the instructions of a program compiled without errors
+     */
+    public TestMode(ArrayList<Instruction> cpuInstructions) {
+        this.cpuInstructions = cpuInstructions;
+        cpu = new CPU();
+        memory = new Memory(cpuInstructions.size());
+        memory.loadText(MachineCode.encodeText(cpuInstructions));
+    }
+
+    /**
+     * @param testCases	the cases to run, in order
+     * @return			the result of each case, in the same order
+     */
+    public List<TestCaseResult> run(List<TestCase> testCases) {
+        List<TestCaseResult> results = new ArrayList<>(testCases.size());
+        for (TestCase testCase : testCases) {
+            results.add(run(testCase));
+        }
+        return results;
+    }
+
+    /**
+     * @param testCase	the case to run
+     * @return			the result of the run and the expectations that did not hold
+     */
+    public TestCaseResult run(TestCase testCase) {
+        List<String> failures = new ArrayList<>();
+        cpu.reset();
+        memory.clear();
+        for (Map.Entry<Integer, Long> register : testCase.getInput().getRegisters().entrySet()) {
+            cpu.setRegister(register.getKey(), register.getValue());
+        }
+        for (Map.Entry<Long, Long> doubleword : testCase.getInput().getDoublewords().entrySet()) {
+            try {
+                memory.storeDoubleword(doubleword.getKey(), doubleword.getValue());
+            } catch (SegmentFaultException e) {
+                failures.add("Invalid initial memory: " + e.getMessage());
+                return new TestCaseResult(testCase.getName(), null, failures);
+            }
+        }
+        String stdin = testCase.getStdin().isEmpty() ? "" : String.join("\n", testCase.getStdin()) + "\n";
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        cpu.setConsole(new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(stdout, true, StandardCharsets.ISO_8859_1));
+
+        ResultWrapper<CPUSnapshot, LineError> result;
+        try {
+            result = cpu.run(cpuInstructions, memory);
+        } catch (RuntimeException e) {
+            result = ResultWrapper.failure(new LineError("Execution stopped: " + e, -1));
+        } finally {
+            cpu.setConsole(null, null);
+        }
+        if (result.isFailure()) {
+            LineError error = result.getError();
+            failures.add("Run failure: " + error.getMsg()
+                    + ((error.getLineNumber() >= 0) ? " (line " + (error.getLineNumber() + 1) + ")" : ""));
+            return new TestCaseResult(testCase.getName(), result, failures);
+        }
+
+        failures.addAll(testCase.getExpectations().check(result.getValue(), memory,
+                stdout.toString(StandardCharsets.ISO_8859_1)));
+        return new TestCaseResult(testCase.getName(), result, failures);
+    }
+
+    /**
+     * @param timingModel	the latencies used to count simulated cycles
+     */
+    public void setTimingModel(TimingModel timingModel) {
+        cpu.setTimingModel(timingModel);
+    }
+
+    /**
+     * @param directory	the directory the file names of <code>SVC #2</code>, <code>#6</code> and <code>#7</code> are
+     * 					resolved against, <code>null</code> to make every file call fail
+     * @param confined	<code>true</code> to also fail for names that lead outside of <code>directory</code>
+     */
+    public void setFileDirectory(Path directory, boolean confined) {
+        cpu.setFileDirectory(directory, confined);
+    }
+
+    private final ArrayList<Instruction> cpuInstructions;
+    private final CPU cpu;
+    private final Memory memory;
+}
@@ -1,13 +1,20 @@
 package com.legv8.simulator.fileio;
 
 import com.legv8.simulator.cli.CommandLineHandler;
+import com.legv8.simulator.execution.AssembledProgram;
+import com.legv8.simulator.execution.MachineCodeImage;
 import com.legv8.simulator.lexer.TextLine;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -22,15 +29,80 @@ import java.util.List;
 public class AssemblyFileReader {
 
     public List<String> readFile(String filePath) throws IOException {
-        return Files.readAllLines(Path.of(filePath)).stream()
-                .map(String::trim)
-                .toList();
+        List<String> lines = Files.readAllLines(Path.of(filePath));
+        lines.replaceAll(String::trim);
+        return lines;
     }
 
+    /*
+     * Lines are read one by one straight into the list, so the text of the file is not held twice.
+     */
     public ArrayList<TextLine> readAsTextLines(String filePath) throws IOException {
-        return new ArrayList<>(Files.readAllLines(Path.of(filePath)).stream()
-                .map(String::trim)
-                .map(TextLine::new)
-                .toList());
+        ArrayList<TextLine> lines = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(Path.of(filePath), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(new TextLine(line.trim()));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Compiles a program while it is read, without keeping its lines.
+     *
+     * @param filePath	the path of an assembly file
+     * @return			its instructions, branch table and compile errors
+     * @throws IOException if the file cannot be read
+     * @see AssembledProgram
+     */
+    public AssembledProgram assemble(String filePath) throws IOException {
+        return AssembledProgram.assemble(Path.of(filePath));
+    }
+
+    /**
+     * @param filePath	the path of a machine code image
+     * @return			its decoded instructions and the words that could not be decoded
+     * @throws IOException if the file cannot be read or is not a whole number of instructions
+     * @see MachineCodeImage
+     */
+    public MachineCodeImage loadMachineCode(String filePath) throws IOException {
+        return MachineCodeImage.load(Path.of(filePath));
+    }
+
+    /**
+     * Programs that only differ in comments, whitespace and the case of mnemonics, registers and
+     * immediates have the same hash. Line breaks are kept, so that equal programs also report the
+     * same line numbers, except for the empty lines at the end of the file.
+     *
+     * @param filePath	the path of an assembly file
+     * @return			the SHA-256 hash of its normalised source, in hexadecimal
+     * @throws IOException if the file cannot be read
+     * @see TextLine#getNormalizedLine()
+     */
+    public String hashNormalized(String filePath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        int emptyLines = 0;
+        try (BufferedReader in = Files.newBufferedReader(Path.of(filePath), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String normalized = new TextLine(line.trim()).getNormalizedLine();
+                if (normalized.isEmpty()) {
+                    emptyLines++;
+                    continue;
+                }
+                for (; emptyLines > 0; emptyLines--) {
+                    digest.update((byte) '\n');
+                }
+                digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
 }
@@ -0,0 +1,64 @@
+package com.legv8.simulator.fileio;
+
+import com.legv8.simulator.cli.CommandLineHandler;
+import com.legv8.simulator.execution.BatchInput;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>BatchInputFileReader</code> is used to read the inputs of a batch run.
+ * <p>
+ * Inputs are separated by blank lines. Each line of an input sets a register, like <code>X1 = 25</code>,
+ * or a doubleword of memory, like <code>[0x10000000] = 7</code>. Values may be decimal or hexadecimal
+ * and lines starting with <code>//</code> are ignored.
+ *
+ * @see CommandLineHandler
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+@Component
+public class BatchInputFileReader {
+
+    public List<BatchInput> readInputs(String filePath) throws IOException {
+        List<BatchInput> inputs = new ArrayList<>();
+        BatchInput input = new BatchInput();
+        int lineNumber = 0;
+        for (String rawLine : Files.readAllLines(Path.of(filePath))) {
+            lineNumber++;
+            String line = rawLine.trim();
+            if (line.isEmpty()) {
+                if (!input.isEmpty()) {
+                    inputs.add(input);
+                    input = new BatchInput();
+                }
+                continue;
+            }
+            if (line.startsWith("//")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals == -1) {
+                throw new IOException("Line " + lineNumber + ": expected <register> = <value> or [<address>] = <value>");
+            }
+            String target = line.substring(0, equals).trim();
+            try {
+                long value = Long.decode(line.substring(equals + 1).trim());
+                if (target.startsWith("[") && target.endsWith("]")) {
+                    input.setDoubleword(Long.decode(target.substring(1, target.length() - 1).trim()), value);
+                } else {
+                    input.setRegister(BatchInput.parseRegister(target), value);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        if (!input.isEmpty()) {
+            inputs.add(input);
+        }
+        return inputs;
+    }
+}
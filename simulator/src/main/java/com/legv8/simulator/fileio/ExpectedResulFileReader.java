@@ -1,14 +1,12 @@
 package com.legv8.simulator.fileio;
 
 import com.legv8.simulator.cli.CommandLineHandler;
+import com.legv8.simulator.execution.Expectations;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * <code>AssemblyFileReader</code> is used to read text files containing expected results
@@ -16,23 +14,23 @@ import java.util.Map;
  * <code>CommandLineHandler</code> when the simulator is run from the CLI.
  *
  * @see    CommandLineHandler
+ * @see    Expectations
  * @author Rodrigo Bautista Hernández, 2025
  *
  */
 @Component
 public class ExpectedResulFileReader {
 
-    public Map<String, Long> readExpectedRegisters(String filePath) throws IOException {
-        List<String> lines = Files.readAllLines(Path.of(filePath)).stream()
-                .map(String::trim)
-                .toList();
-        Map<String, Long> registers = new HashMap<>();
-
-        for (String line : lines) {
-            String[] fragments = line.split(" ");
-            if (fragments.length < 3) continue;
-            registers.put(fragments[0], Long.parseLong(fragments[2]));
+    /**
+     * @param filePath	a file with one expectation per line, such as <code>X1 = 25</code>
+     * @return			the compiled expectations, ready to check any number of runs
+     * @throws IOException if the file cannot be read or a line is not a valid expectation
+     */
+    public Expectations readExpectations(String filePath) throws IOException {
+        try {
+            return new Expectations(Files.readAllLines(Path.of(filePath)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
         }
-        return registers;
     }
 }
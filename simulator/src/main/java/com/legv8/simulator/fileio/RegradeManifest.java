@@ -0,0 +1,270 @@
+package com.legv8.simulator.fileio;
+
+import com.legv8.simulator.cli.CommandLineHandler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>RegradeManifest</code> remembers the results of every program of a bulk run, so that running the
+ * same folder again only executes the programs that changed.
+ * <p>
+ * Each program is recorded with its size, modification time and SHA-256 content hash, the simulator
+ * version and a hash of the run configuration (expected results, options and the files they name), next
+ * to the lines reported for it. A stored result is reused when the version and configuration match and
+ * the program has the same size and modification time, or failing that the same content.
+ * <p>
+ * The manifest is a text file: a header line per program followed by its result lines, escaped so that
+ * each one takes a single line of the file.
+ *
+ * @see CommandLineHandler
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class RegradeManifest {
+
+    private static final String HEADER = "LEGv8 regrade manifest 1";
+    private static final String ENTRY = "program\t";
+
+    /**
+     * @param path				the manifest file, which need not exist yet
+     * @param version			the version of the simulator producing the results
+     * @param configurationHash	the hash of everything besides the program that determines its results
+     * @return					the manifest, holding the results stored by the previous run if any
+     * @throws IOException if the file exists but cannot be read or is not a manifest
+     */
+    public static RegradeManifest load(Path path, String version, String configurationHash) throws IOException {
+        RegradeManifest manifest = new RegradeManifest(path, version, configurationHash);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("Not a regrade manifest: " + path);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(ENTRY)) {
+                    throw new IOException("Corrupt regrade manifest: " + path);
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 8) {
+                    throw new IOException("Corrupt regrade manifest: " + path);
+                }
+                try {
+                    Entry entry = new Entry(Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4],
+                            unescape(fields[5]), fields[6], new ArrayList<>());
+                    int count = Integer.parseInt(fields[7]);
+                    for (int i=0; i<count; i++) {
+                        String result = reader.readLine();
+                        if (result == null) {
+                            throw new IOException("Truncated regrade manifest: " + path);
+                        }
+                        entry.lines.add(unescape(result));
+                    }
+                    manifest.previous.put(unescape(fields[1]), entry);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Corrupt regrade manifest: " + path);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // First run, nothing stored yet
+        }
+        return manifest;
+    }
+
+    /**
+     * Creates an empty manifest, so that every program is executed.
+     *
+     * @param path				the manifest file, overwritten by <code>save()</code>
+     * @param version			the version of the simulator producing the results
+     * @param configurationHash	the hash of everything besides the program that determines its results
+     */
+    public RegradeManifest(Path path, String version, String configurationHash) {
+        this.path = path;
+        this.version = version;
+        this.configurationHash = configurationHash;
+    }
+
+    /**
+     * Looks up the stored result of a program. A reused result is kept for the next run.
+     *
+     * @param program	the path of the program
+     * @return			the lines reported for it last time, <code>null</code> if it has to be executed again
+     * @throws IOException if the program cannot be read
+     */
+    public List<String> lookup(Path program) throws IOException {
+        Entry entry = previous.get(program.toString());
+        if (entry == null || !entry.version.equals(version) || !entry.configurationHash.equals(configurationHash)) {
+            misses++;
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(program, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (size != entry.size) {
+            misses++;
+            return null;
+        }
+        if (modified != entry.modified) {
+            if (!hash(program).equals(entry.contentHash)) {
+                misses++;
+                return null;
+            }
+            entry = new Entry(size, modified, entry.contentHash, version, configurationHash, entry.lines);
+        }
+        current.put(program.toString(), entry);
+        hits++;
+        return entry.lines;
+    }
+
+    /**
+     * @param program	the path of a program that has just been executed
+     * @param lines		the lines reported for it
+     * @throws IOException if the program cannot be read
+     */
+    public void store(Path program, List<String> lines) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(program, BasicFileAttributes.class);
+        current.put(program.toString(), new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                hash(program), version, configurationHash, new ArrayList<>(lines)));
+    }
+
+    /**
+     * Writes the results of this run, dropping the programs that are no longer in the folder.
+     * The file is replaced atomically so an interrupted run never leaves a corrupt manifest.
+     *
+     * @throws IOException if the manifest cannot be written
+     */
+    public void save() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = Files.createTempFile(parent, "regrade", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> program : current.entrySet()) {
+                Entry entry = program.getValue();
+                writer.write(ENTRY + escape(program.getKey()) + "\t" + entry.size + "\t" + entry.modified + "\t"
+                        + entry.contentHash + "\t" + escape(entry.version) + "\t" + entry.configurationHash + "\t" + entry.lines.size());
+                writer.newLine();
+                for (String line : entry.lines) {
+                    writer.write(escape(line));
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return	the number of programs whose stored result was reused
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return	the number of programs that had to be executed
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @param files	the files whose contents determine the results, in a fixed order; missing files are skipped
+     * @param texts	any other settings determining the results, in a fixed order
+     * @return		the SHA-256 hash of all of them, in hexadecimal
+     * @throws IOException if an existing file cannot be read
+     */
+    public static String hashConfiguration(List<Path> files, List<String> texts) throws IOException {
+        MessageDigest digest = sha256();
+        for (String text : texts) {
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        for (Path file : files) {
+            if (Files.isRegularFile(file)) {
+                digest.update(Files.readAllBytes(file));
+            }
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+    }
+
+    private static String unescape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i=0; i<text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next == 't' ? '\t' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class Entry {
+        Entry(long size, long modified, String contentHash, String version, String configurationHash, List<String> lines) {
+            this.size = size;
+            this.modified = modified;
+            this.contentHash = contentHash;
+            this.version = version;
+            this.configurationHash = configurationHash;
+            this.lines = lines;
+        }
+
+        final long size;
+        final long modified;
+        final String contentHash;
+        final String version;
+        final String configurationHash;
+        final List<String> lines;
+    }
+
+    private final Path path;
+    private final String version;
+    private final String configurationHash;
+    private final Map<String, Entry> previous = new LinkedHashMap<>();
+    private final Map<String, Entry> current = new LinkedHashMap<>();
+    private int hits = 0;
+    private int misses = 0;
+}
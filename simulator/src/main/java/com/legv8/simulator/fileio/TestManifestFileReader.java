@@ -0,0 +1,98 @@
+package com.legv8.simulator.fileio;
+
+import com.legv8.simulator.cli.CommandLineHandler;
+import com.legv8.simulator.execution.BatchInput;
+import com.legv8.simulator.execution.Expectations;
+import com.legv8.simulator.execution.TestCase;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>TestManifestFileReader</code> is used to read a test manifest, the cases every program of a run is graded against.
+ * <p>
+ * Each case starts with a line <code>case &lt;name&gt;</code> followed by any of:
+ * <ul>
+ * <li><code>X1 = 25</code> or <code>[0x10000000] = 7</code>, an initial register or doubleword of memory</li>
+ * <li><code>stdin: &lt;text&gt;</code>, the next line read by <code>SVC #1</code></li>
+ * <li><code>expect &lt;expectation&gt;</code>, such as <code>expect X2 = 50</code> or <code>expect stdout: Hello</code>,
+ * a result checked once the program finishes</li>
+ * </ul>
+ * Values are written as in <code>Expectations</code> and lines starting with <code>//</code> are ignored.
+ *
+ * @see Expectations
+ * @see CommandLineHandler
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+@Component
+public class TestManifestFileReader {
+
+    public List<TestCase> readTestCases(String filePath) throws IOException {
+        List<TestCase> testCases = new ArrayList<>();
+        TestCase testCase = null;
+        List<String> expectations = new ArrayList<>();
+        int lineNumber = 0;
+        for (String rawLine : Files.readAllLines(Path.of(filePath))) {
+            lineNumber++;
+            String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith("//")) {
+                continue;
+            }
+            if (line.startsWith("case ") || line.equals("case")) {
+                compile(testCase, expectations);
+                String name = line.substring(4).trim();
+                testCase = new TestCase(name.isEmpty() ? String.valueOf(testCases.size() + 1) : name);
+                testCases.add(testCase);
+                continue;
+            }
+            if (testCase == null) {
+                throw new IOException("Line " + lineNumber + ": expected case <name> before the first case");
+            }
+            if (line.startsWith("stdin:")) {
+                String text = rawLine.substring(rawLine.indexOf("stdin:") + 6);
+                testCase.addStdin(text.startsWith(" ") ? text.substring(1) : text);
+                continue;
+            }
+            if (line.startsWith("expect ")) {
+                expectations.add(rawLine.substring(rawLine.indexOf("expect ") + 7));
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals == -1) {
+                throw new IOException("Line " + lineNumber + ": expected <register> = <value>, [<address>] = <value>, stdin: or expect");
+            }
+            String target = line.substring(0, equals).trim();
+            try {
+                long value = Expectations.parseValue(line.substring(equals + 1));
+                if (target.startsWith("[") && target.endsWith("]")) {
+                    testCase.getInput().setDoubleword(Expectations.parseValue(target.substring(1, target.length() - 1)), value);
+                } else {
+                    testCase.getInput().setRegister(BatchInput.parseRegister(target), value);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        compile(testCase, expectations);
+        return testCases;
+    }
+
+    /*
+     * The expectations of a case are compiled once all of its lines have been read.
+     */
+    private static void compile(TestCase testCase, List<String> expectations) throws IOException {
+        if (testCase == null) {
+            return;
+        }
+        try {
+            testCase.setExpectations(new Expectations(expectations));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Case " + testCase.getName() + ": " + e.getMessage());
+        }
+        expectations.clear();
+    }
+}
@@ -243,15 +243,21 @@ public class Decoder {
             case "SP", "sp" -> CPU.SP;
             case "FP", "fp" -> CPU.FP;
             case "LR", "lr" -> CPU.LR;
-            default -> Integer.parseInt(reg.substring(1));
+            default -> Integer.parseInt(reg, 1, reg.length(), 10);
         };
     }
 
+    /*
+     * Decimal immediates are read straight from the characters of the argument. Hexadecimal and octal ones,
+     * starting with 0, are left to Integer.decode()
+     */
     private static int parseImmediate(String imm) {
-        if (imm.startsWith("#")) {
-            return Integer.decode(imm.substring(1));
+        int start = imm.startsWith("#") ? 1 : 0;
+        int digits = (start < imm.length() && imm.charAt(start) == '-') ? start + 1 : start;
+        if (digits < imm.length() && (imm.charAt(digits) != '0' || digits == imm.length() - 1)) {
+            return Integer.parseInt(imm, start, imm.length(), 10);
         }
-        return Integer.decode(imm);
+        return Integer.decode(imm.substring(start));
     }
 
     private static int decodeImmediate(String imm, int lowerBound, int upperBound) throws ImmediateOutOfBoundsException {
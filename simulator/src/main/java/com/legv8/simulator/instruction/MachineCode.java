@@ -0,0 +1,246 @@
+package com.legv8.simulator.instruction;
+
+import com.legv8.simulator.cpu.ControlUnitConfiguration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <code>MachineCode</code> converts <code>Instruction</code>s to and from their 32-bit LEGv8 encodings,
+ * in the R, I, D, B, CB and IW formats of Patterson and Hennessy ARM Edition.
+ * <p>
+ * Fields are placed as follows, from the most significant bit:
+ * <ul>
+ * 	<li> R: opcode (11), Rm (5), shamt (6), Rn (5), Rd (5)
+ * 	<li> I: opcode (10), ALU immediate (12), Rn (5), Rd (5)
+ * 	<li> D: opcode (11), DT address (9), op (2), Rn (5), Rt (5). <code>STXR</code> puts its status register in bits 20 to 16.
+ * 	<li> B: opcode (6), branch address (26)
+ * 	<li> CB: opcode (8), branch address (19), Rt (5), the condition of a <code>B.cond</code>
+ * 	<li> IW: opcode (9), shift (2), immediate (16), Rd (5)
+ * </ul>
+ * Branch addresses are counted in instructions from the branch itself. <code>SVC</code> and <code>ERET</code>
+ * use their ARMv8 encodings. Pseudo instructions are encoded as the instruction they are decoded to,
+ * so <code>CMP</code>, <code>CMPI</code> and <code>MOV</code> come back as <code>SUBS</code>,
+ * <code>SUBIS</code> and <code>ORR</code>.
+ *
+ * @see Decoder
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class MachineCode {
+
+    public static final int ERET_ENCODING = 0xD69F03E0;
+    public static final int SVC_ENCODING = 0xD4000001;
+    // Bits of SVC_ENCODING that are not its immediate
+    private static final int SVC_MASK = 0xFFE0001F;
+
+    private static final Mnemonic[] CONDITIONS = {Mnemonic.BEQ, Mnemonic.BNE, Mnemonic.BHS, Mnemonic.BLO,
+            Mnemonic.BMI, Mnemonic.BPL, Mnemonic.BVS, Mnemonic.BVC, Mnemonic.BHI, Mnemonic.BLS,
+            Mnemonic.BGE, Mnemonic.BLT, Mnemonic.BGT, Mnemonic.BLE};
+
+    /**
+     * @param instruction	a decoded instruction
+     * @param index			the index of the instruction in its program, which branch addresses are relative to
+     * @return				the 32-bit encoding of the instruction
+     * @throws IllegalArgumentException if the instruction has no encoding or a field does not fit in its format
+     */
+    public static int encode(Instruction instruction, int index) {
+        if (instruction == null) {
+            throw new IllegalArgumentException("ADR has no machine code encoding");
+        }
+        Mnemonic m = instruction.getMnemonic();
+        int[] args = instruction.getArgs();
+        return switch (m) {
+            case SVC -> SVC_ENCODING | field(args[0], 16, false, m) << 5;
+            case ERET -> ERET_ENCODING;
+            case BR -> opcode(m) << 21 | field(args[0], 5, false, m) << 5;
+            // Its offset can only be 0, so the status register takes the place of the DT address
+            case STXR -> opcode(m) << 21 | field(args[1], 5, false, m) << 16 | field(args[2], 5, false, m) << 5
+                    | field(args[0], 5, false, m);
+            case BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE, BMI, BPL, BVS, BVC ->
+                    opcode(m) << 24 | field(args[0] - index, 19, true, m) << 5 | condition(m);
+            default -> switch (format(m)) {
+                case R -> opcode(m) << 21 | (isShift(m) ? field(args[2], 6, false, m) << 10 : field(args[2], 5, false, m) << 16)
+                        | field(args[1], 5, false, m) << 5 | field(args[0], 5, false, m);
+                case I -> opcode(m) << 22 | field(args[2], 12, false, m) << 10 | field(args[1], 5, false, m) << 5
+                        | field(args[0], 5, false, m);
+                case D -> opcode(m) << 21 | field(args[2], 9, true, m) << 12 | field(args[1], 5, false, m) << 5
+                        | field(args[0], 5, false, m);
+                case B -> opcode(m) << 26 | field(args[0] - index, 26, true, m);
+                case CB -> opcode(m) << 24 | field(args[1] - index, 19, true, m) << 5 | field(args[0], 5, false, m);
+                case IW -> opcode(m) << 23 | field(args[2] / 16, 2, false, m) << 21 | field(args[1], 16, false, m) << 5
+                        | field(args[0], 5, false, m);
+                case NONE -> throw new IllegalArgumentException(m.nameUpper + " has no machine code encoding");
+            };
+        };
+    }
+
+    /**
+     * @param instructions	the instructions of a program
+     * @return				the encoding of every instruction, in order
+     * @throws IllegalArgumentException if an instruction cannot be encoded
+     */
+    public static int[] encode(List<Instruction> instructions) {
+        int[] words = new int[instructions.size()];
+        for (int i=0; i<words.length; i++) {
+            try {
+                words[i] = encode(instructions.get(i), i);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Instruction " + i + ": " + e.getMessage(), e);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Encodes a program for its text segment, where an instruction without an encoding is left as 0.
+     *
+     * @param instructions	the instructions of a program
+     * @return				the encoding of every instruction, in order
+     */
+    public static int[] encodeText(List<Instruction> instructions) {
+        int[] words = new int[instructions.size()];
+        for (int i=0; i<words.length; i++) {
+            try {
+                words[i] = encode(instructions.get(i), i);
+            } catch (IllegalArgumentException e) {
+                // Not an instruction the program can read back
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @param word		the 32-bit encoding of an instruction
+     * @param index		the index of the instruction in its program, which branch addresses are relative to
+     * @return			the instruction, with <code>index</code> as its line number
+     * @throws IllegalArgumentException if <code>word</code> is not the encoding of a supported instruction
+     */
+    public static Instruction decode(int word, int index) {
+        if (word == ERET_ENCODING) {
+            return new Instruction(Mnemonic.ERET, new int[1], index, ControlUnitConfiguration.ERET);
+        }
+        if ((word & SVC_MASK) == SVC_ENCODING) {
+            return new Instruction(Mnemonic.SVC, new int[] {bits(word, 5, 16)}, index, ControlUnitConfiguration.SVC);
+        }
+        int rd = bits(word, 0, 5);
+        int rn = bits(word, 5, 5);
+        Mnemonic m;
+        if ((m = find(word >>> 21, Format.R, Format.D)) != null) {
+            return switch (m) {
+                case BR -> new Instruction(m, new int[] {rn}, index, null);
+                case LSL, LSR -> new Instruction(m, new int[] {rd, rn, bits(word, 10, 6)}, index, ControlUnitConfiguration.RRI);
+                case STXR -> new Instruction(m, new int[] {rd, bits(word, 16, 5), rn, 0}, index,
+                        ControlUnitConfiguration.RRM);
+                default -> (format(m) == Format.D)
+                        ? new Instruction(m, new int[] {rd, rn, signed(word, 12, 9)}, index, controlSignals(m))
+                        : new Instruction(m, new int[] {rd, rn, bits(word, 16, 5)}, index, controlSignals(m));
+            };
+        }
+        if ((m = find(word >>> 22, Format.I)) != null) {
+            return new Instruction(m, new int[] {rd, rn, bits(word, 10, 12)}, index, controlSignals(m));
+        }
+        if ((m = find(word >>> 23, Format.IW)) != null) {
+            return new Instruction(m, new int[] {rd, bits(word, 5, 16), bits(word, 21, 2) * 16}, index, ControlUnitConfiguration.RISI);
+        }
+        if ((m = find(word >>> 24, Format.CB)) != null) {
+            int target = index + signed(word, 5, 19);
+            if (m == Mnemonic.CBZ || m == Mnemonic.CBNZ) {
+                return new Instruction(m, new int[] {rd, target}, index, ControlUnitConfiguration.RL);
+            }
+            if (rd < CONDITIONS.length) {
+                return new Instruction(CONDITIONS[rd], new int[] {target}, index, ControlUnitConfiguration.L_COND);
+            }
+        }
+        if ((m = find(word >>> 26, Format.B)) != null) {
+            int target = index + signed(word, 0, 26);
+            return new Instruction(m, new int[] {target}, index, (m == Mnemonic.B) ? ControlUnitConfiguration.L : null);
+        }
+        throw new IllegalArgumentException(String.format("Unknown instruction encoding 0x%08X", word));
+    }
+
+    private enum Format { R, I, D, B, CB, IW, NONE }
+
+    private static Format format(Mnemonic m) {
+        return switch (m) {
+            case ADD, ADDS, SUB, SUBS, AND, ANDS, ORR, EOR, LSL, LSR, BR -> Format.R;
+            case ADDI, ADDIS, SUBI, SUBIS, ANDI, ANDIS, ORRI, EORI -> Format.I;
+            case LDUR, STUR, LDURSW, STURW, LDURH, STURH, LDURB, STURB, LDXR, STXR -> Format.D;
+            case B, BL -> Format.B;
+            case CBZ, CBNZ, BEQ -> Format.CB;
+            case MOVZ, MOVK -> Format.IW;
+            default -> Format.NONE;
+        };
+    }
+
+    /*
+     * The conditional branches share their opcode, so B.EQ stands for all of them when decoding
+     */
+    private static Mnemonic find(int opcode, Format... formats) {
+        for (int i=0; i<ENCODED.length; i++) {
+            if (OPCODES[i] == opcode) {
+                for (Format format : formats) {
+                    if (format(ENCODED[i]) == format) {
+                        return ENCODED[i];
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static ControlUnitConfiguration controlSignals(Mnemonic m) {
+        return switch (m) {
+            case ADD, EOR, ORR, AND, SUB -> ControlUnitConfiguration.RRR;
+            case ADDS, ANDS, SUBS -> ControlUnitConfiguration.RRR_FLAGS;
+            case ADDI, SUBI, ANDI, EORI, ORRI -> ControlUnitConfiguration.RRI;
+            case ADDIS, SUBIS, ANDIS -> ControlUnitConfiguration.RRI_FLAGS;
+            case STUR, STURW, STURH, STURB -> ControlUnitConfiguration.RM_STORE;
+            default -> ControlUnitConfiguration.RM_LOAD;
+        };
+    }
+
+    private static boolean isShift(Mnemonic m) {
+        return m == Mnemonic.LSL || m == Mnemonic.LSR;
+    }
+
+    private static int condition(Mnemonic m) {
+        for (int i=0; i<CONDITIONS.length; i++) {
+            if (CONDITIONS[i] == m) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(m.nameUpper + " is not a conditional branch");
+    }
+
+    private static int opcode(Mnemonic m) {
+        if (m.opcode == null) {
+            throw new IllegalArgumentException(m.nameUpper + " has no machine code encoding");
+        }
+        return Integer.parseInt(m.opcode, 2);
+    }
+
+    /*
+     * Checks that the value fits in a field of the given width and returns it without the bits above it
+     */
+    private static int field(int value, int width, boolean signed, Mnemonic m) {
+        int min = signed ? -(1 << (width - 1)) : 0;
+        int max = signed ? (1 << (width - 1)) - 1 : (1 << width) - 1;
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(value + " does not fit in a " + width + "-bit field of " + m.nameUpper);
+        }
+        return value & ((1 << width) - 1);
+    }
+
+    private static int bits(int word, int lowest, int width) {
+        return (word >>> lowest) & ((1 << width) - 1);
+    }
+
+    private static int signed(int word, int lowest, int width) {
+        return (word << (32 - lowest - width)) >> (32 - width);
+    }
+
+    // The mnemonics found when decoding and their opcodes
+    private static final Mnemonic[] ENCODED = Arrays.stream(Mnemonic.values())
+            .filter(m -> format(m) != Format.NONE).toArray(Mnemonic[]::new);
+    private static final int[] OPCODES = Arrays.stream(ENCODED).mapToInt(MachineCode::opcode).toArray();
+}
@@ -96,7 +96,7 @@ public enum Mnemonic {
      */
     public static Mnemonic fromString(String name) {
         if (name != null) {
-            for (Mnemonic m : Mnemonic.values()) {
+            for (Mnemonic m : VALUES) {
                 if (name.equals(m.nameUpper) || name.equals(m.nameLower)) {
                     return m;
                 }
@@ -132,4 +132,6 @@ public enum Mnemonic {
      * applicable for the instruction represented by this <code>Mnemonic</code>.
      */
     public final String aluControlInput;
+
+    private static final Mnemonic[] VALUES = values();
 }
@@ -23,25 +23,16 @@ public class Lexer {
     public static ArrayList<Token> lex(String input) {
 
         ArrayList<Token> tokens = new ArrayList<Token>();
-
-        // build single regular expression from the groups defined in TokenType class
-        StringBuffer tokenPatternsBuffer = new StringBuffer();
-        for (TokenType type : TokenType.values()) {
-            tokenPatternsBuffer.append("|(" + type.pattern + ")");
-        }
-
-        // Compile the regex pattern (Java does not have a "g" flag, we use find() instead)
-        Pattern tokenPatterns = Pattern.compile(tokenPatternsBuffer.substring(1));
-        Matcher matcher = tokenPatterns.matcher(input);
+        Matcher matcher = TOKEN_PATTERNS.matcher(input);
 
         // Find all matches
         while (matcher.find()) {
-            for (TokenType type : TokenType.values()) {
+            for (TokenType type : TOKEN_TYPES) {
                 if (type == TokenType.WHITESPACE) {
                     continue;
                 }
-                if (matcher.group(type.groupNumber) != null) {
-                    tokens.add(new Token(type, matcher.group(type.groupNumber)));
+                if (matcher.start(type.groupNumber) != -1) {
+                    tokens.add(new Token(type, input, matcher.start(type.groupNumber), matcher.end(type.groupNumber)));
                     break;
                 }
             }
@@ -49,4 +40,19 @@ public class Lexer {
 
         return tokens;
     }
+
+    /*
+     * A single regular expression built from the groups defined in the TokenType class, compiled once
+     * (Java does not have a "g" flag, we use find() instead)
+     */
+    private static Pattern compileTokenPatterns() {
+        StringBuilder tokenPatterns = new StringBuilder();
+        for (TokenType type : TokenType.values()) {
+            tokenPatterns.append("|(").append(type.pattern).append(")");
+        }
+        return Pattern.compile(tokenPatterns.substring(1));
+    }
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final Pattern TOKEN_PATTERNS = compileTokenPatterns();
 }
@@ -0,0 +1,184 @@
+package com.legv8.simulator.lexer;
+
+import com.legv8.simulator.instruction.Decoder;
+import com.legv8.simulator.instruction.ImmediateOutOfBoundsException;
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.UndefinedLabelException;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <code>LineCache</code> remembers the analysis of the lines of source code seen most recently, so that a line
+ * repeated in a program, or in the many programs of a bulk run, is only lexed, parsed and decoded once.
+ * <p>
+ * Lines are looked up by their text without comment, which is all the <code>Lexer</code> sees of them.
+ * For each line the cache keeps its tokens, its parse error or its label, mnemonic and arguments and, for
+ * instructions that do not take a label, the decoded instruction, which depends on nothing else but the
+ * line number. Once the cache is full the least recently used line is evicted. It may be used by several
+ * threads at once.
+ *
+ * @see TextLine
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class LineCache {
+
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    /**
+     * @return	the cache used by every <code>TextLine</code>
+     */
+    public static LineCache getShared() {
+        return shared;
+    }
+
+    /**
+     * @param capacity	the number of distinct lines kept
+     */
+    public LineCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A line cache needs room for at least 1 line");
+        }
+        this.capacity = capacity;
+    }
+
+    /*
+     * The line is analysed outside the lock, so two threads may analyse the same new line at the same time.
+     * Both results are equal and the last one stays.
+     */
+    Entry get(String lineNoComment) {
+        synchronized (lines) {
+            Entry entry = lines.get(lineNoComment);
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+            misses++;
+        }
+        TextLine line = new TextLine(lineNoComment);
+        line.tokenize();
+        String parseError = (line.getNumTokens() > 0) ? line.parse() : null;
+        Entry entry = new Entry(line, parseError);
+        synchronized (lines) {
+            lines.put(lineNoComment, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * @return	the number of lookups that found the line already analysed
+     */
+    public long getHits() {
+        synchronized (lines) {
+            return hits;
+        }
+    }
+
+    /**
+     * @return	the number of lookups that had to analyse the line
+     */
+    public long getMisses() {
+        synchronized (lines) {
+            return misses;
+        }
+    }
+
+    /**
+     * @return	the number of lines evicted to make room for others
+     */
+    public long getEvictions() {
+        synchronized (lines) {
+            return evictions;
+        }
+    }
+
+    /**
+     * @return	the number of lines in the cache
+     */
+    public int size() {
+        synchronized (lines) {
+            return lines.size();
+        }
+    }
+
+    /**
+     * Formats the lookups made since some earlier counts were taken.
+     *
+     * @param hitsBefore	the hits counted before
+     * @param missesBefore	the misses counted before
+     * @return				the number of hits and misses and the hit rate
+     */
+    public String getSummary(long hitsBefore, long missesBefore) {
+        long newHits = getHits() - hitsBefore;
+        long newMisses = getMisses() - missesBefore;
+        double rate = (newHits + newMisses == 0) ? 0 : 100.0 * newHits / (newHits + newMisses);
+        return "Line cache: " + (newHits + newMisses) + " lines, " + newHits + " hits, " + newMisses + " misses ("
+                + String.format("%.1f", rate) + "% hit rate), " + size() + " distinct lines kept of " + capacity;
+    }
+
+    /*
+     * The analysis of one line. The TextLine is never changed after it is put in the cache, and every
+     * TextLine with the same text copies its tokens and arguments.
+     */
+    static class Entry {
+        Entry(TextLine line, String parseError) {
+            this.line = line;
+            this.parseError = parseError;
+        }
+
+        /*
+         * An instruction that decodes without any label does not depend on the branch table, so it is decoded
+         * once, and so is an immediate out of bounds. Instructions taking a label are decoded every time.
+         */
+        Instruction decode(int lineNumber, HashMap<String, Integer> branchTable)
+                throws UndefinedLabelException, ImmediateOutOfBoundsException {
+            Object result = decoded;
+            if (result == null) {
+                try {
+                    Instruction instruction = Decoder.getInstruction(line.getMnemonic(), line.getArgs(), lineNumber, NO_LABELS);
+                    result = (instruction == null) ? TAKES_LABEL : instruction;
+                } catch (UndefinedLabelException e) {
+                    result = TAKES_LABEL;
+                } catch (ImmediateOutOfBoundsException e) {
+                    result = e;
+                }
+                decoded = result;
+            }
+            if (result == TAKES_LABEL) {
+                return Decoder.getInstruction(line.getMnemonic(), line.getArgs(), lineNumber, branchTable);
+            }
+            if (result instanceof ImmediateOutOfBoundsException e) {
+                throw e;
+            }
+            Instruction instruction = (Instruction) result;
+            if (instruction.getLineNumber() == lineNumber) {
+                return instruction;
+            }
+            return new Instruction(instruction.getMnemonic(), instruction.getArgs(), lineNumber, instruction.getControlSignals());
+        }
+
+        final TextLine line;
+        final String parseError;
+        private volatile Object decoded;
+    }
+
+    private static final Object TAKES_LABEL = new Object();
+    private static final HashMap<String, Integer> NO_LABELS = new HashMap<String, Integer>();
+    private static final LineCache shared = new LineCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> lines = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+}
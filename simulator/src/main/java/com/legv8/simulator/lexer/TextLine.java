@@ -1,9 +1,15 @@
 package com.legv8.simulator.lexer;
 
+import com.legv8.simulator.instruction.Decoder;
+import com.legv8.simulator.instruction.ImmediateOutOfBoundsException;
+import com.legv8.simulator.instruction.Instruction;
 import com.legv8.simulator.instruction.Mnemonic;
+import com.legv8.simulator.instruction.UndefinedLabelException;
 import com.legv8.simulator.parser.Parser;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
 
 /**
  * The <code>TextLine</code> class is used to manipulate a line of LEGv8 source code.
@@ -59,6 +65,46 @@ public class TextLine {
         return error;
     }
 
+    /**
+     * Same as <code>tokenize()</code> followed by <code>parse()</code>, but takes the tokens and the parse
+     * of an identical line from the shared <code>LineCache</code> when there is one. The line gets its own
+     * copy of the tokens and arguments, so changing them does not change the cached line.
+     *
+     * @return	the error message from the <code>Parser</code>; <code>null</code> if no error present.
+     * @see LineCache
+     */
+    public String tokenizeAndParse() {
+        cached = LineCache.getShared().get(lineNoComment);
+        TextLine analysed = cached.line;
+        tokens = new ArrayList<Token>(analysed.tokens);
+        parsed = analysed.parsed;
+        label = analysed.label;
+        mneType = analysed.mneType;
+        mnemonic = analysed.mnemonic;
+        args = new ArrayList<String>(analysed.args);
+        return cached.parseError;
+    }
+
+    /**
+     * Invokes the <code>Decoder</code> on the mnemonic and arguments of the parsed line. If the line was
+     * taken from the <code>LineCache</code> and its instruction takes no label, the instruction is decoded
+     * only once for all identical lines.
+     *
+     * @param lineNumber	the line in the code editor of this instruction
+     * @param branchTable	table mapping labels to instruction indices
+     * @return				the decoded instruction
+     * @throws UndefinedLabelException			when a label argument is not defined in the <code>branchTable</code>
+     * @throws ImmediateOutOfBoundsException	when an immediate argument does not fit in its field
+     * @see Decoder
+     */
+    public Instruction decode(int lineNumber, HashMap<String, Integer> branchTable)
+            throws UndefinedLabelException, ImmediateOutOfBoundsException {
+        if (cached == null) {
+            return Decoder.getInstruction(mnemonic, args, lineNumber, branchTable);
+        }
+        return cached.decode(lineNumber, branchTable);
+    }
+
     /*
      * Called only when line parsed correctly
      * Used to set each of the label, mnemonic, args and comment fields
@@ -70,21 +116,36 @@ public class TextLine {
                 case COMMA : break;
                 case LBRACKET : break;
                 case RBRACKET : break;
-                case LABEL : label = t.getData().substring(0, t.getData().length()-1); break;
+                case LABEL : label = lineNoComment.substring(t.getStart(), t.getEnd()-1); break;
                 case REGISTER, IMMEDIATE, IDENTIFIER: args.add(t.getData()); break;
                 // following case should never occur - parser never accepts ERROR tokens
                 case ERROR : comment += "something has gone very wrong for this to happen!"; break;
                 default :
                     if (mnemonic == null) {
-                        mnemonic = Mnemonic.fromString(t.getData().trim());
+                        mnemonic = Mnemonic.fromString(trimmedData(t));
                         mneType = t.getType();
                     } else {
-                        args.add(t.getData().trim());
+                        args.add(trimmedData(t));
                     }
             }
         }
     }
 
+    /*
+     * Same as t.getData().trim(), copying the characters out of the line only once
+     */
+    private String trimmedData(Token t) {
+        int start = t.getStart();
+        int end = t.getEnd();
+        while (start < end && lineNoComment.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && lineNoComment.charAt(end-1) <= ' ') {
+            end--;
+        }
+        return lineNoComment.substring(start, end);
+    }
+
     /**
      * @return the formatted line of LEGv8 source code. If the code could not be parsed,
      * it will be returned as entered.
@@ -233,6 +294,29 @@ public class TextLine {
         return s;
     }
 
+    /**
+     * Mnemonics, registers and immediates are case insensitive, so they are put in upper case.
+     * Labels and identifiers keep their case. The line is only lexed, without looking it up in the
+     * <code>LineCache</code>, so hashing a program does not count as compiling it.
+     *
+     * @return	the lexical tokens of this line without whitespace or comment, one per tab separated field
+     */
+    public String getNormalizedLine() {
+        StringBuilder sb = new StringBuilder();
+        for (Token t : Lexer.lex(lineNoComment)) {
+            String data = t.getData().trim();
+            switch (t.getType()) {
+                case LABEL, IDENTIFIER, ERROR : break;
+                default : data = data.toUpperCase(Locale.ROOT); break;
+            }
+            if (sb.length() > 0) {
+                sb.append('\t');
+            }
+            sb.append(t.getType().ordinal()).append(' ').append(data);
+        }
+        return sb.toString();
+    }
+
     /**
      * @return the number of lexical tokens found in this line of source code
      */
@@ -253,5 +337,6 @@ public class TextLine {
     private Mnemonic mnemonic = null;
     private ArrayList<String> args = new ArrayList<String>();
     private String comment = null;
+    private LineCache.Entry cached = null;
 }
 
@@ -21,6 +21,23 @@ public class Token {
         this.data = data;
     }
 
+    /**
+     * Creates a <code>Token</code> that refers to its text in the line it was found in, which is only
+     * copied out of the line if it is asked for.
+     *
+     * @param type	the type of this lexical <code>Token</code>
+     * @param line	the line of source code the <code>Token</code> was found in
+     * @param start	the index in the line of the first character of the <code>Token</code>
+     * @param end	the index in the line after the last character of the <code>Token</code>
+     * @see		TokenType
+     */
+    public Token(TokenType type, String line, int start, int end) {
+        this.type = type;
+        this.line = line;
+        this.start = start;
+        this.end = end;
+    }
+
     /**
      * @return	the type of this lexical <code>Token</code>
      * @see		TokenType
@@ -33,18 +50,40 @@ public class Token {
      * @return	the string forming this lexical <code>Token</code>
      */
     public String getData() {
+        if (data == null && line != null) {
+            data = line.substring(start, end);
+        }
         return data;
     }
 
+    /**
+     * @return	the index of the first character of this <code>Token</code> in its line;
+     * 			0 if it was not created from a line
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return	the index after the last character of this <code>Token</code> in its line;
+     * 			0 if it was not created from a line
+     */
+    public int getEnd() {
+        return end;
+    }
+
     /**
      * @return	the string representation of this <code>Token</code> enclosed by
      * vertical bars to enable whitespace visibility
      */
     @Override
     public String toString() {
-        return type.name() + " |" + data + "|";
+        return type.name() + " |" + getData() + "|";
     }
 
     private TokenType type;
     private String data;
+    private String line;
+    private int start;
+    private int end;
 }
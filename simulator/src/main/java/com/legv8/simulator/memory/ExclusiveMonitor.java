@@ -0,0 +1,81 @@
+package com.legv8.simulator.memory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <code>ExclusiveMonitor</code> is the global exclusive monitor shared by all the cores accessing a
+ * <code>Memory</code>.
+ * <p>
+ * Each core holds at most one reservation, the address of the doubleword it last loaded with
+ * <code>LDXR</code>. A store from any core overlapping a reserved doubleword clears that reservation,
+ * so the reserving core's next <code>STXR</code> to it fails. Reservations are kept in an
+ * <code>AtomicLongArray</code>, so cores running on different threads can clear each other's
+ * reservations without a global lock.
+ *
+ * @see Memory#loadExclusive(int, long)
+ * @see Memory#storeExclusive(int, long, long)
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class ExclusiveMonitor {
+
+    /*
+     * Reserved addresses, 0 when a core holds no reservation. Address 0 is never a valid data address.
+     */
+    private static final long NONE = 0;
+
+    /**
+     * @param numCores	the number of cores that may hold a reservation
+     */
+    public ExclusiveMonitor(int numCores) {
+        reservations = new AtomicLongArray(numCores);
+    }
+
+    /**
+     * @param core		the core making the reservation
+     * @param address	the address of the doubleword to reserve
+     */
+    public void reserve(int core, long address) {
+        reservations.set(core, address);
+    }
+
+    /**
+     * @param core		a core
+     * @param address	the address of a doubleword
+     * @return			<code>true</code> if <code>core</code> holds a reservation on <code>address</code>
+     */
+    public boolean isReserved(int core, long address) {
+        return address != NONE && reservations.get(core) == address;
+    }
+
+    /**
+     * @param core	the core whose reservation is dropped
+     */
+    public void clear(int core) {
+        reservations.set(core, NONE);
+    }
+
+    /**
+     * Clears every reservation on a doubleword overlapping the bytes written by a store.
+     *
+     * @param address	the first byte written
+     * @param size		the number of bytes written
+     */
+    public void clearOverlapping(long address, int size) {
+        long last = address + size - 1;
+        for (int core=0; core<reservations.length(); core++) {
+            long reserved = reservations.get(core);
+            if (reserved != NONE && address < reserved + Memory.DOUBLEWORD_SIZE && last >= reserved) {
+                reservations.compareAndSet(core, reserved, NONE);
+            }
+        }
+    }
+
+    /**
+     * @return	the number of cores tracked by this monitor
+     */
+    public int getNumCores() {
+        return reservations.length();
+    }
+
+    private final AtomicLongArray reservations;
+}
@@ -1,5 +1,6 @@
 package com.legv8.simulator.memory;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -12,8 +13,16 @@ import java.util.HashMap;
  * <p>
  * All load and store operations return and require 8-byte <code>long</code>s respectively. This is to mimic the
  * use of 64-bit registers.
+ * <p>
+ * The exclusive reservations made by <code>LDXR</code> are held by an <code>ExclusiveMonitor</code>,
+ * so that any store to a reserved doubleword makes the following <code>STXR</code> fail.
+ * <p>
+ * The text segment holds the machine code of the program once <code>loadText()</code> is called. It can be
+ * loaded from but not stored to.
  *
+ * @see ExclusiveMonitor
  * @author Jonathan Wright, 2016
+ * @author Rodrigo Bautista Hernández, 2026
  *
  */
 
@@ -31,18 +40,32 @@ public class Memory {
     public static final int BYTE_SIZE = 1;
     public static final int BITS_IN_BYTE = 8;
 
-    ByteBuffer buffer;
     private long staticDataSegmentOffset;
     private HashMap<Long, Byte> memory;
+    private int[] text = new int[0];
+    private MemoryAccessListener[] listeners = new MemoryAccessListener[0];
+
+    /**
+     * The exclusive monitor tracking the addresses reserved by <code>LDXR</code>.
+     */
+    protected final ExclusiveMonitor monitor;
 
     /**
      * Memory constructor with a specified number of instructions.
      * @param numInstructions	the number of instructions in the LEGv8 program being compiled/executed.
      */
     public Memory(int numInstructions) {
+        this(numInstructions, 1);
+    }
+
+    /**
+     * @param numInstructions	the number of instructions in the LEGv8 program being compiled/executed.
+     * @param numCores			the number of cores that may hold an exclusive reservation on this memory.
+     */
+    public Memory(int numInstructions, int numCores) {
         staticDataSegmentOffset = TEXT_SEGMENT_OFFSET + numInstructions * WORD_SIZE;
         memory = new HashMap<Long, Byte>();
-        buffer = new ByteBuffer(DOUBLEWORD_SIZE);
+        monitor = new ExclusiveMonitor(numCores);
     }
 
     /**
@@ -51,16 +74,9 @@ public class Memory {
      * @throws SegmentFaultException
      */
     public long loadDoubleword(long address) throws SegmentFaultException {
-        boundsCheck(address, DOUBLEWORD_SIZE);
-        for (int i=0; i<DOUBLEWORD_SIZE; i++) {
-            Byte b = memory.get(address+i);
-            if (b == null) {
-                buffer.put(i, (byte) 0);
-            } else {
-                buffer.put(i, b);
-            }
-        }
-        return buffer.getLong(0);
+        loadBoundsCheck(address, DOUBLEWORD_SIZE);
+        notifyAccess(address, DOUBLEWORD_SIZE, false);
+        return read(address, DOUBLEWORD_SIZE);
     }
 
     /**
@@ -70,10 +86,8 @@ public class Memory {
      */
     public void storeDoubleword(long address, long value) throws SegmentFaultException {
         boundsCheck(address, DOUBLEWORD_SIZE);
-        buffer.putLong(0, value);
-        for (int i=0; i<DOUBLEWORD_SIZE; i++) {
-            memory.put(address+i, buffer.get(i));
-        }
+        notifyAccess(address, DOUBLEWORD_SIZE, true);
+        write(address, DOUBLEWORD_SIZE, value);
     }
 
     /**
@@ -82,21 +96,10 @@ public class Memory {
      * @throws SegmentFaultException
      */
     public long loadSignedWord(long address) throws SegmentFaultException {
-        boundsCheck(address, WORD_SIZE);
-        for (int i=0; i<WORD_SIZE; i++) {
-            Byte b = memory.get(address+i);
-            if (b == null) {
-                buffer.put(i+WORD_SIZE, (byte) 0);
-            } else {
-                buffer.put(i+WORD_SIZE, b);
-            }
-        }
-        // sign extend;
-        if (buffer.getInt(4) < 0) {
-            return buffer.getLong(0) | 0xffffffff00000000L;
-        } else {
-            return buffer.getLong(0) & 0x00000000ffffffffL;
-        }
+        loadBoundsCheck(address, WORD_SIZE);
+        notifyAccess(address, WORD_SIZE, false);
+        // sign extend
+        return (int) read(address, WORD_SIZE);
     }
 
     /**
@@ -106,10 +109,8 @@ public class Memory {
      */
     public void storeWord(long address, long value) throws SegmentFaultException {
         boundsCheck(address, WORD_SIZE);
-        buffer.putLong(0, value);
-        for (int i=0; i<WORD_SIZE; i++) {
-            memory.put(address+i, buffer.get(i+WORD_SIZE));
-        }
+        notifyAccess(address, WORD_SIZE, true);
+        write(address, WORD_SIZE, value);
     }
 
     /**
@@ -118,19 +119,9 @@ public class Memory {
      * @throws SegmentFaultException
      */
     public long loadHalfword(long address) throws SegmentFaultException {
-        boundsCheck(address, HALFWORD_SIZE);
-        for (int i=0; i<DOUBLEWORD_SIZE-HALFWORD_SIZE; i++) {
-            buffer.put(i, (byte) 0);
-        }
-        for (int i=0; i<HALFWORD_SIZE; i++) {
-            Byte b = memory.get(address+i);
-            if (b == null) {
-                buffer.put(i+DOUBLEWORD_SIZE-HALFWORD_SIZE, (byte) 0);
-            } else {
-                buffer.put(i+DOUBLEWORD_SIZE-HALFWORD_SIZE, b);
-            }
-        }
-        return buffer.getLong(0);
+        loadBoundsCheck(address, HALFWORD_SIZE);
+        notifyAccess(address, HALFWORD_SIZE, false);
+        return read(address, HALFWORD_SIZE);
     }
 
     /**
@@ -140,9 +131,8 @@ public class Memory {
      */
     public void storeHalfword(long address, long value) throws SegmentFaultException {
         boundsCheck(address, HALFWORD_SIZE);
-        buffer.putLong(0, value);
-        memory.put(address, buffer.get(DOUBLEWORD_SIZE-HALFWORD_SIZE));
-        memory.put(address+1, buffer.get(DOUBLEWORD_SIZE-BYTE_SIZE));
+        notifyAccess(address, HALFWORD_SIZE, true);
+        write(address, HALFWORD_SIZE, value);
     }
 
     /**
@@ -151,17 +141,9 @@ public class Memory {
      * @throws SegmentFaultException
      */
     public long loadByte(long address) throws SegmentFaultException {
-        boundsCheck(address, BYTE_SIZE);
-        for (int i=0; i<DOUBLEWORD_SIZE-BYTE_SIZE; i++) {
-            buffer.put(i, (byte) 0);
-        }
-        Byte b = memory.get(address);
-        if (b == null) {
-            buffer.put(DOUBLEWORD_SIZE-BYTE_SIZE, (byte) 0);
-        } else {
-            buffer.put(DOUBLEWORD_SIZE-BYTE_SIZE, b);
-        }
-        return buffer.getLong(0);
+        loadBoundsCheck(address, BYTE_SIZE);
+        notifyAccess(address, BYTE_SIZE, false);
+        return read(address, BYTE_SIZE);
     }
 
     /**
@@ -171,8 +153,164 @@ public class Memory {
      */
     public void storeByte(long address, long value) throws SegmentFaultException {
         boundsCheck(address, BYTE_SIZE);
-        buffer.putLong(0, value);
-        memory.put(address, buffer.get(DOUBLEWORD_SIZE-BYTE_SIZE));
+        notifyAccess(address, BYTE_SIZE, true);
+        write(address, BYTE_SIZE, value);
+    }
+
+    /**
+     * Loads a doubleword and reserves its address for <code>core</code>, as done by <code>LDXR</code>.
+     *
+     * @param core		the core performing the load
+     * @param address	the address from which to retrieve data.
+     * @return			the doubleword stored at <code>address</code>
+     * @throws SegmentFaultException
+     */
+    public long loadExclusive(int core, long address) throws SegmentFaultException {
+        boundsCheck(address, DOUBLEWORD_SIZE);
+        notifyAccess(address, DOUBLEWORD_SIZE, false);
+        return readExclusive(core, address);
+    }
+
+    /**
+     * Stores a doubleword only if <code>core</code> still holds a reservation on <code>address</code>,
+     * as done by <code>STXR</code>. Any store overlapping a reserved doubleword clears the reservation.
+     *
+     * @param core		the core performing the store
+     * @param address	the address to store data.
+     * @param value		the data to be stored at <code>address</code>.
+     * @return			<code>true</code> if the store was performed
+     * @throws SegmentFaultException
+     */
+    public boolean storeExclusive(int core, long address, long value) throws SegmentFaultException {
+        boundsCheck(address, DOUBLEWORD_SIZE);
+        if (!writeExclusive(core, address, value)) {
+            return false;
+        }
+        notifyAccess(address, DOUBLEWORD_SIZE, true);
+        return true;
+    }
+
+    /**
+     * @param address	the first byte to read, already bounds checked
+     * @param size		the number of bytes to read, at most 8
+     * @return			the bytes read as a big-endian unsigned value
+     */
+    protected long read(long address, int size) {
+        if (address < DYNAMIC_DATA_SEGMENT_OFFSET) {
+            return readText(address, size);
+        }
+        long value = 0;
+        for (int i=0; i<size; i++) {
+            value = (value << BITS_IN_BYTE) | (getByte(address+i) & 0xffL);
+        }
+        return value;
+    }
+
+    private long readText(long address, int size) {
+        long value = 0;
+        for (int i=0; i<size; i++) {
+            long offset = address + i - TEXT_SEGMENT_OFFSET;
+            int word = text[(int) (offset / WORD_SIZE)];
+            value = (value << BITS_IN_BYTE) | ((word >>> (WORD_SIZE-1-offset%WORD_SIZE)*BITS_IN_BYTE) & 0xffL);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the <code>size</code> least significant bytes of <code>value</code> big-endian and
+     * clears the exclusive reservations overlapping them.
+     *
+     * @param address	the first byte to write, already bounds checked
+     * @param size		the number of bytes to write, at most 8
+     * @param value		the data to be stored
+     */
+    protected void write(long address, int size, long value) {
+        for (int i=0; i<size; i++) {
+            putByte(address+i, (byte) (value >>> (size-1-i)*BITS_IN_BYTE));
+        }
+        monitor.clearOverlapping(address, size);
+    }
+
+    /**
+     * @param core		the core performing the load
+     * @param address	the doubleword to read and reserve, already bounds checked
+     * @return			the doubleword read
+     */
+    protected long readExclusive(int core, long address) {
+        long value = read(address, DOUBLEWORD_SIZE);
+        monitor.reserve(core, address);
+        return value;
+    }
+
+    /**
+     * @param core		the core performing the store
+     * @param address	the doubleword to write, already bounds checked
+     * @param value		the data to be stored
+     * @return			<code>true</code> if <code>core</code> held the reservation and the store was performed
+     */
+    protected boolean writeExclusive(int core, long address, long value) {
+        if (!monitor.isReserved(core, address)) {
+            return false;
+        }
+        write(address, DOUBLEWORD_SIZE, value);
+        return true;
+    }
+
+    /**
+     * @param address	the address of the byte
+     * @return			the byte stored at <code>address</code>, 0 if never written
+     */
+    protected byte getByte(long address) {
+        Byte b = memory.get(address);
+        return (b == null) ? 0 : b;
+    }
+
+    /**
+     * @param address	the address of the byte
+     * @param value		the byte to store
+     */
+    protected void putByte(long address, byte value) {
+        memory.put(address, value);
+    }
+
+    /**
+     * Registers a listener to be notified of every subsequent load and store.
+     *
+     * @param listener	the listener to notify
+     * @see MemoryAccessListener
+     */
+    public void addAccessListener(MemoryAccessListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * @return	<code>true</code> if at least one access listener has been registered
+     */
+    protected boolean hasAccessListeners() {
+        return listeners.length != 0;
+    }
+
+    /**
+     * Notifies every registered listener of a load or store.
+     *
+     * @param address		the address of the access
+     * @param figureSize	the number of bytes loaded or stored
+     * @param store			<code>true</code> for a store, <code>false</code> for a load
+     */
+    protected void notifyAccess(long address, int figureSize, boolean store) {
+        for (MemoryAccessListener listener : listeners) {
+            listener.onAccess(address, figureSize, store);
+        }
+    }
+
+    /* Loads may also read the machine code in the text segment
+     */
+    private void loadBoundsCheck(long address, int figureSize) throws SegmentFaultException {
+        if (address >= TEXT_SEGMENT_OFFSET && address <= TEXT_SEGMENT_OFFSET + (long) text.length*WORD_SIZE - figureSize) {
+            return;
+        }
+        boundsCheck(address, figureSize);
     }
 
     /* Checks to make sure the memory access is within the stack or heap segments
@@ -187,6 +325,28 @@ public class Memory {
         }
     }
 
+    /**
+     * Places the machine code of the program in the text segment, each instruction stored big-endian like
+     * the rest of memory, so the program can load it.
+     *
+     * @param words	the encoding of each instruction of the program, in order
+     * @see com.legv8.simulator.instruction.MachineCode
+     */
+    public void loadText(int[] words) {
+        text = words;
+    }
+
+    /**
+     * Erases every byte stored and drops all exclusive reservations, so that the memory can be
+     * reused by another run of the same program. Access listeners and the text segment are kept.
+     */
+    public void clear() {
+        memory.clear();
+        for (int core=0; core<monitor.getNumCores(); core++) {
+            monitor.clear(core);
+        }
+    }
+
     /**
      * @return the offset of the static data segment - calculated as the text segment offset
      * added to the size of the text segment
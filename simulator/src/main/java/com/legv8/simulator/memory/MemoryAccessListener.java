@@ -0,0 +1,18 @@
+package com.legv8.simulator.memory;
+
+/**
+ * A <code>MemoryAccessListener</code> is notified of every load and store performed on a
+ * <code>Memory</code>, after the access has passed the segment bounds check.
+ *
+ * @see Memory#addAccessListener(MemoryAccessListener)
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public interface MemoryAccessListener {
+
+    /**
+     * @param address	the first byte accessed
+     * @param size		the number of bytes accessed
+     * @param store		<code>true</code> for stores, <code>false</code> for loads
+     */
+    void onAccess(long address, int size, boolean store);
+}
@@ -0,0 +1,196 @@
+package com.legv8.simulator.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <code>MemoryProfiler</code> counts the loads and stores performed on a <code>Memory</code>
+ * per page and per cache line, without keeping any per-byte state.
+ * <p>
+ * From these counters it reports the working set of the program, how far the stack and the heap
+ * grew, and the most accessed address ranges. Loads of the program's own machine code, below the
+ * dynamic data segment, are counted apart and do not grow the heap.
+ *
+ * @see Memory#addAccessListener(MemoryAccessListener)
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class MemoryProfiler implements MemoryAccessListener {
+
+    public static final int PAGE_SIZE = 4096;
+    public static final int LINE_SIZE = 64;
+    public static final int HOTTEST_LINES = 5;
+
+    private static final int PAGE_BITS = Integer.numberOfTrailingZeros(PAGE_SIZE);
+    private static final int LINE_BITS = Integer.numberOfTrailingZeros(LINE_SIZE);
+    private static final int LINES_PER_PAGE = PAGE_SIZE / LINE_SIZE;
+
+    /*
+     * Addresses above the middle of the stack and heap region are considered to belong to the
+     * stack, which grows down from STACK_BASE; the rest belong to the heap.
+     */
+    private static final long STACK_HEAP_BOUNDARY =
+            Memory.DYNAMIC_DATA_SEGMENT_OFFSET + (Memory.STACK_BASE - Memory.DYNAMIC_DATA_SEGMENT_OFFSET) / 2;
+
+    @Override
+    public void onAccess(long address, int size, boolean store) {
+        if (store) {
+            stores++;
+            storedBytes += size;
+        } else {
+            loads++;
+            loadedBytes += size;
+        }
+        long last = address + size - 1;
+        if (address < Memory.DYNAMIC_DATA_SEGMENT_OFFSET) {
+            textLoads++;
+            textLoadedBytes += size;
+        } else if (address >= STACK_HEAP_BOUNDARY) {
+            lowestStackAddress = Math.min(lowestStackAddress, address);
+        } else {
+            highestHeapAddress = Math.max(highestHeapAddress, last);
+        }
+        for (long line = address >>> LINE_BITS; line <= last >>> LINE_BITS; line++) {
+            PageCounters page = page(line >>> (PAGE_BITS - LINE_BITS));
+            int lineInPage = (int) (line & (LINES_PER_PAGE - 1));
+            if (store) {
+                page.lineStores[lineInPage]++;
+            } else {
+                page.lineLoads[lineInPage]++;
+            }
+        }
+    }
+
+    private PageCounters page(long pageNumber) {
+        if (lastPage == null || lastPageNumber != pageNumber) {
+            lastPage = pages.computeIfAbsent(pageNumber, p -> new PageCounters());
+            lastPageNumber = pageNumber;
+        }
+        return lastPage;
+    }
+
+    /**
+     * @return	the number of load operations observed
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * @return	the number of store operations observed
+     */
+    public long getStores() {
+        return stores;
+    }
+
+    /**
+     * @return	the number of loads from the text segment, which are included in <code>getLoads()</code>
+     */
+    public long getTextLoads() {
+        return textLoads;
+    }
+
+    /**
+     * @return	the number of distinct pages accessed
+     */
+    public int getTouchedPages() {
+        return pages.size();
+    }
+
+    /**
+     * @return	the number of distinct cache lines accessed
+     */
+    public int getTouchedLines() {
+        int lines = 0;
+        for (PageCounters page : pages.values()) {
+            for (int i=0; i<LINES_PER_PAGE; i++) {
+                if (page.lineLoads[i] != 0 || page.lineStores[i] != 0) {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @return	the number of bytes between the top of the stack and the lowest stack address accessed
+     */
+    public long getPeakStackBytes() {
+        return (lowestStackAddress == Long.MAX_VALUE) ? 0 : Memory.STACK_BASE - lowestStackAddress;
+    }
+
+    /**
+     * @return	the number of bytes between the start of the heap and the highest heap address accessed
+     */
+    public long getPeakHeapBytes() {
+        return (highestHeapAddress == Long.MIN_VALUE) ? 0 : highestHeapAddress + 1 - Memory.DYNAMIC_DATA_SEGMENT_OFFSET;
+    }
+
+    /**
+     * @param count	the maximum number of lines to return
+     * @return		the base addresses of the most accessed cache lines, hottest first
+     */
+    public List<Long> getHottestLines(int count) {
+        List<long[]> lines = new ArrayList<>();
+        for (var entry : pages.entrySet()) {
+            PageCounters page = entry.getValue();
+            for (int i=0; i<LINES_PER_PAGE; i++) {
+                long accesses = (long) page.lineLoads[i] + page.lineStores[i];
+                if (accesses != 0) {
+                    lines.add(new long[] {((entry.getKey() << PAGE_BITS) | ((long) i << LINE_BITS)), accesses});
+                }
+            }
+        }
+        lines.sort((a, b) -> (a[1] != b[1]) ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]));
+        List<Long> hottest = new ArrayList<>();
+        for (int i=0; i<Math.min(count, lines.size()); i++) {
+            hottest.add(lines.get(i)[0]);
+        }
+        return hottest;
+    }
+
+    @Override
+    public String toString() {
+        String ret = "Memory profile:";
+        ret += "\nLoads: " + loads + " (" + loadedBytes + " bytes), stores: " + stores + " (" + storedBytes + " bytes)";
+        if (textLoads != 0) {
+            ret += "\nText segment loads: " + textLoads + " (" + textLoadedBytes + " bytes)";
+        }
+        int touchedLines = getTouchedLines();
+        ret += "\nWorking set: " + touchedLines + " cache lines of " + LINE_SIZE + " bytes ("
+                + (long) touchedLines * LINE_SIZE + " bytes), " + pages.size() + " pages of " + PAGE_SIZE + " bytes";
+        ret += "\nPeak stack usage: " + getPeakStackBytes() + " bytes";
+        ret += "\nPeak heap usage: " + getPeakHeapBytes() + " bytes";
+        List<Long> hottest = getHottestLines(HOTTEST_LINES);
+        if (!hottest.isEmpty()) {
+            ret += "\nHottest address ranges:";
+            for (long base : hottest) {
+                PageCounters page = pages.get(base >>> PAGE_BITS);
+                int line = (int) ((base >>> LINE_BITS) & (LINES_PER_PAGE - 1));
+                ret += "\n0x" + Long.toHexString(base) + " - 0x" + Long.toHexString(base + LINE_SIZE - 1)
+                        + ": " + page.lineLoads[line] + " loads, " + page.lineStores[line] + " stores";
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * Access counters for each cache line of a page.
+     */
+    private static class PageCounters {
+        final int[] lineLoads = new int[LINES_PER_PAGE];
+        final int[] lineStores = new int[LINES_PER_PAGE];
+    }
+
+    private final HashMap<Long, PageCounters> pages = new HashMap<>();
+    private PageCounters lastPage = null;
+    private long lastPageNumber;
+    private long loads = 0;
+    private long stores = 0;
+    private long loadedBytes = 0;
+    private long storedBytes = 0;
+    private long textLoads = 0;
+    private long textLoadedBytes = 0;
+    private long lowestStackAddress = Long.MAX_VALUE;
+    private long highestHeapAddress = Long.MIN_VALUE;
+}
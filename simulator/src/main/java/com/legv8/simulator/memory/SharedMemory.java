@@ -0,0 +1,148 @@
+package com.legv8.simulator.memory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <code>SharedMemory</code> is a <code>Memory</code> that can be accessed concurrently by several
+ * <code>CPU</code>s, each running on its own thread.
+ * <p>
+ * Data is kept in pages stored in a <code>ConcurrentHashMap</code>, and every access locks only the
+ * stripes covering the doublewords it touches, so cores working on different data do not contend.
+ * Aligned accesses are atomic, and a store clears the overlapping exclusive reservations of every
+ * core while holding the same locks, so an <code>STXR</code> can never succeed after a conflicting
+ * store from another core.
+ * <p>
+ * Access listeners are notified one at a time, so they do not need to be thread safe.
+ *
+ * @see ExclusiveMonitor
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class SharedMemory extends Memory {
+
+    public static final int PAGE_SIZE = 4096;
+    public static final int LOCK_STRIPES = 256;
+
+    private static final int PAGE_BITS = Integer.numberOfTrailingZeros(PAGE_SIZE);
+    private static final int GRANULE_BITS = Integer.numberOfTrailingZeros(DOUBLEWORD_SIZE);
+
+    /**
+     * @param numInstructions	the number of instructions in the LEGv8 program being executed
+     * @param numCores			the number of cores sharing this memory
+     */
+    public SharedMemory(int numInstructions, int numCores) {
+        super(numInstructions, numCores);
+        locks = new Object[LOCK_STRIPES];
+        for (int i=0; i<LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    protected long read(long address, int size) {
+        Object first = firstLock(address, size);
+        Object second = secondLock(address, size);
+        synchronized (first) {
+            synchronized (second) {
+                return super.read(address, size);
+            }
+        }
+    }
+
+    @Override
+    protected void write(long address, int size, long value) {
+        Object first = firstLock(address, size);
+        Object second = secondLock(address, size);
+        synchronized (first) {
+            synchronized (second) {
+                super.write(address, size, value);
+            }
+        }
+    }
+
+    @Override
+    protected long readExclusive(int core, long address) {
+        Object first = firstLock(address, DOUBLEWORD_SIZE);
+        Object second = secondLock(address, DOUBLEWORD_SIZE);
+        synchronized (first) {
+            synchronized (second) {
+                return super.readExclusive(core, address);
+            }
+        }
+    }
+
+    @Override
+    protected boolean writeExclusive(int core, long address, long value) {
+        Object first = firstLock(address, DOUBLEWORD_SIZE);
+        Object second = secondLock(address, DOUBLEWORD_SIZE);
+        synchronized (first) {
+            synchronized (second) {
+                return super.writeExclusive(core, address, value);
+            }
+        }
+    }
+
+    @Override
+    protected byte getByte(long address) {
+        byte[] page = pages.get(address >>> PAGE_BITS);
+        return (page == null) ? 0 : page[(int) (address & (PAGE_SIZE - 1))];
+    }
+
+    @Override
+    protected void putByte(long address, byte value) {
+        pages.computeIfAbsent(address >>> PAGE_BITS, p -> new byte[PAGE_SIZE])[(int) (address & (PAGE_SIZE - 1))] = value;
+    }
+
+    @Override
+    protected void notifyAccess(long address, int figureSize, boolean store) {
+        if (hasAccessListeners()) {
+            synchronized (listenerLock) {
+                super.notifyAccess(address, figureSize, store);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        pages.clear();
+        super.clear();
+    }
+
+    /*
+     * An access of at most 8 bytes spans one or two doublewords. Their stripes are always locked
+     * lowest index first so that two accesses can never wait for each other.
+     */
+    private Object firstLock(long address, int size) {
+        return locks[Math.min(stripe(address), stripe(address + size - 1))];
+    }
+
+    private Object secondLock(long address, int size) {
+        return locks[Math.max(stripe(address), stripe(address + size - 1))];
+    }
+
+    private static int stripe(long address) {
+        long granule = address >>> GRANULE_BITS;
+        return (int) (granule ^ (granule >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    /**
+     * Only the bytes holding a non-zero value are listed, as pages do not record which bytes were written.
+     */
+    @Override
+    public String toString() {
+        Map<Long, Byte> bytes = new TreeMap<>();
+        pages.forEach((pageNumber, page) -> {
+            for (int i=0; i<PAGE_SIZE; i++) {
+                if (page[i] != 0) {
+                    bytes.put((pageNumber << PAGE_BITS) | i, page[i]);
+                }
+            }
+        });
+        return "Memory" + bytes;
+    }
+
+    private final ConcurrentHashMap<Long, byte[]> pages = new ConcurrentHashMap<>();
+    private final Object[] locks;
+    private final Object listenerLock = new Object();
+}
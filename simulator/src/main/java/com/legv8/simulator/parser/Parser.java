@@ -8,8 +8,13 @@ import java.util.ArrayList;
 
 /**
  * <code>Parser</code> is used to test the legality of LEGv8 source code token sequences.
+ * <p>
+ * Lines are parsed with a table of the next <code>ParserState</code> for each state and token type, built once
+ * from <code>ParserState.transition()</code>. Only a token the table does not accept is passed to the
+ * transition of its state, which throws the exception the error message is built from.
  *
  * @author Jonathan Wright, 2016
+ * @author Rodrigo Bautista Hernández, 2026
  */
 public class Parser {
 
@@ -19,17 +24,21 @@ public class Parser {
      */
     public static String parseLine(ArrayList<Token> tokens) {
         ParserState currentParserState = ParserState.INIT;
-        int i=0;
-        try {
-            for (i=0; i<tokens.size(); i++) {
-                currentParserState = currentParserState.transition(tokens.get(i));
+        for (int i=0; i<tokens.size(); i++) {
+            Token token = tokens.get(i);
+            ParserState next = TRANSITIONS[currentParserState.ordinal()][token.getType().ordinal()];
+            if (next == null) {
+                try {
+                    next = currentParserState.transition(token);
+                } catch (UnsupportedInstructionException uie) {
+                    return handleUnsupportedInstructionException(uie, currentParserState, tokens, i);
+                } catch (InvalidTokenException ite) {
+                    return handleInvalidTokenException(ite, currentParserState, tokens, i);
+                } catch (UnexpectedTokenException ute) {
+                    return unexpectedTokenMsg(token);
+                }
             }
-        } catch (UnsupportedInstructionException uie) {
-            return handleUnsupportedInstructionException(uie, currentParserState, tokens, i);
-        } catch (InvalidTokenException ite) {
-            return handleInvalidTokenException(ite, currentParserState, tokens, i);
-        } catch (UnexpectedTokenException ute) {
-            return unexpectedTokenMsg(tokens.get(i));
+            currentParserState = next;
         }
         if (currentParserState.accepting) {
             return null;
@@ -38,6 +47,35 @@ public class Parser {
         }
     }
 
+    /*
+     * TRANSITIONS[state][token type] is the next state, or null when the token is rejected. It is also null
+     * when the transition depends on the text of the token and not only its type, as LSL in a MOVZ does.
+     */
+    private static final ParserState[][] TRANSITIONS = buildTransitions();
+
+    private static ParserState[][] buildTransitions() {
+        ParserState[] states = ParserState.values();
+        TokenType[] types = TokenType.values();
+        ParserState[][] transitions = new ParserState[states.length][types.length];
+        for (ParserState state : states) {
+            for (TokenType type : types) {
+                ParserState next = transitionOrNull(state, new Token(type, ""));
+                if (next != null && next == transitionOrNull(state, new Token(type, Mnemonic.LSL.nameUpper + " "))) {
+                    transitions[state.ordinal()][type.ordinal()] = next;
+                }
+            }
+        }
+        return transitions;
+    }
+
+    private static ParserState transitionOrNull(ParserState state, Token token) {
+        try {
+            return state.transition(token);
+        } catch (UnsupportedInstructionException | InvalidTokenException | UnexpectedTokenException e) {
+            return null;
+        }
+    }
+
     /*
      * The methods below return error messages detailing why parsing failed.
      * In order to provide correct error messages with sufficient detail, a number of corner cases have to be handled.
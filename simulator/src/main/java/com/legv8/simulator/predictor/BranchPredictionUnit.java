@@ -0,0 +1,128 @@
+package com.legv8.simulator.predictor;
+
+import com.legv8.simulator.cpu.CPU;
+import com.legv8.simulator.instruction.Instruction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The <code>BranchPredictionUnit</code> is fed every branch executed by the <code>CPU</code>.
+ * Conditional branches are checked against a <code>BranchPredictor</code> and indirect branches
+ * against a <code>BranchTargetBuffer</code>.
+ * <p>
+ * Executions, taken counts and mispredictions are kept per branch instruction in primitive arrays
+ * indexed by instruction index.
+ *
+ * @see CPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class BranchPredictionUnit {
+
+    public static final int REPORTED_BRANCHES = 10;
+
+    /**
+     * @param predictor			the direction predictor for conditional branches
+     * @param numInstructions	the number of instructions in the program being executed
+     */
+    public BranchPredictionUnit(BranchPredictor predictor, int numInstructions) {
+        this.predictor = predictor;
+        btb = new BranchTargetBuffer(BranchTargetBuffer.DEFAULT_ENTRY_BITS);
+        executions = new long[numInstructions];
+        taken = new long[numInstructions];
+        mispredictions = new long[numInstructions];
+    }
+
+    /**
+     * @param index			the index of the conditional branch executed
+     * @param branchTaken	<code>true</code> if the branch was taken
+     */
+    public void conditional(int index, boolean branchTaken) {
+        boolean prediction = predictor.predict(index);
+        predictor.update(index, branchTaken);
+        conditionalBranches++;
+        executions[index]++;
+        if (branchTaken) {
+            taken[index]++;
+        }
+        if (prediction != branchTaken) {
+            conditionalMispredictions++;
+            mispredictions[index]++;
+        }
+    }
+
+    /**
+     * @param index		the index of the indirect branch executed
+     * @param target	the index of the instruction the branch jumped to
+     */
+    public void indirect(int index, int target) {
+        int prediction = btb.predict(index);
+        btb.update(index, target);
+        indirectBranches++;
+        executions[index]++;
+        taken[index]++;
+        if (prediction != target) {
+            indirectMispredictions++;
+            mispredictions[index]++;
+        }
+    }
+
+    /**
+     * @return	the number of conditional branches executed
+     */
+    public long getConditionalBranches() {
+        return conditionalBranches;
+    }
+
+    /**
+     * @return	the number of conditional branches whose direction was mispredicted
+     */
+    public long getConditionalMispredictions() {
+        return conditionalMispredictions;
+    }
+
+    /**
+     * @param instructions	the instructions of the executed program
+     * @return				the overall and per-branch misprediction rates
+     */
+    public String getReport(ArrayList<Instruction> instructions) {
+        String ret = "Branch prediction (" + predictor.getName() + "):";
+        ret += "\nConditional branches: " + conditionalBranches + ", mispredicted: "
+                + conditionalMispredictions + " (" + percentage(conditionalMispredictions, conditionalBranches) + "%)";
+        ret += "\nIndirect branches (BTB, " + btb.getSize() + " entries): " + indirectBranches + ", mispredicted: "
+                + indirectMispredictions + " (" + percentage(indirectMispredictions, indirectBranches) + "%)";
+        List<Integer> branches = new ArrayList<>();
+        for (int i=0; i<executions.length; i++) {
+            if (executions[i] != 0) {
+                branches.add(i);
+            }
+        }
+        branches.sort((a, b) -> (mispredictions[a] != mispredictions[b])
+                ? Long.compare(mispredictions[b], mispredictions[a]) : Integer.compare(a, b));
+        if (!branches.isEmpty()) {
+            ret += "\nPer branch:";
+        }
+        for (int i=0; i<Math.min(REPORTED_BRANCHES, branches.size()); i++) {
+            int index = branches.get(i);
+            Instruction ins = instructions.get(index);
+            ret += "\nline " + (ins.getLineNumber() + 1) + ":\t" + ins.getMnemonic().nameUpper + "\t"
+                    + executions[index] + " executed, " + percentage(taken[index], executions[index]) + "% taken, "
+                    + mispredictions[index] + " mispredicted (" + percentage(mispredictions[index], executions[index]) + "%)";
+        }
+        return ret;
+    }
+
+    private static String percentage(long part, long total) {
+        return String.format("%.1f", (total == 0) ? 0.0 : 100.0 * part / total);
+    }
+
+    private final BranchPredictor predictor;
+    private final BranchTargetBuffer btb;
+    private final long[] executions;
+    private final long[] taken;
+    private final long[] mispredictions;
+    private long conditionalBranches = 0;
+    private long conditionalMispredictions = 0;
+    private long indirectBranches = 0;
+    private long indirectMispredictions = 0;
+}
@@ -0,0 +1,51 @@
+package com.legv8.simulator.predictor;
+
+import java.util.Locale;
+
+/**
+ * A <code>BranchPredictor</code> predicts the direction of conditional branches from the index of
+ * the branch instruction and is then told the actual outcome.
+ *
+ * @see BranchPredictionUnit
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public interface BranchPredictor {
+
+    int DEFAULT_TABLE_BITS = 12;
+    int DEFAULT_HISTORY_BITS = 12;
+
+    /**
+     * @param index	the index of the conditional branch instruction
+     * @return		<code>true</code> if the branch is predicted taken
+     */
+    boolean predict(int index);
+
+    /**
+     * @param index	the index of the conditional branch instruction
+     * @param taken	the actual outcome of the branch
+     */
+    void update(int index, boolean taken);
+
+    /**
+     * @return	a short description of this predictor for reports
+     */
+    String getName();
+
+    /**
+     * @param name	one of <code>not-taken</code>, <code>1bit</code>, <code>2bit</code> or
+     * 				<code>gshare</code>, optionally followed by <code>:historyBits</code> for gshare
+     * @return		the predictor with the specified <code>name</code>
+     * @throws IllegalArgumentException if the name is not recognised
+     */
+    static BranchPredictor fromString(String name) {
+        String[] parts = name.trim().toLowerCase(Locale.ROOT).split(":");
+        return switch (parts[0]) {
+            case "not-taken", "static" -> new StaticNotTakenPredictor();
+            case "1bit", "1-bit" -> new OneBitPredictor(DEFAULT_TABLE_BITS);
+            case "2bit", "2-bit" -> new TwoBitPredictor(DEFAULT_TABLE_BITS);
+            case "gshare" -> new GSharePredictor(DEFAULT_TABLE_BITS,
+                    (parts.length > 1) ? Integer.parseInt(parts[1]) : DEFAULT_HISTORY_BITS);
+            default -> throw new IllegalArgumentException(name + " branch predictor does not exist");
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.legv8.simulator.predictor;
+
+import java.util.Arrays;
+
+/**
+ * The <code>BranchTargetBuffer</code> predicts the target of indirect branches (<code>BR</code>)
+ * as the target they jumped to the last time. It is direct-mapped on the branch index, with
+ * tags and targets held in <code>int</code> arrays.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class BranchTargetBuffer {
+
+    public static final int DEFAULT_ENTRY_BITS = 9;
+
+    /**
+     * @param entryBits	the log2 of the number of entries
+     */
+    public BranchTargetBuffer(int entryBits) {
+        tags = new int[1 << entryBits];
+        targets = new int[tags.length];
+        mask = tags.length - 1;
+        Arrays.fill(tags, -1);
+    }
+
+    /**
+     * @param index	the index of the indirect branch instruction
+     * @return		the predicted target instruction index, <code>-1</code> if the branch is not in the buffer
+     */
+    public int predict(int index) {
+        int i = index & mask;
+        return (tags[i] == index) ? targets[i] : -1;
+    }
+
+    /**
+     * @param index		the index of the indirect branch instruction
+     * @param target	the instruction index the branch actually jumped to
+     */
+    public void update(int index, int target) {
+        int i = index & mask;
+        tags[i] = index;
+        targets[i] = target;
+    }
+
+    /**
+     * @return	the number of entries in this buffer
+     */
+    public int getSize() {
+        return tags.length;
+    }
+
+    private final int[] tags;
+    private final int[] targets;
+    private final int mask;
+}
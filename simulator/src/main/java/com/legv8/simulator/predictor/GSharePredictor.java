@@ -0,0 +1,54 @@
+package com.legv8.simulator.predictor;
+
+import java.util.Arrays;
+
+/**
+ * Predicts branches with 2-bit saturating counters indexed by the branch index XORed with
+ * a register holding the outcomes of the most recent conditional branches.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class GSharePredictor implements BranchPredictor {
+
+    /**
+     * @param tableBits		the log2 of the number of counters
+     * @param historyBits	the number of recent branch outcomes kept in the global history
+     */
+    public GSharePredictor(int tableBits, int historyBits) {
+        if (historyBits < 0 || historyBits > 30) {
+            throw new IllegalArgumentException("gshare history length must be between 0 and 30, found " + historyBits);
+        }
+        counters = new byte[1 << tableBits];
+        mask = counters.length - 1;
+        this.historyBits = historyBits;
+        historyMask = (1 << historyBits) - 1;
+        Arrays.fill(counters, (byte) 1);
+    }
+
+    @Override
+    public boolean predict(int index) {
+        return counters[(index ^ history) & mask] >= 2;
+    }
+
+    @Override
+    public void update(int index, boolean taken) {
+        int i = (index ^ history) & mask;
+        if (taken) {
+            if (counters[i] < 3) counters[i]++;
+        } else {
+            if (counters[i] > 0) counters[i]--;
+        }
+        history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+    }
+
+    @Override
+    public String getName() {
+        return "gshare, " + counters.length + " entries, " + historyBits + " bits of history";
+    }
+
+    private final byte[] counters;
+    private final int mask;
+    private final int historyBits;
+    private final int historyMask;
+    private int history = 0;
+}
@@ -0,0 +1,36 @@
+package com.legv8.simulator.predictor;
+
+/**
+ * Predicts that each branch goes the same way as the last time it was executed.
+ * Outcomes are kept in a table indexed by the low bits of the branch index.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class OneBitPredictor implements BranchPredictor {
+
+    /**
+     * @param tableBits	the log2 of the number of table entries
+     */
+    public OneBitPredictor(int tableBits) {
+        table = new boolean[1 << tableBits];
+        mask = table.length - 1;
+    }
+
+    @Override
+    public boolean predict(int index) {
+        return table[index & mask];
+    }
+
+    @Override
+    public void update(int index, boolean taken) {
+        table[index & mask] = taken;
+    }
+
+    @Override
+    public String getName() {
+        return "1-bit, " + table.length + " entries";
+    }
+
+    private final boolean[] table;
+    private final int mask;
+}
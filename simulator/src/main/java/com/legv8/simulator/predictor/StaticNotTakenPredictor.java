@@ -0,0 +1,23 @@
+package com.legv8.simulator.predictor;
+
+/**
+ * Predicts every conditional branch as not taken.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class StaticNotTakenPredictor implements BranchPredictor {
+
+    @Override
+    public boolean predict(int index) {
+        return false;
+    }
+
+    @Override
+    public void update(int index, boolean taken) {
+    }
+
+    @Override
+    public String getName() {
+        return "static not-taken";
+    }
+}
@@ -0,0 +1,44 @@
+package com.legv8.simulator.predictor;
+
+import java.util.Arrays;
+
+/**
+ * Predicts branches with 2-bit saturating counters, so a branch has to go against the
+ * prediction twice in a row before the prediction changes. Counters start weakly not taken.
+ *
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TwoBitPredictor implements BranchPredictor {
+
+    /**
+     * @param tableBits	the log2 of the number of counters
+     */
+    public TwoBitPredictor(int tableBits) {
+        counters = new byte[1 << tableBits];
+        mask = counters.length - 1;
+        Arrays.fill(counters, (byte) 1);
+    }
+
+    @Override
+    public boolean predict(int index) {
+        return counters[index & mask] >= 2;
+    }
+
+    @Override
+    public void update(int index, boolean taken) {
+        int i = index & mask;
+        if (taken) {
+            if (counters[i] < 3) counters[i]++;
+        } else {
+            if (counters[i] > 0) counters[i]--;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "2-bit saturating, " + counters.length + " entries";
+    }
+
+    private final byte[] counters;
+    private final int mask;
+}
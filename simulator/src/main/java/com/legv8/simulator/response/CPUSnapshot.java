@@ -2,6 +2,8 @@ package com.legv8.simulator.response;
 
 import com.legv8.simulator.cpu.CPU;
 
+import java.util.Locale;
+
 /**
  * <code>CPUSnpashot</code> provides a deep copy of the <code>CPU</code> state for use in the pipeline simulator.
  *
@@ -25,6 +27,8 @@ public class CPUSnapshot {
 
     private long startTime;
     private long endTime;
+    private long cycles;
+    private long instructionCount;
 
     /**
      * @param cpu	the <code>CPU</code> whose state is to be copied
@@ -39,6 +43,8 @@ public class CPUSnapshot {
         Vflag = cpu.getVflag();
         startTime = cpu.getStartTime();
         endTime = cpu.getEndTime();
+        cycles = cpu.getCycles();
+        instructionCount = cpu.getInstructionCount();
     }
 
     /**
@@ -85,8 +91,35 @@ public class CPUSnapshot {
         return (endTime - startTime);
     }
 
+    /**
+     * @return	the number of simulated cycles taken by the program
+     */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return	the number of instructions executed
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * @return	the average number of simulated cycles per instruction, 0 if no instruction was executed
+     */
+    public double getCPI() {
+        return (instructionCount == 0) ? 0 : (double) cycles / instructionCount;
+    }
+
     public String getRunTimeString() {
-        return "\nRuntime in milliseconds: " + this.getTotalMillis() + "ms";
+        return "\nRuntime in milliseconds: " + this.getTotalMillis() + "ms" + getTimingString();
+    }
+
+    private String getTimingString() {
+        return "\nSimulated cycles: " + cycles
+                + "\nInstructions executed: " + instructionCount
+                + "\nCPI: " + String.format(Locale.ROOT, "%.2f", getCPI());
     }
 
     @Override
@@ -98,6 +131,7 @@ public class CPUSnapshot {
         }
 
         ret += "\nRuntime in milliseconds: " + this.getTotalMillis() + "ms";
+        ret += getTimingString();
 
         return ret;
     }
@@ -0,0 +1,74 @@
+package com.legv8.simulator.response;
+
+import com.legv8.simulator.cpu.ExecutionCoverage;
+import com.legv8.simulator.instruction.Instruction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>CoverageReport</code> describes which source lines of a program were executed in a run.
+ *
+ * @see ExecutionCoverage
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class CoverageReport {
+
+    /**
+     * @param instructions	the instructions of the executed program
+     * @param coverage		the instructions marked as executed by the <code>CPU</code>
+     */
+    public CoverageReport(ArrayList<Instruction> instructions, ExecutionCoverage coverage) {
+        totalInstructions = instructions.size();
+        for (int i=0; i<instructions.size(); i++) {
+            if (coverage.isExecuted(i)) {
+                executedInstructions++;
+            } else {
+                Instruction ins = instructions.get(i);
+                neverExecuted.add("line " + (ins.getLineNumber() + 1) + ":\t" + ins.getMnemonic().nameUpper);
+            }
+        }
+    }
+
+    /**
+     * @return	the number of instructions in the program
+     */
+    public int getTotalInstructions() {
+        return totalInstructions;
+    }
+
+    /**
+     * @return	the number of instructions executed at least once
+     */
+    public int getExecutedInstructions() {
+        return executedInstructions;
+    }
+
+    /**
+     * @return	the percentage of instructions executed at least once
+     */
+    public double getPercentage() {
+        return (totalInstructions == 0) ? 100.0 : 100.0 * executedInstructions / totalInstructions;
+    }
+
+    /**
+     * @return	the source lines whose instruction was never executed, in line order
+     */
+    public List<String> getNeverExecuted() {
+        return neverExecuted;
+    }
+
+    @Override
+    public String toString() {
+        String ret = "Coverage: " + executedInstructions + "/" + totalInstructions + " instructions executed ("
+                + String.format("%.1f", getPercentage()) + "%)";
+        if (!neverExecuted.isEmpty()) {
+            ret += "\nNever executed:\n" + String.join("\n", neverExecuted);
+        }
+        return ret;
+    }
+
+    private final int totalInstructions;
+    private int executedInstructions = 0;
+    private final List<String> neverExecuted = new ArrayList<>();
+}
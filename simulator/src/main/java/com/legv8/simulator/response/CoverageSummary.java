@@ -0,0 +1,47 @@
+package com.legv8.simulator.response;
+
+/**
+ * <code>CoverageSummary</code> aggregates the <code>CoverageReport</code>s of every program in a bulk run.
+ *
+ * @see CoverageReport
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class CoverageSummary {
+
+    /**
+     * @param report	the coverage of one more program in the bulk run
+     */
+    public void add(CoverageReport report) {
+        programs++;
+        totalInstructions += report.getTotalInstructions();
+        executedInstructions += report.getExecutedInstructions();
+        if (report.getExecutedInstructions() == report.getTotalInstructions()) {
+            fullyCovered++;
+        }
+        percentageSum += report.getPercentage();
+    }
+
+    /**
+     * @return	the number of programs added to this summary
+     */
+    public int getPrograms() {
+        return programs;
+    }
+
+    @Override
+    public String toString() {
+        double overall = (totalInstructions == 0) ? 100.0 : 100.0 * executedInstructions / totalInstructions;
+        double average = (programs == 0) ? 0.0 : percentageSum / programs;
+        return "=== Coverage summary ===\nPrograms: " + programs
+                + "\nInstructions executed: " + executedInstructions + "/" + totalInstructions
+                + " (" + String.format("%.1f", overall) + "%)"
+                + "\nAverage coverage per program: " + String.format("%.1f", average) + "%"
+                + "\nPrograms fully covered: " + fullyCovered;
+    }
+
+    private int programs = 0;
+    private long totalInstructions = 0;
+    private long executedInstructions = 0;
+    private int fullyCovered = 0;
+    private double percentageSum = 0.0;
+}
@@ -1,5 +1,7 @@
 package com.legv8.simulator.response;
 
+import java.util.List;
+
 /**
  * Generic class to hold runtime and compile time errors with their messages to be displayed to the user.
  *
@@ -30,6 +32,21 @@ public class LineError {
         return lineNumber;
     }
 
+    /**
+     * @return	the instructions executed before a runtime error, oldest first;
+     * 			empty if no history was recorded
+     */
+    public List<String> getExecutionHistory() {
+        return executionHistory;
+    }
+
+    /**
+     * @param executionHistory	the instructions executed before a runtime error, oldest first
+     */
+    public void setExecutionHistory(List<String> executionHistory) {
+        this.executionHistory = executionHistory;
+    }
+
     @Override
     public String toString() {
         return "Line " + lineNumber + ": " + errorMsg;
@@ -38,4 +55,5 @@ public class LineError {
 
     private String errorMsg;
     private int lineNumber;
+    private List<String> executionHistory = List.of();
 }
@@ -0,0 +1,52 @@
+package com.legv8.simulator.response;
+
+import java.util.List;
+
+/**
+ * <code>TestCaseResult</code> is the outcome of running one <code>TestCase</code>: the result of the
+ * run and every expectation that did not hold.
+ *
+ * @see com.legv8.simulator.execution.TestCase
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TestCaseResult {
+
+    /**
+     * @param name		the name of the case
+     * @param result	the result of the run
+     * @param failures	a description of every expectation that did not hold, empty if the case passed
+     */
+    public TestCaseResult(String name, ResultWrapper<CPUSnapshot, LineError> result, List<String> failures) {
+        this.name = name;
+        this.result = result;
+        this.failures = failures;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ResultWrapper<CPUSnapshot, LineError> getResult() {
+        return result;
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    public boolean isPassed() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (isPassed()) {
+            return "Case " + name + ": PASSED.";
+        }
+        return "Case " + name + ": FAILED. " + String.join("; ", failures);
+    }
+
+    private final String name;
+    private final ResultWrapper<CPUSnapshot, LineError> result;
+    private final List<String> failures;
+}
@@ -0,0 +1,101 @@
+package com.legv8.simulator.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>DaemonClient</code> sends a command line to a running <code>SimulationDaemon</code> and prints
+ * what it answers, exiting with the same status. It takes the same arguments as the simulator itself,
+ * preceded by <code>--socket=&lt;path&gt;</code> when the daemon does not listen on the default socket.
+ * <p>
+ * The client does not start Spring, so it can be run straight from the jar:
+ * <pre>
+ * java -cp simulador-legv8.jar -Dloader.main=com.legv8.simulator.server.DaemonClient \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher program.s false true expected.txt true out.txt
+ * </pre>
+ *
+ * @see SimulationDaemon
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class DaemonClient {
+
+    public static final String DEFAULT_SOCKET = "legv8-simulator.sock";
+
+    public static void main(String[] args) {
+        Path socket = Path.of(System.getProperty("java.io.tmpdir"), DEFAULT_SOCKET);
+        List<String> arguments = new ArrayList<>();
+        for (String argument : args) {
+            if (argument.startsWith("--socket=")) {
+                socket = Path.of(argument.substring(9));
+            } else {
+                arguments.add(argument);
+            }
+        }
+        try {
+            System.exit(run(socket, arguments, System.out, System.err));
+        } catch (IOException e) {
+            System.err.println("Error contacting the simulator daemon at " + socket + ": " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * @param socket	the socket the daemon listens on
+     * @param arguments	the command line to run, relative paths being relative to the current directory
+     * @param out		where to print the standard output of the command
+     * @param err		where to print the standard error of the command
+     * @return			the exit status of the command
+     * @throws IOException if the daemon cannot be reached or closes the connection early
+     */
+    public static int run(Path socket, List<String> arguments, PrintStream out, PrintStream err) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            request.writeUTF(Path.of("").toAbsolutePath().toString());
+            request.writeInt(arguments.size());
+            for (String argument : arguments) {
+                request.writeUTF(argument);
+            }
+            request.flush();
+
+            DataInputStream response = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte type;
+                try {
+                    type = response.readByte();
+                } catch (EOFException e) {
+                    throw new IOException("The daemon closed the connection before the command finished");
+                }
+                int length = response.readInt();
+                if (type == SimulationDaemon.EXIT) {
+                    out.flush();
+                    err.flush();
+                    return length;
+                }
+                PrintStream stream = (type == SimulationDaemon.STDERR) ? err : out;
+                while (length > 0) {
+                    int read = response.read(buffer, 0, Math.min(length, buffer.length));
+                    if (read == -1) {
+                        throw new IOException("The daemon closed the connection before the command finished");
+                    }
+                    stream.write(buffer, 0, read);
+                    length -= read;
+                }
+                stream.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.legv8.simulator.server;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * <code>SimulationDaemon</code> keeps one JVM running and executes the command lines sent to it by
+ * <code>DaemonClient</code> over a Unix domain socket, so that a script calling the simulator many
+ * times only pays the start-up of the JVM once.
+ * <p>
+ * A request is the working directory of the client followed by its arguments. Everything the command
+ * prints to <code>System.out</code> and <code>System.err</code> while it runs is sent back to the client
+ * that asked for it, in frames of a type byte, a length and the bytes, and a last frame holds the exit
+ * status. Commands of different clients run at the same time on a fixed number of threads.
+ * <p>
+ * Programs run by the daemon have no console input, so <code>SVC #1</code> finds no more input to read.
+ *
+ * @see DaemonClient
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class SimulationDaemon {
+
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    /**
+     * @param socket	the path of the socket file
+     * @param threads	the number of commands run at the same time
+     * @param command	runs the arguments of a request, resolving relative paths against the working directory
+     */
+    public SimulationDaemon(Path socket, int threads, BiConsumer<Path, String[]> command) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The daemon needs at least 1 thread");
+        }
+        this.socket = socket;
+        this.threads = threads;
+        this.command = command;
+    }
+
+    /**
+     * Binds the socket and starts accepting clients on a new thread, which keeps the JVM alive until
+     * <code>stop()</code> is called. A socket file left behind by a daemon that is no longer running is replaced.
+     *
+     * @throws IOException if another daemon is listening on the socket or it cannot be bound
+     */
+    public void start() throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+        if (Files.exists(socket)) {
+            if (isListening(address)) {
+                throw new IOException("A daemon is already listening on " + socket);
+            }
+            Files.delete(socket);
+        }
+        channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(address);
+
+        System.setOut(new PrintStream(new RoutedOutputStream(System.out, STDOUT), true));
+        System.setErr(new PrintStream(new RoutedOutputStream(System.err, STDERR), true));
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> new Thread(r, "legv8-daemon-" + threadNumber.incrementAndGet()));
+        Thread acceptor = new Thread(this::accept, "legv8-daemon-accept");
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting clients, lets the running commands finish and removes the socket file.
+     */
+    public void stop() {
+        try {
+            channel.close();
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            // Nothing left to clean up
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * @return	the number of commands run so far
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    private static boolean isListening(UnixDomainSocketAddress address) {
+        try {
+            SocketChannel.open(address).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void accept() {
+        while (channel.isOpen()) {
+            try {
+                SocketChannel client = channel.accept();
+                executor.execute(() -> handle(client));
+            } catch (IOException e) {
+                // The channel was closed by stop()
+            }
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(client));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+            Path workingDirectory;
+            String[] arguments;
+            try {
+                workingDirectory = Path.of(in.readUTF());
+                arguments = new String[in.readInt()];
+                for (int i=0; i<arguments.length; i++) {
+                    arguments[i] = in.readUTF();
+                }
+            } catch (IOException | RuntimeException e) {
+                return;
+            }
+
+            int status = 0;
+            Client owner = new Client(out);
+            target.set(owner);
+            try {
+                runs.incrementAndGet();
+                command.accept(workingDirectory, arguments);
+            } catch (RuntimeException e) {
+                System.err.println("Error running command: " + e);
+                status = 1;
+            } finally {
+                System.out.flush();
+                System.err.flush();
+                owner.running = false;
+                target.remove();
+            }
+            synchronized (out) {
+                out.writeByte(EXIT);
+                out.writeInt(status);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    /*
+     * The standard streams are shared by every thread, so what they print is sent to the client of the
+     * thread printing it, or to the original stream outside a request. Threads started by a command inherit its
+     * client until the command ends. Pool threads, like those of the common pool, may have been started by one command
+     * and later work for any other, so they never print to a client.
+     */
+    private class RoutedOutputStream extends OutputStream {
+
+        RoutedOutputStream(OutputStream original, byte type) {
+            this.original = original;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            DataOutputStream out = route();
+            if (out == null) {
+                original.write(b, off, len);
+                return;
+            }
+            try {
+                synchronized (out) {
+                    out.writeByte(type);
+                    out.writeInt(len);
+                    out.write(b, off, len);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // The client went away, the command still runs to completion
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (route() == null) {
+                original.flush();
+            }
+        }
+
+        private DataOutputStream route() {
+            Client client = target.get();
+            if (client == null) {
+                return null;
+            }
+            if (!client.running || Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                target.remove();
+                return null;
+            }
+            return client.out;
+        }
+
+        private final OutputStream original;
+        private final byte type;
+    }
+
+    private static class Client {
+
+        Client(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private final DataOutputStream out;
+        private volatile boolean running = true;
+    }
+
+    private final Path socket;
+    private final int threads;
+    private final BiConsumer<Path, String[]> command;
+    private final InheritableThreadLocal<Client> target = new InheritableThreadLocal<>();
+    private final AtomicLong runs = new AtomicLong();
+    private ServerSocketChannel channel;
+    private ExecutorService executor;
+}
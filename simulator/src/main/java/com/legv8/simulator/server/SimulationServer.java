@@ -0,0 +1,359 @@
+package com.legv8.simulator.server;
+
+import com.legv8.simulator.cpu.TimingModel;
+import com.legv8.simulator.execution.ContinuousMode;
+import com.legv8.simulator.execution.Expectations;
+import com.legv8.simulator.fileio.AssemblyFileReader;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <code>SimulationServer</code> keeps one JVM running and simulates the programs posted to it over HTTP,
+ * so that the start-up of the simulator is paid once instead of once per program.
+ * <p>
+ * The server only listens on the loopback interface. <code>POST /run</code> takes a JSON object, sent as
+ * <code>application/json</code>, with the program as <code>source</code> or as the <code>path</code> of a file
+ * inside the sandbox folder, and optionally:
+ * <ul>
+ * <li><code>stdin</code>, the lines read by <code>SVC #1</code>, as a string or an array of strings</li>
+ * <li><code>expected</code>, expectations as in an expected results file, as a string or an array of lines</li>
+ * <li><code>timing</code>, an object with the latencies of the <code>TimingModel</code></li>
+ * <li><code>maxInstructions</code>, lowering the instruction limit of the server for this run</li>
+ * <li><code>memory</code>, <code>true</code> to include the final contents of memory</li>
+ * </ul>
+ * The response holds the registers, flags, cycle counts and output of the run, or its compile or
+ * runtime errors. Line numbers start at 1. <code>GET /health</code> reports the number of runs served.
+ * <p>
+ * Web pages open in a browser can also reach the loopback interface, so requests sent by a page, which
+ * carry an <code>Origin</code>, or under another host name, which a page gets by rebinding its DNS name to
+ * 127.0.0.1, are refused. The file calls of the programs, <code>SVC #2</code>, <code>#6</code> and
+ * <code>#7</code>, only reach files inside the sandbox folder, and fail when there is none.
+ * <p>
+ * Requests are handled by a fixed number of threads. When all of them are busy and the queue is full,
+ * new connections are handled on the accepting thread, which stops accepting until it is done.
+ *
+ * @see Json
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class SimulationServer {
+
+    public static final int DEFAULT_PORT = 8642;
+    public static final long DEFAULT_MAX_INSTRUCTIONS = 10_000_000L;
+    public static final int MAX_REQUEST_BYTES = 1 << 20;
+    private static final int QUEUED_REQUESTS_PER_THREAD = 16;
+    private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    /**
+     * @param port				the port to listen on, 0 for any free port
+     * @param threads			the number of programs simulated at the same time
+     * @param maxInstructions	the number of instructions after which a run is stopped
+     * @param reader			the reader used for programs given by path
+     * @param sandbox			the folder of the programs given by path and of the files programs use,
+     * 							<code>null</code> to refuse both
+     */
+    public SimulationServer(int port, int threads, long maxInstructions, AssemblyFileReader reader, Path sandbox) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The server needs at least 1 thread");
+        }
+        if (maxInstructions < 1) {
+            throw new IllegalArgumentException("The instruction limit must be at least 1");
+        }
+        this.port = port;
+        this.threads = threads;
+        this.maxInstructions = maxInstructions;
+        this.reader = reader;
+        if (sandbox == null) {
+            this.sandbox = null;
+        } else {
+            try {
+                this.sandbox = sandbox.toRealPath();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("The sandbox folder does not exist: " + sandbox);
+            }
+            if (!Files.isDirectory(this.sandbox)) {
+                throw new IllegalArgumentException("The sandbox is not a folder: " + sandbox);
+            }
+        }
+    }
+
+    /**
+     * Starts listening. The server keeps the JVM alive until <code>stop()</code> is called.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_REQUESTS_PER_THREAD),
+                r -> new Thread(r, "legv8-server-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/run", this::handleRun);
+        server.createContext("/health", this::handleHealth);
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits at most one second for the running ones to finish.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * @return	the address the server listens on
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * @return	the number of programs simulated so far
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (isForeign(exchange)) {
+                respond(exchange, 403, error("Only local clients other than browsers may use the server"));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, error("Use GET"));
+                return;
+            }
+            respond(exchange, 200, "{\"status\":\"ok\",\"runs\":" + runs.get() + ",\"threads\":" + threads
+                    + ",\"maxInstructions\":" + maxInstructions + "}");
+        }
+    }
+
+    private void handleRun(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (isForeign(exchange)) {
+                respond(exchange, 403, error("Only local clients other than browsers may use the server"));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            // Browsers send a JSON content type across origins only after asking the server, which never allows it
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType == null || !contentType.split(";", 2)[0].trim().equalsIgnoreCase("application/json")) {
+                respond(exchange, 415, error("Send the request as application/json"));
+                return;
+            }
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_REQUEST_BYTES + 1);
+            if (body.length > MAX_REQUEST_BYTES) {
+                respond(exchange, 413, error("Requests are limited to " + MAX_REQUEST_BYTES + " bytes"));
+                return;
+            }
+            int status = 200;
+            String response;
+            try {
+                Object request = Json.parse(new String(body, StandardCharsets.UTF_8));
+                if (!(request instanceof Map<?, ?> map)) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                response = run(map);
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                response = error(e.getMessage());
+            } catch (IOException e) {
+                status = 404;
+                response = error("Error accessing assembly file: " + e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                response = error(e.toString());
+            }
+            respond(exchange, status, response);
+        }
+    }
+
+    private String run(Map<?, ?> request) throws IOException {
+        ArrayList<TextLine> code;
+        Object source = request.get("source");
+        Object path = request.get("path");
+        if (source instanceof String text) {
+            code = new ArrayList<>(text.lines().map(String::trim).map(TextLine::new).toList());
+        } else if (path instanceof String file) {
+            code = reader.readAsTextLines(resolveProgram(file).toString());
+        } else {
+            throw new IllegalArgumentException("Expected the program as \"source\" or \"path\"");
+        }
+        long limit = maxInstructions;
+        if (request.get("maxInstructions") instanceof Long requested && requested > 0) {
+            limit = Math.min(limit, requested);
+        }
+        Expectations expected = (request.get("expected") == null) ? null : new Expectations(lines(request.get("expected")));
+        List<String> stdin = (request.get("stdin") == null) ? List.of() : lines(request.get("stdin"));
+
+        ContinuousMode simulator = new ContinuousMode(code);
+        runs.incrementAndGet();
+        StringBuilder json = new StringBuilder(1024);
+        if (!simulator.getCompileErrorMsgs().isEmpty()) {
+            json.append("{\"success\":false,\"compileErrors\":[");
+            for (int i=0; i<simulator.getCompileErrorMsgs().size(); i++) {
+                json.append((i == 0) ? "" : ",").append(lineError(simulator.getCompileErrorMsgs().get(i)));
+            }
+            return json.append("]}").toString();
+        }
+        if (request.get("timing") instanceof Map<?, ?> latencies) {
+            Properties properties = new Properties();
+            latencies.forEach((group, latency) -> properties.setProperty(String.valueOf(group), String.valueOf(latency)));
+            simulator.setTimingModel(TimingModel.fromProperties(properties));
+        }
+        simulator.setFileDirectory(sandbox, true);
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        String input = stdin.isEmpty() ? "" : String.join("\n", stdin) + "\n";
+        simulator.setConsole(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(stdout, true, StandardCharsets.ISO_8859_1));
+        ResultWrapper<CPUSnapshot, LineError> result = simulator.runWithResult(limit);
+        String output = stdout.toString(StandardCharsets.ISO_8859_1);
+
+        if (result.isFailure()) {
+            json.append("{\"success\":false,\"error\":").append(lineError(result.getError()));
+        } else {
+            CPUSnapshot snapshot = result.getValue();
+            json.append("{\"success\":true,\"registers\":{");
+            String[] names = snapshot.getRegisterNames();
+            for (int i=0; i<names.length; i++) {
+                json.append((i == 0) ? "\"" : ",\"").append(names[i]).append("\":").append(snapshot.getRegister(i));
+            }
+            json.append("},\"flags\":{\"N\":").append(snapshot.getNflag())
+                    .append(",\"Z\":").append(snapshot.getZflag())
+                    .append(",\"C\":").append(snapshot.getCflag())
+                    .append(",\"V\":").append(snapshot.getVflag())
+                    .append("},\"cycles\":").append(snapshot.getCycles())
+                    .append(",\"instructions\":").append(snapshot.getInstructionCount())
+                    .append(",\"cpi\":").append(snapshot.getCPI())
+                    .append(",\"runtimeMillis\":").append(snapshot.getTotalMillis());
+            if (expected != null) {
+                List<String> failures = expected.check(snapshot, simulator.getMemory(), output);
+                json.append(",\"expectations\":{\"passed\":").append(failures.isEmpty()).append(",\"failures\":[");
+                for (int i=0; i<failures.size(); i++) {
+                    json.append((i == 0) ? "" : ",").append(Json.quote(failures.get(i)));
+                }
+                json.append("]}");
+            }
+            if (Boolean.TRUE.equals(request.get("memory"))) {
+                json.append(",\"memory\":").append(Json.quote(simulator.getMemory().toString()));
+            }
+        }
+        return json.append(",\"stdout\":").append(Json.quote(output)).append('}').toString();
+    }
+
+    /*
+     * The program must really be inside the sandbox, so links and .. cannot lead out of it.
+     */
+    private Path resolveProgram(String file) throws IOException {
+        if (sandbox == null) {
+            throw new IllegalArgumentException("Programs can only be sent as \"source\", the server has no sandbox folder");
+        }
+        Path path = sandbox.resolve(file).toRealPath();
+        if (!path.startsWith(sandbox)) {
+            throw new IllegalArgumentException("The path is outside of the sandbox folder: " + file);
+        }
+        return path;
+    }
+
+    /*
+     * Browsers add an Origin to the requests of web pages, and keep the host name of the page after a DNS rebinding.
+     */
+    private static boolean isForeign(HttpExchange exchange) {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            return true;
+        }
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null) {
+            return true;
+        }
+        int port = host.lastIndexOf(':');
+        if (port > host.lastIndexOf(']')) {
+            host = host.substring(0, port);
+        }
+        return !LOCAL_HOSTS.contains(host.toLowerCase());
+    }
+
+    /*
+     * A multi-line value may be sent as one string or as an array of strings.
+     */
+    private static List<String> lines(Object value) {
+        if (value instanceof String text) {
+            return text.lines().toList();
+        }
+        if (value instanceof List<?> list) {
+            List<String> lines = new ArrayList<>(list.size());
+            for (Object line : list) {
+                lines.add(String.valueOf(line));
+            }
+            return lines;
+        }
+        throw new IllegalArgumentException("Expected a string or an array of strings");
+    }
+
+    private static String lineError(LineError error) {
+        StringBuilder json = new StringBuilder("{\"line\":");
+        json.append((error.getLineNumber() < 0) ? "null" : String.valueOf(error.getLineNumber() + 1))
+                .append(",\"message\":").append(Json.quote(String.valueOf(error.getMsg())));
+        if (!error.getExecutionHistory().isEmpty()) {
+            json.append(",\"history\":[");
+            for (int i=0; i<error.getExecutionHistory().size(); i++) {
+                json.append((i == 0) ? "" : ",").append(Json.quote(error.getExecutionHistory().get(i)));
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(String.valueOf(message)) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private final int port;
+    private final int threads;
+    private final long maxInstructions;
+    private final AssemblyFileReader reader;
+    private final Path sandbox;
+    private final AtomicLong runs = new AtomicLong();
+    private HttpServer server;
+    private ThreadPoolExecutor executor;
+}
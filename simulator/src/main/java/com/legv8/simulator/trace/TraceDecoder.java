@@ -0,0 +1,95 @@
+package com.legv8.simulator.trace;
+
+import com.legv8.simulator.instruction.Instruction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * <code>TraceDecoder</code> turns binary <code>TraceRecord</code>s into human-readable text.
+ * <p>
+ * If the list of <code>Instruction</code>s of the traced program is supplied, each line also
+ * shows the source line number and mnemonic of the executed instruction.
+ *
+ * @see TraceFileReader
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TraceDecoder {
+
+    public TraceDecoder() {
+        this(null);
+    }
+
+    /**
+     * @param instructions	the instructions of the traced program, <code>null</code> if not available
+     */
+    public TraceDecoder(ArrayList<Instruction> instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * @param record	the record to decode
+     * @return			a single line of text describing <code>record</code>
+     */
+    public String decode(TraceRecord record) {
+        StringBuilder sb = new StringBuilder();
+        int index = record.getInstructionIndex();
+        sb.append("[").append(index).append("]");
+        if (instructions != null && index >= 0 && index < instructions.size()) {
+            Instruction ins = instructions.get(index);
+            sb.append(" line ").append(ins.getLineNumber() + 1)
+                    .append("\t").append(ins.getMnemonic().nameUpper);
+        }
+        if (record.getRegister() != TraceRecord.NO_REGISTER) {
+            sb.append("\tX").append(record.getRegister())
+                    .append(" = ").append(record.getRegisterValue());
+        }
+        if (record.getAccessSize() != 0) {
+            sb.append(record.isStore() ? "\tstore " : "\tload ")
+                    .append(record.getAccessSize()).append("B [0x")
+                    .append(Long.toHexString(record.getAddress())).append("] = 0x")
+                    .append(Long.toHexString(record.getMemoryValue()));
+        }
+        int flags = record.getFlags();
+        sb.append("\tNZCV=")
+                .append((flags & TraceRecord.FLAG_N) != 0 ? '1' : '0')
+                .append((flags & TraceRecord.FLAG_Z) != 0 ? '1' : '0')
+                .append((flags & TraceRecord.FLAG_C) != 0 ? '1' : '0')
+                .append((flags & TraceRecord.FLAG_V) != 0 ? '1' : '0');
+        if ((flags & TraceRecord.FLAG_BRANCH_TAKEN) != 0) {
+            sb.append("\tbranch taken");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes a whole trace file into a text file, one line per record.
+     *
+     * @param tracePath		the binary trace to decode
+     * @param outputPath	the text file to write. Existing content is overwritten.
+     * @return				the number of records decoded
+     * @throws IOException if an I/O error occurs
+     */
+    public long decode(Path tracePath, Path outputPath) throws IOException {
+        Path parent = outputPath.toAbsolutePath().getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+        long count = 0;
+        TraceRecord record = new TraceRecord();
+        try (TraceFileReader reader = new TraceFileReader(tracePath);
+             BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
+            while (reader.next(record)) {
+                writer.write(decode(record));
+                writer.newLine();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private final ArrayList<Instruction> instructions;
+}
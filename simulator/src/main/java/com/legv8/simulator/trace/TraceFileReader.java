@@ -0,0 +1,96 @@
+package com.legv8.simulator.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <code>TraceFileReader</code> reads back the binary traces produced by <code>TraceFileWriter</code>,
+ * one <code>TraceRecord</code> at a time.
+ *
+ * @see TraceFileWriter
+ * @see TraceDecoder
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TraceFileReader implements Closeable {
+
+    private static final int BUFFER_RECORDS = 8192;
+
+    /**
+     * @param path	the trace file to read
+     * @throws IOException if the file cannot be read or is not a LEGv8 trace
+     */
+    public TraceFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * TraceRecord.RECORD_SIZE);
+        buffer.flip();
+        if (!fill(TraceRecord.HEADER_SIZE)
+                || buffer.getLong() != TraceRecord.MAGIC) {
+            channel.close();
+            throw new IOException("Not a LEGv8 trace file: " + path);
+        }
+        int version = buffer.getInt();
+        int recordSize = buffer.getInt();
+        if (version != TraceRecord.VERSION || recordSize != TraceRecord.RECORD_SIZE) {
+            channel.close();
+            throw new IOException("Unsupported trace version " + version + " in file: " + path);
+        }
+        recordCount = (channel.size() - TraceRecord.HEADER_SIZE) / TraceRecord.RECORD_SIZE;
+    }
+
+    /**
+     * @param record	the record to be overwritten with the next entry of the trace
+     * @return			<code>false</code> if the end of the trace has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean next(TraceRecord record) throws IOException {
+        if (!fill(TraceRecord.RECORD_SIZE)) {
+            return false;
+        }
+        int instructionIndex = buffer.getInt();
+        int register = buffer.get();
+        int memoryAccess = buffer.get() & 0xff;
+        int flags = buffer.get() & 0xff;
+        buffer.get();
+        record.set(instructionIndex, register, buffer.getLong(), memoryAccess,
+                buffer.getLong(), buffer.getLong(), flags);
+        return true;
+    }
+
+    /**
+     * @return	the number of complete records in the trace file
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     * Makes sure at least 'bytes' bytes are available in the buffer, reading from the channel if needed.
+     * Returns false if the end of the file is reached first.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long recordCount;
+}
@@ -0,0 +1,118 @@
+package com.legv8.simulator.trace;
+
+import com.legv8.simulator.cpu.CPU;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <code>TraceFileWriter</code> streams fixed-width <code>TraceRecord</code>s to a file.
+ * <p>
+ * Records are accumulated in a direct buffer which is written to the underlying
+ * <code>FileChannel</code> every time it fills up, so the heap usage of a trace is
+ * independent of the number of instructions executed. The buffer is also written once
+ * <code>FLUSH_INTERVAL_NANOS</code> have passed since the last write, so a run that is killed
+ * loses at most the records of that interval.
+ *
+ * @see TraceRecord
+ * @see CPU
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TraceFileWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_RECORDS = 8192;
+    public static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+    // Records written between two looks at the clock, a power of two
+    private static final int CLOCK_CHECK_RECORDS = 1024;
+
+    /**
+     * @param path	the file to write the trace to. Existing content is overwritten.
+     * @throws IOException if the file cannot be created
+     */
+    public TraceFileWriter(Path path) throws IOException {
+        this(path, DEFAULT_BUFFER_RECORDS);
+    }
+
+    /**
+     * @param path			the file to write the trace to. Existing content is overwritten.
+     * @param bufferRecords	the number of records held in memory between flushes
+     * @throws IOException if the file cannot be created
+     */
+    public TraceFileWriter(Path path, int bufferRecords) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(Math.max(1, bufferRecords) * TraceRecord.RECORD_SIZE);
+        buffer.putLong(TraceRecord.MAGIC);
+        buffer.putInt(TraceRecord.VERSION);
+        buffer.putInt(TraceRecord.RECORD_SIZE);
+    }
+
+    /**
+     * Appends a record to the trace. See <code>TraceRecord</code> for the meaning of each field.
+     *
+     * @throws IOException if the buffer had to be flushed and the write failed
+     * @see TraceRecord#set(int, int, long, int, long, long, int)
+     */
+    public void write(int instructionIndex, int register, long registerValue, int memoryAccess,
+                      long address, long memoryValue, int flags) throws IOException {
+        if (buffer.remaining() < TraceRecord.RECORD_SIZE) {
+            flush();
+        }
+        buffer.putInt(instructionIndex);
+        buffer.put((byte) register);
+        buffer.put((byte) memoryAccess);
+        buffer.put((byte) flags);
+        buffer.put((byte) 0);
+        buffer.putLong(registerValue);
+        buffer.putLong(address);
+        buffer.putLong(memoryValue);
+        recordCount++;
+        if ((recordCount & (CLOCK_CHECK_RECORDS - 1)) == 0 && System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * @return	the number of records written so far
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long recordCount = 0;
+    private long lastFlush = System.nanoTime();
+}
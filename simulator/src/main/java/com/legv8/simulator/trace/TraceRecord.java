@@ -0,0 +1,132 @@
+package com.legv8.simulator.trace;
+
+/**
+ * A <code>TraceRecord</code> holds one fixed-width entry of a binary execution trace,
+ * describing the effects of a single executed instruction.
+ * <p>
+ * Records are stored big-endian and are {@value #RECORD_SIZE} bytes long:
+ * <ul>
+ * 	<li> <code>int</code> index of the executed instruction
+ * 	<li> <code>byte</code> register written, <code>-1</code> if none
+ * 	<li> <code>byte</code> memory access: size in bytes, plus {@link #ACCESS_STORE} for stores
+ * 	<li> <code>byte</code> NZCV flags and branch outcome bits
+ * 	<li> <code>byte</code> padding
+ * 	<li> <code>long</code> value written to the register
+ * 	<li> <code>long</code> memory address accessed
+ * 	<li> <code>long</code> value loaded or stored
+ * </ul>
+ * A single <code>TraceRecord</code> object is meant to be reused while reading a trace
+ * so no allocation happens per record.
+ *
+ * @see TraceFileWriter
+ * @see TraceFileReader
+ * @author Rodrigo Bautista Hernández, 2026
+ */
+public class TraceRecord {
+
+    public static final long MAGIC = 0x4C45475638545243L; // "LEGV8TRC"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 32;
+
+    public static final int NO_REGISTER = -1;
+    public static final int ACCESS_SIZE_MASK = 0x0f;
+    public static final int ACCESS_STORE = 0x10;
+
+    public static final int FLAG_V = 0x01;
+    public static final int FLAG_C = 0x02;
+    public static final int FLAG_Z = 0x04;
+    public static final int FLAG_N = 0x08;
+    public static final int FLAG_BRANCH_TAKEN = 0x10;
+
+    /**
+     * @param instructionIndex	the index of the executed instruction
+     * @param register			the register written by the instruction, <code>NO_REGISTER</code> if none
+     * @param registerValue		the value written to <code>register</code>
+     * @param memoryAccess		the access size in bytes, plus <code>ACCESS_STORE</code> for stores; 0 if no access
+     * @param address			the memory address accessed
+     * @param memoryValue		the value loaded or stored
+     * @param flags				the NZCV flags and branch outcome after execution
+     */
+    public void set(int instructionIndex, int register, long registerValue, int memoryAccess,
+                    long address, long memoryValue, int flags) {
+        this.instructionIndex = instructionIndex;
+        this.register = register;
+        this.registerValue = registerValue;
+        this.memoryAccess = memoryAccess;
+        this.address = address;
+        this.memoryValue = memoryValue;
+        this.flags = flags;
+    }
+
+    /**
+     * @return	the index of the executed instruction
+     */
+    public int getInstructionIndex() {
+        return instructionIndex;
+    }
+
+    /**
+     * @return	the register written by the instruction, <code>NO_REGISTER</code> if none
+     */
+    public int getRegister() {
+        return register;
+    }
+
+    /**
+     * @return	the value written to the register
+     */
+    public long getRegisterValue() {
+        return registerValue;
+    }
+
+    /**
+     * @return	the number of bytes accessed in memory, 0 if the instruction did not access memory
+     */
+    public int getAccessSize() {
+        return memoryAccess & ACCESS_SIZE_MASK;
+    }
+
+    /**
+     * @return	<code>true</code> if the memory access was a store
+     */
+    public boolean isStore() {
+        return (memoryAccess & ACCESS_STORE) != 0;
+    }
+
+    /**
+     * @return	the raw memory access byte of this record
+     */
+    public int getMemoryAccess() {
+        return memoryAccess;
+    }
+
+    /**
+     * @return	the memory address accessed
+     */
+    public long getAddress() {
+        return address;
+    }
+
+    /**
+     * @return	the value loaded or stored
+     */
+    public long getMemoryValue() {
+        return memoryValue;
+    }
+
+    /**
+     * @return	the NZCV flags and branch outcome bits
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    private int instructionIndex;
+    private int register;
+    private long registerValue;
+    private int memoryAccess;
+    private long address;
+    private long memoryValue;
+    private int flags;
+}
@@ -0,0 +1,257 @@
+package com.legv8.simulator.cpu;
+
+import com.legv8.simulator.execution.BatchInput;
+import com.legv8.simulator.execution.BatchMode;
+import com.legv8.simulator.execution.ContinuousMode;
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.instruction.MachineCode;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.memory.Memory;
+import com.legv8.simulator.memory.SegmentFaultException;
+import com.legv8.simulator.response.CPUSnapshot;
+import com.legv8.simulator.response.LineError;
+import com.legv8.simulator.response.ResultWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchCPUTests {
+
+	private static final long HEAP = Memory.DYNAMIC_DATA_SEGMENT_OFFSET;
+	private static final int HEAP_BYTES = 256;
+	private static final String[] CONDITIONS = {"EQ", "NE", "HS", "LO", "HI", "LS", "GE", "LT", "GT", "LE", "MI", "PL", "VS", "VC"};
+
+	@Test
+	void everyLaneMatchesAScalarRun() {
+		Random random = new Random(35);
+		PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+		int exclusiveStores = 0;
+		int fallbacks = 0;
+		int failures = 0;
+		for (int program=0; program<300; program++) {
+			List<String> source = randomProgram(random);
+			ArrayList<TextLine> code = new ArrayList<>();
+			for (String line : source) {
+				code.add(new TextLine(line));
+			}
+			ContinuousMode compiled = new ContinuousMode(code);
+			assertTrue(compiled.getCompileErrorMsgs().isEmpty(), () -> compiled.getCompileErrorMsgs() + "\n" + String.join("\n", source));
+			ArrayList<Instruction> instructions = compiled.getInstructions();
+
+			List<BatchInput> inputs = new ArrayList<>();
+			for (int lane=1+random.nextInt(9); lane>0; lane--) {
+				inputs.add(randomInput(random));
+			}
+			BatchMode batch = new BatchMode(instructions, inputs);
+			List<ResultWrapper<CPUSnapshot, LineError>> results;
+			// lanes handed to a scalar CPU print to the standard output
+			PrintStream out = System.out;
+			System.setOut(sink);
+			try {
+				results = batch.run();
+			} finally {
+				System.setOut(out);
+			}
+
+			for (int lane=0; lane<inputs.size(); lane++) {
+				String where = "program " + program + ", lane " + lane + ":\n" + String.join("\n", source);
+				Memory memory = new Memory(instructions.size());
+				ResultWrapper<CPUSnapshot, LineError> expected = runScalar(instructions, inputs.get(lane), memory, sink);
+				ResultWrapper<CPUSnapshot, LineError> actual = results.get(lane);
+				assertEquals(expected.isSuccess(), actual.isSuccess(), where);
+				if (expected.isSuccess()) {
+					CPUSnapshot scalar = expected.getValue();
+					CPUSnapshot lockstep = actual.getValue();
+					for (int register=0; register<CPU.NUM_REGISTERS; register++) {
+						assertEquals(scalar.getRegister(register), lockstep.getRegister(register), "X" + register + " of " + where);
+					}
+					assertEquals(scalar.getNflag(), lockstep.getNflag(), where);
+					assertEquals(scalar.getZflag(), lockstep.getZflag(), where);
+					assertEquals(scalar.getCflag(), lockstep.getCflag(), where);
+					assertEquals(scalar.getVflag(), lockstep.getVflag(), where);
+					assertEquals(scalar.getInstructionCount(), lockstep.getInstructionCount(), where);
+					assertEquals(scalar.getCycles(), lockstep.getCycles(), where);
+				} else {
+					failures++;
+					assertEquals(expected.getError().getMsg(), actual.getError().getMsg(), where);
+					assertEquals(expected.getError().getLineNumber(), actual.getError().getLineNumber(), where);
+				}
+				assertEquals(heap(memory), heap(batch.getMemory(lane)), where);
+			}
+			for (String line : source) {
+				exclusiveStores += line.startsWith("STXR") ? 1 : 0;
+				fallbacks += line.startsWith("SVC") ? 1 : 0;
+			}
+		}
+		// the programs reach every path of BatchCPU, not only the vectorised one
+		assertTrue(exclusiveStores > 100);
+		assertTrue(fallbacks > 100);
+		assertTrue(failures > 10);
+	}
+
+	/*
+	 * A loop run a different number of times by each lane, around straight-line code with forward branches
+	 * on data that differs between lanes, so that lanes keep diverging and merging again.
+	 */
+	private static List<String> randomProgram(Random random) {
+		List<String> lines = new ArrayList<>();
+		lines.add("MOVZ X1, #0x1000, LSL #16");
+		lines.add("loop:");
+		List<int[]> pending = new ArrayList<>();
+		int labels = 0;
+		int length = 20 + random.nextInt(40);
+		for (int i=0; i<length; i++) {
+			for (int j=pending.size()-1; j>=0; j--) {
+				if (--pending.get(j)[1] <= 0) {
+					lines.add("f" + pending.remove(j)[0] + ":");
+				}
+			}
+			String d = "X" + (2 + random.nextInt(14));
+			String a = register(random);
+			String b = register(random);
+			int offset = 8 * random.nextInt(HEAP_BYTES / 8 - 1);
+			switch (random.nextInt(30)) {
+				case 0 -> lines.add("ADD " + d + ", " + a + ", " + b);
+				case 1 -> lines.add("ADDS " + d + ", " + a + ", " + b);
+				case 2 -> lines.add("SUB " + d + ", " + a + ", " + b);
+				case 3 -> lines.add("SUBS " + d + ", " + a + ", " + b);
+				case 4 -> lines.add("AND " + d + ", " + a + ", " + b);
+				case 5 -> lines.add("ANDS " + d + ", " + a + ", " + b);
+				case 6 -> lines.add(random.nextBoolean() ? "ORR " + d + ", " + a + ", " + b : "EOR " + d + ", " + a + ", " + b);
+				case 7 -> lines.add(random.nextBoolean() ? "ADDI " + d + ", " + a + ", #" + random.nextInt(4096)
+						: "ADDIS " + d + ", " + a + ", #" + random.nextInt(4096));
+				case 8 -> lines.add(random.nextBoolean() ? "SUBI " + d + ", " + a + ", #" + random.nextInt(4096)
+						: "SUBIS " + d + ", " + a + ", #" + random.nextInt(4096));
+				case 9 -> lines.add(random.nextBoolean() ? "ANDI " + d + ", " + a + ", #" + random.nextInt(4096)
+						: "ANDIS " + d + ", " + a + ", #" + random.nextInt(4096));
+				case 10 -> lines.add(random.nextBoolean() ? "ORRI " + d + ", " + a + ", #" + random.nextInt(4096)
+						: "EORI " + d + ", " + a + ", #" + random.nextInt(4096));
+				case 11 -> lines.add((random.nextBoolean() ? "LSL " : "LSR ") + d + ", " + a + ", #" + random.nextInt(64));
+				case 12 -> lines.add((random.nextBoolean() ? "MOVZ " : "MOVK ") + d + ", #" + random.nextInt(65536)
+						+ ", LSL #" + 16 * random.nextInt(4));
+				case 13 -> lines.add("CMP " + a + ", " + b);
+				case 14 -> lines.add("LDUR " + d + ", [X1, #" + offset + "]");
+				case 15 -> lines.add("STUR " + a + ", [X1, #" + offset + "]");
+				case 16 -> lines.add((random.nextBoolean() ? "LDURSW " : "LDURB ") + d + ", [X1, #" + (offset + random.nextInt(4)) + "]");
+				case 17 -> lines.add((random.nextBoolean() ? "STURW " : random.nextBoolean() ? "STURH " : "STURB ")
+						+ a + ", [X1, #" + (offset + random.nextInt(4)) + "]");
+				case 18 -> {
+					// a reservation that a store to the same address in between may break
+					lines.add("ADDI X21, X1, #" + offset);
+					lines.add("LDXR " + d + ", [X21, #0]");
+					if (random.nextBoolean()) {
+						lines.add("STUR " + a + ", [X1, #" + offset + "]");
+					}
+					lines.add("STXR " + b + ", X" + (2 + random.nextInt(14)) + ", [X21, #0]");
+				}
+				case 19 -> {
+					lines.add("ADDI X21, X1, #" + offset);
+					lines.add("STXR " + a + ", " + d + ", [X21, #0]");
+				}
+				case 20, 21 -> {
+					int target = labels++;
+					pending.add(new int[] {target, 1 + random.nextInt(6)});
+					lines.add(switch (random.nextInt(4)) {
+						case 0 -> "CBZ " + a + ", f" + target;
+						case 1 -> "CBNZ " + a + ", f" + target;
+						case 2 -> "B f" + target;
+						default -> "B." + CONDITIONS[random.nextInt(CONDITIONS.length)] + " f" + target;
+					});
+				}
+				case 22 -> {
+					int target = labels++;
+					pending.add(new int[] {target, 1 + random.nextInt(6)});
+					lines.add("BL f" + target);
+				}
+				case 23 -> {
+					// printing up to seven bytes of the heap, handed to a scalar CPU per lane
+					lines.add("ANDI X2, X2, #7");
+					lines.add("SVC #0");
+				}
+				case 24, 26 -> {
+					// closing a file that was never opened changes nothing, but still runs on a scalar CPU
+					lines.add("SVC #3");
+				}
+				case 25 -> {
+					// some lanes stop here while the others go on
+					int target = labels++;
+					pending.add(new int[] {target, 1});
+					lines.add("CBNZ " + a + ", f" + target);
+					lines.add("SVC #9");
+				}
+				case 27 -> lines.add(random.nextInt(4) == 0 ? "LDURH " + d + ", [X1, #" + offset + "]" : "MOV " + d + ", " + a);
+				case 28 -> lines.add(random.nextInt(4) == 0 ? "STUR " + a + ", [SP, #0]" : "CMP " + a + ", XZR");
+				default -> lines.add("ADD " + d + ", " + a + ", X20");
+			}
+		}
+		for (int[] label : pending) {
+			lines.add("f" + label[0] + ":");
+		}
+		lines.add("SUBI X20, X20, #1");
+		lines.add("CBNZ X20, loop");
+		return lines;
+	}
+
+	private static String register(Random random) {
+		int register = random.nextInt(18);
+		return (register == 17) ? "XZR" : (register == 16) ? "X20" : "X" + register;
+	}
+
+	private static BatchInput randomInput(Random random) {
+		BatchInput input = new BatchInput();
+		input.setRegister(20, 1 + random.nextInt(4));
+		for (int register=0; register<16; register++) {
+			switch (random.nextInt(4)) {
+				case 0 -> input.setRegister(register, 0);
+				case 1 -> input.setRegister(register, random.nextInt(16) - 8);
+				case 2 -> input.setRegister(register, random.nextLong());
+				default -> {
+					// left at its initial value
+				}
+			}
+		}
+		for (int doubleword=0; doubleword<HEAP_BYTES/8; doubleword+=1+random.nextInt(4)) {
+			input.setDoubleword(HEAP + 8L * doubleword, random.nextBoolean() ? random.nextLong() : random.nextInt(3));
+		}
+		return input;
+	}
+
+	private static ResultWrapper<CPUSnapshot, LineError> runScalar(ArrayList<Instruction> instructions, BatchInput input,
+																   Memory memory, PrintStream console) {
+		memory.loadText(MachineCode.encodeText(instructions));
+		CPU cpu = new CPU();
+		cpu.setKeepLog(false);
+		cpu.setConsole(null, console);
+		for (Map.Entry<Integer, Long> register : input.getRegisters().entrySet()) {
+			cpu.setRegister(register.getKey(), register.getValue());
+		}
+		try {
+			for (Map.Entry<Long, Long> doubleword : input.getDoublewords().entrySet()) {
+				memory.storeDoubleword(doubleword.getKey(), doubleword.getValue());
+			}
+		} catch (SegmentFaultException e) {
+			throw new IllegalStateException(e);
+		}
+		return cpu.run(instructions, memory);
+	}
+
+	private static List<Long> heap(Memory memory) {
+		List<Long> bytes = new ArrayList<>(HEAP_BYTES);
+		try {
+			for (int i=0; i<HEAP_BYTES; i++) {
+				bytes.add(memory.loadByte(HEAP + i));
+			}
+		} catch (SegmentFaultException e) {
+			throw new IllegalStateException(e);
+		}
+		return bytes;
+	}
+}
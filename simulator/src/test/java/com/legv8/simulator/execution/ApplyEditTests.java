@@ -0,0 +1,90 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.response.LineError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ApplyEditTests {
+
+	private static final String[] LINES = {
+		"ADDI X1, X1, #1", "loop: SUBIS X2, X2, #1", "B.NE loop", "CBZ X1, end", "end: ADD X3, X3, X1",
+		"B end", "B missing", "ADDI X1, X1, #99999", "garbage line", "", "// comment", "lbl:", "BL lbl",
+		"lbl: ORR X4, X4, X4", "CBNZ X2, loop", "MOVZ X2, #3", "B.EQ lbl", "missing: ADDI X5, X5, #2"
+	};
+
+	@Test
+	void editsCompileLikeTheWholeProgram() {
+		Random random = new Random(1);
+		for (int program=0; program<500; program++) {
+			List<String> text = new ArrayList<>();
+			for (int i=random.nextInt(15); i>0; i--) {
+				text.add(LINES[random.nextInt(LINES.length)]);
+			}
+			ContinuousMode edited = compile(text);
+			for (int edit=0; edit<10; edit++) {
+				int firstLine = random.nextInt(text.size() + 1);
+				int removedLines = random.nextInt(text.size() - firstLine + 1);
+				List<String> newLines = new ArrayList<>();
+				for (int i=random.nextInt(4); i>0; i--) {
+					newLines.add(LINES[random.nextInt(LINES.length)]);
+				}
+				edited.applyEdit(firstLine, removedLines, newLines);
+				text.subList(firstLine, firstLine + removedLines).clear();
+				text.addAll(firstLine, newLines);
+				assertEquals(describe(compile(text)), describe(edited), String.join("\n", text));
+			}
+		}
+	}
+
+	@Test
+	void parseErrorsComeBeforeDecodeErrors() {
+		ContinuousMode simulator = compile(List.of("B missing", "ADDI X1, X1, #1"));
+		simulator.applyEdit(1, 1, List.of("garbage line", "ADDI X1, X1, #99999"));
+		List<LineError> errors = simulator.getCompileErrorMsgs();
+		assertEquals(3, errors.size());
+		assertEquals(1, errors.get(0).getLineNumber());
+		assertEquals(0, errors.get(1).getLineNumber());
+		assertEquals(2, errors.get(2).getLineNumber());
+	}
+
+	@Test
+	void editClearsTheRuntimeError() {
+		ContinuousMode simulator = compile(List.of("LDUR X1, [XZR, #0]"));
+		simulator.runWithResult(100);
+		assertNotNull(simulator.getRuntimeErrorMsg());
+		simulator.applyEdit(0, 1, List.of("ADDI X1, XZR, #1"));
+		assertNull(simulator.getRuntimeErrorMsg());
+		assertEquals(1, simulator.runWithResult(100).getValue().getRegister(1));
+	}
+
+	private static ContinuousMode compile(List<String> text) {
+		ArrayList<TextLine> code = new ArrayList<>();
+		for (String line : text) {
+			code.add(new TextLine(line));
+		}
+		return new ContinuousMode(code);
+	}
+
+	private static String describe(LEGv8_Simulator simulator) {
+		StringBuilder description = new StringBuilder();
+		for (Instruction instruction : simulator.getInstructions()) {
+			description.append(instruction.getMnemonic()).append(Arrays.toString(instruction.getArgs()))
+					.append(" @").append(instruction.getLineNumber()).append(' ')
+					.append(instruction.getControlSignals()).append('\n');
+		}
+		for (LineError error : simulator.getCompileErrorMsgs()) {
+			description.append(error.getLineNumber()).append(": ").append(error.getMsg()).append('\n');
+		}
+		return description.toString();
+	}
+}
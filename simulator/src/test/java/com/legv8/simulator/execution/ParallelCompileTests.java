@@ -0,0 +1,72 @@
+package com.legv8.simulator.execution;
+
+import com.legv8.simulator.instruction.Instruction;
+import com.legv8.simulator.lexer.TextLine;
+import com.legv8.simulator.response.LineError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ParallelCompileTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void parallelCompileMatchesTheSequentialOne() throws IOException {
+		Random random = new Random(5);
+		List<String> text = new ArrayList<>();
+		int labels = 0;
+		while (text.size() < LEGv8_Simulator.PARALLEL_COMPILE_LINES + 5000) {
+			switch (random.nextInt(12)) {
+				case 0 -> text.add("l" + labels++ + ": ADDI X1, X1, #1");
+				case 1 -> text.add("l" + labels++ + ":");
+				case 2 -> text.add("B l" + random.nextInt(labels + 20));
+				case 3 -> text.add("CBZ X2, l" + random.nextInt(labels + 20));
+				case 4 -> text.add("ADDI X1, X1, #99999");
+				case 5 -> text.add("garbage line");
+				case 6 -> text.add("");
+				case 7 -> text.add("// comment");
+				case 8 -> text.add("dup: SUBI X3, X3, #2");
+				case 9 -> text.add("B.NE dup");
+				default -> text.add("ADD X" + random.nextInt(28) + ", X1, X2");
+			}
+		}
+		Path program = folder.resolve("big.s");
+		Files.write(program, text);
+
+		ArrayList<TextLine> code = new ArrayList<>();
+		for (String line : text) {
+			code.add(new TextLine(line));
+		}
+		ContinuousMode parallel = new ContinuousMode(code);
+		AssembledProgram sequential = AssembledProgram.assemble(program);
+
+		assertFalse(sequential.getCompileErrors().isEmpty());
+		assertEquals(describe(sequential.getInstructions(), sequential.getCompileErrors()),
+				describe(parallel.getInstructions(), parallel.getCompileErrorMsgs()));
+	}
+
+	private static String describe(List<Instruction> instructions, List<LineError> errors) {
+		StringBuilder description = new StringBuilder();
+		for (Instruction instruction : instructions) {
+			description.append(instruction.getMnemonic()).append(Arrays.toString(instruction.getArgs()))
+					.append(" @").append(instruction.getLineNumber()).append(' ')
+					.append(instruction.getControlSignals()).append('\n');
+		}
+		for (LineError error : errors) {
+			description.append(error.getLineNumber()).append(": ").append(error.getMsg()).append('\n');
+		}
+		return description.toString();
+	}
+}
@@ -0,0 +1,52 @@
+package com.legv8.simulator.fileio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RegradeManifestTests {
+
+	private static final List<String> LINES = List.of("=== a\tb ===", "back\\slash \\n not a newline", "line\nbreak",
+			"carriage\rreturn", "", "trailing\\", "\\\\t");
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void storedLinesAndPathsSurviveEscaping() throws IOException {
+		Path program = Files.writeString(folder.resolve("odd\tname\\n.s"), "ADDI X1, X1, #1\n");
+		save(program, LINES);
+
+		RegradeManifest manifest = RegradeManifest.load(folder.resolve("manifest"), "1", "config");
+		assertEquals(LINES, manifest.lookup(program));
+	}
+
+	@Test
+	void resultsAreReusedOnlyForTheSameVersionConfigurationAndContent() throws IOException {
+		Path program = Files.writeString(folder.resolve("p.s"), "ADDI X1, X1, #1\n");
+		save(program, LINES);
+
+		assertNull(RegradeManifest.load(folder.resolve("manifest"), "2", "config").lookup(program));
+		assertNull(RegradeManifest.load(folder.resolve("manifest"), "1", "other").lookup(program));
+
+		Files.setLastModifiedTime(program, FileTime.fromMillis(Files.getLastModifiedTime(program).toMillis() + 5000));
+		assertEquals(LINES, RegradeManifest.load(folder.resolve("manifest"), "1", "config").lookup(program));
+
+		Files.writeString(program, "ADDI X1, X1, #2\n");
+		assertNull(RegradeManifest.load(folder.resolve("manifest"), "1", "config").lookup(program));
+	}
+
+	private void save(Path program, List<String> lines) throws IOException {
+		RegradeManifest manifest = new RegradeManifest(folder.resolve("manifest"), "1", "config");
+		manifest.store(program, lines);
+		manifest.save();
+	}
+}
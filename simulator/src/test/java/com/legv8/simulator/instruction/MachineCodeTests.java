@@ -0,0 +1,142 @@
+package com.legv8.simulator.instruction;
+
+import com.legv8.simulator.execution.ContinuousMode;
+import com.legv8.simulator.lexer.TextLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MachineCodeTests {
+
+	// Branches are encoded relative to their own index, so this one reaches both ends of a B offset
+	private static final int INDEX = 1 << 25;
+
+	@Test
+	void everyMnemonicSurvivesARoundTripAtTheEdgesOfItsFields() {
+		int checked = 0;
+		for (Mnemonic m : Mnemonic.values()) {
+			for (int[] args : edgeArguments(m)) {
+				Instruction instruction = new Instruction(m, args, INDEX, null);
+				Instruction decoded = MachineCode.decode(MachineCode.encode(instruction, INDEX), INDEX);
+				assertEquals(m, decoded.getMnemonic());
+				assertArrayEquals(args, decoded.getArgs(), m.nameUpper);
+				assertEquals(INDEX, decoded.getLineNumber());
+				checked++;
+			}
+		}
+		assertTrue(checked > 100);
+	}
+
+	@Test
+	void fieldsOneBeyondTheirRangeAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.ADDI, 1, 2, 4096));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.ADDI, 1, 2, -1));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.LDUR, 1, 2, 256));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.STUR, 1, 2, -257));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.LSL, 1, 2, 64));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.ADD, 32, 2, 3));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.MOVZ, 1, 65536, 0));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.MOVK, 1, 1, 64));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.SVC, 65536));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.B, INDEX + (1 << 25)));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.BL, INDEX - (1 << 25) - 1));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.CBZ, 1, INDEX + (1 << 18)));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.BNE, INDEX - (1 << 18) - 1));
+		assertThrows(IllegalArgumentException.class, () -> encode(Mnemonic.CMP, 1, 2));
+		assertThrows(IllegalArgumentException.class, () -> MachineCode.encode(null, 0));
+		assertThrows(IllegalArgumentException.class, () -> MachineCode.decode(0, 0));
+	}
+
+	@Test
+	void pseudoInstructionsComeBackAsTheInstructionTheyDecodeTo() {
+		ArrayList<TextLine> code = new ArrayList<>();
+		for (String line : List.of("CMP X1, X2", "MOV X4, X5")) {
+			code.add(new TextLine(line));
+		}
+		int[] words = MachineCode.encode(new ContinuousMode(code).getInstructions());
+		assertInstruction(Mnemonic.SUBS, new int[] {31, 1, 2}, MachineCode.decode(words[0], 0));
+		assertInstruction(Mnemonic.ORR, new int[] {4, 31, 5}, MachineCode.decode(words[1], 1));
+	}
+
+	private static void assertInstruction(Mnemonic m, int[] args, Instruction instruction) {
+		assertEquals(m, instruction.getMnemonic());
+		assertArrayEquals(args, instruction.getArgs());
+	}
+
+	private static int encode(Mnemonic m, int... args) {
+		return MachineCode.encode(new Instruction(m, args, INDEX, null), INDEX);
+	}
+
+	private static List<int[]> edgeArguments(Mnemonic m) {
+		List<int[]> args = new ArrayList<>();
+		int[] registers = {0, 1, 30, 31};
+		switch (m) {
+			case ADD, ADDS, SUB, SUBS, AND, ANDS, ORR, EOR -> {
+				for (int r : registers) {
+					args.add(new int[] {r, 31 - r, r});
+				}
+			}
+			case LSL, LSR -> {
+				for (int shift : new int[] {0, 1, 63}) {
+					args.add(new int[] {0, 31, shift});
+				}
+			}
+			case ADDI, ADDIS, SUBI, SUBIS, ANDI, ANDIS, ORRI, EORI -> {
+				for (int immediate : new int[] {0, 1, 2047, 4095}) {
+					args.add(new int[] {31, 0, immediate});
+				}
+			}
+			case LDUR, STUR, LDURSW, STURW, LDURH, STURH, LDURB, STURB, LDXR -> {
+				for (int offset : new int[] {-256, -1, 0, 255}) {
+					args.add(new int[] {30, 31, offset});
+				}
+			}
+			case STXR -> {
+				for (int r : registers) {
+					args.add(new int[] {r, 31 - r, 30, 0});
+				}
+			}
+			case MOVZ, MOVK -> {
+				for (int shift : new int[] {0, 16, 32, 48}) {
+					args.add(new int[] {31, 0, shift});
+					args.add(new int[] {0, 65535, shift});
+				}
+			}
+			case CBZ, CBNZ -> {
+				for (int offset : new int[] {-(1 << 18), -1, 0, 1, (1 << 18) - 1}) {
+					args.add(new int[] {31, INDEX + offset});
+				}
+			}
+			case BEQ, BNE, BHS, BLO, BHI, BLS, BGE, BLT, BGT, BLE, BMI, BPL, BVS, BVC -> {
+				for (int offset : new int[] {-(1 << 18), -1, 0, 1, (1 << 18) - 1}) {
+					args.add(new int[] {INDEX + offset});
+				}
+			}
+			case B, BL -> {
+				for (int offset : new int[] {-(1 << 25), -1, 0, 1, (1 << 25) - 1}) {
+					args.add(new int[] {INDEX + offset});
+				}
+			}
+			case BR -> {
+				for (int r : registers) {
+					args.add(new int[] {r});
+				}
+			}
+			case SVC -> {
+				for (int immediate : new int[] {0, 1, 65535}) {
+					args.add(new int[] {immediate});
+				}
+			}
+			case ERET -> args.add(new int[1]);
+			// Pseudo instructions and ADR have no encoding of their own
+			default -> { }
+		}
+		return args;
+	}
+}
@@ -0,0 +1,71 @@
+package com.legv8.simulator.lexer;
+
+import com.legv8.simulator.fileio.AssemblyFileReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LineCacheTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void identicalLinesAreAnalysedOnce() {
+		LineCache cache = LineCache.getShared();
+		long hits = cache.getHits();
+		long misses = cache.getMisses();
+		new TextLine("ADDI X21, X22, #321").tokenizeAndParse();
+		new TextLine("ADDI X21, X22, #321").tokenizeAndParse();
+		assertEquals(misses + 1, cache.getMisses());
+		assertEquals(hits + 1, cache.getHits());
+	}
+
+	@Test
+	void identicalLinesDoNotShareTheirArguments() {
+		TextLine first = new TextLine("SUBI X23, X24, #654");
+		first.tokenizeAndParse();
+		List<String> args = new ArrayList<>(first.getArgs());
+		first.getArgs().add("X9");
+
+		TextLine second = new TextLine("SUBI X23, X24, #654");
+		second.tokenizeAndParse();
+		assertEquals(args, second.getArgs());
+		assertEquals(first.getTokens(), second.getTokens());
+	}
+
+	@Test
+	void hashingAProgramDoesNotLookUpTheCache() throws IOException {
+		Path program = Files.writeString(folder.resolve("p.s"), "loop: ADDI X25, X25, #987 // comment\nB loop\n");
+		LineCache cache = LineCache.getShared();
+		long hits = cache.getHits();
+		long misses = cache.getMisses();
+		int size = cache.size();
+		new AssemblyFileReader().hashNormalized(program.toString());
+		assertEquals(hits, cache.getHits());
+		assertEquals(misses, cache.getMisses());
+		assertEquals(size, cache.size());
+	}
+
+	@Test
+	void leastRecentlyUsedLineIsEvicted() {
+		LineCache cache = new LineCache(2);
+		LineCache.Entry first = cache.get("ADD X1, X2, X3");
+		cache.get("ADD X4, X5, X6");
+		assertSame(first, cache.get("ADD X1, X2, X3"));
+		cache.get("ADD X7, X8, X9");
+		cache.get("ADD X4, X5, X6");
+		assertEquals(1, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(2, cache.getEvictions());
+		assertEquals(2, cache.size());
+	}
+}
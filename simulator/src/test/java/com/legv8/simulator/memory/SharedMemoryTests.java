@@ -0,0 +1,109 @@
+package com.legv8.simulator.memory;
+
+import com.legv8.simulator.execution.MultiCoreMode;
+import com.legv8.simulator.lexer.TextLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedMemoryTests {
+
+	private static final long ADDRESS = 0x10000000L;
+	private static final int THREADS = 8;
+
+	@Test
+	void storeFromAnotherCoreClearsTheReservation() throws SegmentFaultException {
+		SharedMemory memory = new SharedMemory(0, 2);
+		memory.loadExclusive(0, ADDRESS);
+		memory.storeByte(ADDRESS + 7, 1);
+		assertFalse(memory.storeExclusive(0, ADDRESS, 5));
+
+		memory.loadExclusive(0, ADDRESS);
+		memory.storeDoubleword(ADDRESS + Memory.DOUBLEWORD_SIZE, 1);
+		assertTrue(memory.storeExclusive(0, ADDRESS, 5));
+		assertEquals(5, memory.loadDoubleword(ADDRESS));
+		assertFalse(memory.storeExclusive(0, ADDRESS, 6));
+	}
+
+	@Test
+	void exclusiveIncrementsAreNotLostUnderContention() throws Exception {
+		SharedMemory memory = new SharedMemory(0, THREADS);
+		int increments = 20000;
+		runOnThreads(core -> {
+			for (int i=0; i<increments; i++) {
+				long value;
+				do {
+					value = memory.loadExclusive(core, ADDRESS);
+				} while (!memory.storeExclusive(core, ADDRESS, value + 1));
+			}
+		});
+		assertEquals((long) THREADS * increments, memory.loadDoubleword(ADDRESS));
+	}
+
+	@Test
+	void alignedDoublewordsAreNeverTorn() throws Exception {
+		SharedMemory memory = new SharedMemory(0, THREADS);
+		AtomicReference<String> torn = new AtomicReference<>();
+		runOnThreads(core -> {
+			long pattern = 0x0101010101010101L * (core + 1);
+			for (int i=0; i<20000; i++) {
+				memory.storeDoubleword(ADDRESS, pattern);
+				long value = memory.loadDoubleword(ADDRESS);
+				if (value != 0x0101010101010101L * (value & 0xFF)) {
+					torn.compareAndSet(null, Long.toHexString(value));
+				}
+			}
+		});
+		assertNull(torn.get());
+	}
+
+	@Test
+	void coresIncrementASharedCounterWithExclusiveAccesses() throws SegmentFaultException {
+		List<String> source = List.of(
+				"MOVZ X1, #4096, LSL #16",
+				"MOVZ X5, #500",
+				"loop: LDXR X2, [X1, #0]",
+				"ADDI X2, X2, #1",
+				"STXR X2, X3, [X1]",
+				"CBNZ X3, loop",
+				"SUBI X5, X5, #1",
+				"CBNZ X5, loop");
+		MultiCoreMode simulator = new MultiCoreMode(new ArrayList<>(source.stream().map(TextLine::new).toList()), 4);
+		assertTrue(simulator.getCompileErrorMsgs().isEmpty());
+		assertTrue(simulator.runWithResult().isSuccess());
+		assertEquals(4 * 500, simulator.getMemory().loadDoubleword(ADDRESS));
+	}
+
+	private interface CoreTask {
+		void run(int core) throws SegmentFaultException;
+	}
+
+	private static void runOnThreads(CoreTask task) throws Exception {
+		Thread[] threads = new Thread[THREADS];
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		for (int i=0; i<THREADS; i++) {
+			int core = i;
+			threads[i] = new Thread(() -> {
+				try {
+					task.run(core);
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+	}
+}
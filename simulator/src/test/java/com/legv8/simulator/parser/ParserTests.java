@@ -0,0 +1,85 @@
+package com.legv8.simulator.parser;
+
+import com.legv8.simulator.lexer.Lexer;
+import com.legv8.simulator.lexer.Token;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParserTests {
+
+	// Messages given by the parser before it used a transition table
+	private static final String[][] MESSAGES = {
+		{"ADDI X1, X1", "Missing tokens: ',' 'IMMEDIATE' "},
+		{"ADDI X1, X1, X2", "Invalid token: expected 'IMMEDIATE', found 'X2'"},
+		{"ADD X1, X1, #1", "Invalid token: expected 'REGISTER', found '#1'"},
+		{"FOO X1, X2", "Unsupported instruction: 'FOO'"},
+		{"B.XX label", "Missing token: 'IDENTIFIER' "},
+		{"LDUR X1, [X2, #8", "Missing token: ']' "},
+		{"LDUR X1, X2, #8]", "Invalid token: expected '[', found 'X2'"},
+		{"MOVZ X1, #1, LSL", "Missing tokens: 'IMMEDIATE' "},
+		{"MOVZ X1, #1, LSL #16", null},
+		{"MOVZ X1, #1, lsl #16", null},
+		{"MOVZ X1, #1, ASR #16", "Invalid token: expected 'LSL', found 'ASR'"},
+		{"MOVK X1, #1, LSL #16 X2", "Unexpected token: 'X2'. Remove this token."},
+		{"ADDI X1, X1, #1 extra", "Unexpected token: 'extra'. Remove this token."},
+		{"label: label2:", "Unsupported instruction: 'label2:'"},
+		{"lbl: ADDI X1 X1 #1", "Invalid token: expected ',', found 'X1'"},
+		{"CBZ X1", "Missing tokens: ',' 'IDENTIFIER' "},
+		{"B", "Missing token: 'IDENTIFIER' "},
+		{"BL 5", "Invalid token: expected 'IDENTIFIER', found '5'"},
+		{"ADD X1, X2, X3,", "Unexpected token: ','. Remove this token."},
+		{"STXR X1, X2, [X3]", null},
+		{"STUR X1, [X2, X3]", "Invalid token: expected 'IMMEDIATE', found 'X3'"},
+		{"SVC", "Missing token: 'IMMEDIATE' "},
+		{"ADDI", "Missing tokens: 'REGISTER' ',' 'REGISTER' ',' 'IMMEDIATE' "},
+		{", X1", "Unsupported instruction: ',X1'"},
+		{"X1, X2", "Unsupported instruction: 'X1,'"},
+		{"#5", "Unsupported instruction: '#5'"},
+		{"addi x1, x1, #1", null}
+	};
+
+	private static final String[] FRAGMENTS = {
+		"ADDI ", "ADD ", "MOVZ ", "movk ", "LDUR ", "STXR ", "B ", "B.EQ ", "BL ", "CBZ ", "SVC ", "LSL ", "BR ", "CMP ",
+		"X1", "X2", "XZR", "SP", "#1", "#-3", "#0x10", ", ", ",", "[", "]", "lbl:", "loop", " ", "foo", "@"
+	};
+
+	@Test
+	void errorMessagesAreUnchanged() {
+		for (String[] line : MESSAGES) {
+			assertEquals(line[1], Parser.parseLine(Lexer.lex(line[0])), line[0]);
+		}
+	}
+
+	@Test
+	void tableAcceptsWhatTheStateMachineAccepts() {
+		Random random = new Random(11);
+		for (int i=0; i<100000; i++) {
+			StringBuilder line = new StringBuilder();
+			for (int fragment=random.nextInt(9); fragment>0; fragment--) {
+				line.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			}
+			ArrayList<Token> tokens = Lexer.lex(line.toString());
+			// Lines without tokens are never parsed
+			if (tokens.isEmpty()) {
+				continue;
+			}
+			assertEquals(acceptedByStateMachine(tokens), Parser.parseLine(tokens) == null, line.toString());
+		}
+	}
+
+	private static boolean acceptedByStateMachine(ArrayList<Token> tokens) {
+		ParserState state = ParserState.INIT;
+		try {
+			for (Token token : tokens) {
+				state = state.transition(token);
+			}
+		} catch (UnsupportedInstructionException | InvalidTokenException | UnexpectedTokenException e) {
+			return false;
+		}
+		return state.accepting;
+	}
+}